@@ -0,0 +1,26 @@
+/**
+ * API Exception
+ * File: ApiException.java
+ * Location: src/com/movieticket/server/ApiException.java
+ *
+ * Purpose: Abort a request with an HTTP status and message
+ * Thrown from handlers; BookingServer turns it into {"error": message}.
+ */
+
+package com.movieticket.server;
+
+import java.io.IOException;
+
+public class ApiException extends IOException {
+
+    private final int status;
+
+    public ApiException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
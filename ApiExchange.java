@@ -0,0 +1,176 @@
+/**
+ * API Exchange
+ * File: ApiExchange.java
+ * Location: src/com/movieticket/server/ApiExchange.java
+ *
+ * Purpose: One HTTP request/response of the booking API
+ * Parameters come from the query string and, for POST, a form-encoded body.
+ * Responses are JSON; errors are {"error": "..."} with a matching status.
+ */
+
+package com.movieticket.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ApiExchange {
+
+    // Form bodies larger than this are rejected
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private final HttpExchange exchange;
+    private final String[] pathSegments;
+    private Map<String, String> params;
+
+    public ApiExchange(HttpExchange exchange) {
+        this.exchange = exchange;
+        String path = exchange.getRequestURI().getPath();
+        this.pathSegments = path.replaceAll("^/+|/+$", "").split("/+");
+    }
+
+    public String getMethod() {
+        return exchange.getRequestMethod();
+    }
+
+    /**
+     * @param index Segment index, e.g. 2 is "7" in /api/bookings/7/cancel
+     * @return Path segment, or null if the path is shorter
+     */
+    public String segment(int index) {
+        return index < pathSegments.length ? pathSegments[index] : null;
+    }
+
+    public int segmentCount() {
+        return pathSegments.length;
+    }
+
+    /**
+     * @return Token from "Authorization: Bearer ...", or null
+     */
+    public String getBearerToken() {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header != null && header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return header.substring(7).trim();
+        }
+        return null;
+    }
+
+    /**
+     * @param name Parameter name
+     * @return Value, or null if absent
+     */
+    public String param(String name) throws IOException {
+        return params().get(name);
+    }
+
+    /**
+     * @param name Parameter name
+     * @return Value
+     * @throws ApiException 400 if absent or not a number
+     */
+    public int intParam(String name) throws IOException {
+        String value = param(name);
+        if (value == null) {
+            throw new ApiException(400, "Missing parameter: " + name);
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Parameter " + name + " must be a number");
+        }
+    }
+
+    /**
+     * @return Value, or defaultValue if absent
+     * @throws ApiException 400 if present but not a number
+     */
+    public int intParam(String name, int defaultValue) throws IOException {
+        return param(name) == null ? defaultValue : intParam(name);
+    }
+
+    /**
+     * @throws ApiException 400 if absent or blank
+     */
+    public String requiredParam(String name) throws IOException {
+        String value = param(name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new ApiException(400, "Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private Map<String, String> params() throws IOException {
+        if (params == null) {
+            Map<String, String> parsed = new HashMap<>();
+            parseInto(parsed, exchange.getRequestURI().getRawQuery());
+            if ("POST".equals(getMethod())) {
+                parseInto(parsed, readBody());
+            }
+            params = parsed;
+        }
+        return params;
+    }
+
+    private String readBody() throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new ApiException(413, "Request body too large");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @throws ApiException 400 on a malformed % escape
+     */
+    private static void parseInto(Map<String, String> params, String encoded) throws ApiException {
+        if (encoded == null || encoded.isEmpty()) {
+            return;
+        }
+        try {
+            for (String pair : encoded.split("&")) {
+                int eq = pair.indexOf('=');
+                String name = eq < 0 ? pair : pair.substring(0, eq);
+                String value = eq < 0 ? "" : pair.substring(eq + 1);
+                params.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                           URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Malformed form encoding");
+        }
+    }
+
+    /**
+     * Send a JSON response and end the exchange
+     */
+    public void send(int status, JsonWriter json) throws IOException {
+        send(status, json.toString());
+    }
+
+    /**
+     * Send {"error": message}
+     */
+    public void sendError(int status, String message) throws IOException {
+        send(status, new JsonWriter().beginObject().name("error").value(message).endObject());
+    }
+
+    private void send(int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public void close() {
+        exchange.close();
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * Benchmark Database Fixture
+ * File: BenchmarkDatabase.java
+ * Location: src/com/movieticket/bench/BenchmarkDatabase.java
+ *
+ * Purpose: Stand up an in-memory H2 database (MySQL mode) with the booking
+ * schema and seed data, and point DatabaseConnection at it
+ * Must run before anything touches DatabaseConnection, whose settings are
+ * read once when the class loads.
+ */
+
+package com.movieticket.bench;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+public final class BenchmarkDatabase {
+
+    public static final String URL =
+            "jdbc:h2:mem:movieticket;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+    public static final String USERNAME = "sa";
+    public static final String PASSWORD = "";
+
+    // Seed volumes
+    public static final int MOVIES = 50;
+    public static final int THEATERS_PER_MOVIE = 4;
+    public static final int SHOWS_PER_THEATER = 3;
+    public static final int USERS = 1000;
+    public static final int BOOKINGS_PER_USER = 20;
+    public static final int HEAVY_USER_ID = 1;          // gets HEAVY_USER_BOOKINGS extra rows
+    public static final int HEAVY_USER_BOOKINGS = 5000;
+    public static final int CONTENDED_SHOW_ID = 1;
+
+    private static boolean initialized;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Create and seed the database once per JVM
+     */
+    public static synchronized void init() throws SQLException {
+        if (initialized) {
+            return;
+        }
+        System.setProperty("movieticket.db.url", URL);
+        System.setProperty("movieticket.db.username", USERNAME);
+        System.setProperty("movieticket.db.password", PASSWORD);
+        System.setProperty("movieticket.db.driver", "org.h2.Driver");
+
+        try (Connection conn = DriverManager.getConnection(URL, USERNAME, PASSWORD)) {
+            createSchema(conn);
+            seed(conn);
+        }
+        initialized = true;
+    }
+
+    private static void createSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE users (" +
+                    "user_id INT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(50) NOT NULL UNIQUE, " +
+                    "password VARCHAR(100) NOT NULL, email VARCHAR(100) NOT NULL, phone VARCHAR(15) NOT NULL, " +
+                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.execute("CREATE TABLE movies (" +
+                    "movie_id INT AUTO_INCREMENT PRIMARY KEY, movie_name VARCHAR(200) NOT NULL, " +
+                    "genre VARCHAR(50), duration INT, language VARCHAR(50), description TEXT, " +
+                    "is_active BOOLEAN DEFAULT TRUE, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                    "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.execute("CREATE TABLE theaters (" +
+                    "theater_id INT AUTO_INCREMENT PRIMARY KEY, theater_name VARCHAR(200) NOT NULL UNIQUE, " +
+                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                    "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.execute("CREATE TABLE shows (" +
+                    "show_id INT AUTO_INCREMENT PRIMARY KEY, movie_id INT NOT NULL, " +
+                    "theater_id INT NOT NULL, show_time VARCHAR(20) NOT NULL, show_start TIMESTAMP NOT NULL, " +
+                    "total_seats INT DEFAULT 100, available_seats INT DEFAULT 100, " +
+                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                    "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                    "FOREIGN KEY (movie_id) REFERENCES movies(movie_id), " +
+                    "FOREIGN KEY (theater_id) REFERENCES theaters(theater_id))");
+            stmt.execute("CREATE INDEX idx_movie_theater ON shows (movie_id, theater_id)");
+            stmt.execute("CREATE INDEX idx_movie_start ON shows (movie_id, show_start)");
+            stmt.execute("CREATE TABLE bookings (" +
+                    "booking_id INT AUTO_INCREMENT PRIMARY KEY, user_id INT NOT NULL, movie_id INT NOT NULL, " +
+                    "show_id INT NOT NULL, booking_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                    "number_of_tickets INT NOT NULL, total_amount DECIMAL(10, 2) NOT NULL, " +
+                    "status VARCHAR(20) DEFAULT 'CONFIRMED', idempotency_key VARCHAR(64), " +
+                    "FOREIGN KEY (user_id) REFERENCES users(user_id), " +
+                    "FOREIGN KEY (movie_id) REFERENCES movies(movie_id), " +
+                    "FOREIGN KEY (show_id) REFERENCES shows(show_id))");
+            stmt.execute("CREATE INDEX idx_user_booking_date ON bookings (user_id, booking_date, booking_id)");
+            stmt.execute("CREATE INDEX idx_user_status ON bookings (user_id, status, total_amount)");
+            stmt.execute("CREATE INDEX idx_booking_date ON bookings (booking_date)");
+            stmt.execute("CREATE UNIQUE INDEX uk_booking_idempotency ON bookings (user_id, idempotency_key)");
+            stmt.execute("CREATE TABLE booking_seats (" +
+                    "show_id INT NOT NULL, seat_no SMALLINT NOT NULL, booking_id INT NOT NULL, " +
+                    "PRIMARY KEY (show_id, seat_no))");
+            stmt.execute("CREATE TABLE user_booking_stats (" +
+                    "user_id INT PRIMARY KEY, total_bookings INT NOT NULL DEFAULT 0, " +
+                    "total_spent DECIMAL(12, 2) NOT NULL DEFAULT 0)");
+        }
+    }
+
+    private static void seed(Connection conn) throws SQLException {
+        conn.setAutoCommit(false);
+
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO users (username, password, email, phone) VALUES (?, ?, ?, ?)")) {
+            for (int i = 1; i <= USERS; i++) {
+                pstmt.setString(1, "user" + i);
+                pstmt.setString(2, "pass" + i);
+                pstmt.setString(3, "user" + i + "@example.com");
+                pstmt.setString(4, "90000" + String.format("%05d", i));
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO movies (movie_name, genre, duration, language, description) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= MOVIES; i++) {
+                pstmt.setString(1, "Movie " + i);
+                pstmt.setString(2, "Drama");
+                pstmt.setInt(3, 120);
+                pstmt.setString(4, i % 2 == 0 ? "Hindi" : "English");
+                pstmt.setString(5, "Benchmark movie " + i);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO theaters (theater_name) VALUES (?)")) {
+            for (int t = 1; t <= THEATERS_PER_MOVIE; t++) {
+                pstmt.setString(1, "Theater " + t);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO shows (movie_id, theater_id, show_time, show_start, total_seats, available_seats) " +
+                "VALUES (?, ?, ?, ?, ?, ?)")) {
+            long tomorrow = LocalDate.now().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            for (int m = 1; m <= MOVIES; m++) {
+                for (int t = 1; t <= THEATERS_PER_MOVIE; t++) {
+                    for (int s = 0; s < SHOWS_PER_THEATER; s++) {
+                        pstmt.setInt(1, m);
+                        pstmt.setInt(2, t);
+                        pstmt.setString(3, String.format("%02d:00 PM", 1 + s * 3));
+                        pstmt.setTimestamp(4, new Timestamp(tomorrow + TimeUnit.HOURS.toMillis(13 + s * 3)));
+                        pstmt.setInt(5, 100);
+                        pstmt.setInt(6, 100);
+                        pstmt.addBatch();
+                    }
+                }
+            }
+            pstmt.executeBatch();
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO bookings (user_id, movie_id, show_id, number_of_tickets, total_amount, status) " +
+                "VALUES (?, ?, ?, ?, ?, ?)")) {
+            int rows = 0;
+            for (int u = 1; u <= USERS; u++) {
+                int count = u == HEAVY_USER_ID ? HEAVY_USER_BOOKINGS : BOOKINGS_PER_USER;
+                for (int b = 0; b < count; b++) {
+                    int movieId = 1 + (u + b) % MOVIES;
+                    pstmt.setInt(1, u);
+                    pstmt.setInt(2, movieId);
+                    pstmt.setInt(3, (movieId - 1) * THEATERS_PER_MOVIE * SHOWS_PER_THEATER + 1);
+                    pstmt.setInt(4, 2);
+                    pstmt.setDouble(5, 500.0);
+                    pstmt.setString(6, b % 10 == 0 ? "CANCELLED" : "CONFIRMED");
+                    pstmt.addBatch();
+                    if (++rows % 1000 == 0) {
+                        pstmt.executeBatch();
+                    }
+                }
+            }
+            pstmt.executeBatch();
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO user_booking_stats (user_id, total_bookings, total_spent) " +
+                    "SELECT user_id, COUNT(*), SUM(CASE WHEN status = 'CONFIRMED' THEN total_amount ELSE 0 END) " +
+                    "FROM bookings GROUP BY user_id");
+        }
+
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    /**
+     * Give every show an effectively unlimited number of seats so booking
+     * benchmarks measure the write path instead of the sold-out fast path
+     */
+    public static void resetAvailability() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(URL, USERNAME, PASSWORD);
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("UPDATE shows SET total_seats = 1000000, available_seats = 1000000");
+            stmt.executeUpdate("DELETE FROM booking_seats");
+        }
+    }
+}
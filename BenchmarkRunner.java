@@ -0,0 +1,34 @@
+/**
+ * Benchmark Runner
+ * File: BenchmarkRunner.java
+ * Location: src/com/movieticket/bench/BenchmarkRunner.java
+ *
+ * Purpose: Run the JMH suite and write results as JSON for comparison across commits
+ * Usage: java -jar bench/target/benchmarks.jar [result.json] [include-regex] (built by mvn -B package)
+ * or java -cp <classes>:<jmh>:<h2> com.movieticket.bench.BenchmarkRunner with the same arguments.
+ */
+
+package com.movieticket.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String resultFile = args.length > 0 ? args[0] : "jmh-result.json";
+        String include = args.length > 1 ? args[1] : "com\\.movieticket\\.bench\\..*";
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile)
+                .build();
+
+        new Runner(options).run();
+        System.out.println("Benchmark results written to " + resultFile);
+    }
+}
@@ -16,6 +16,8 @@ public class Booking {
     private int bookingId;
     private int userId;
     private int movieId;
+    private int showId;
+    // Display names; not stored in bookings, resolved from the show
     private String movieName;
     private String theaterName;
     private String showTime;
@@ -23,6 +25,8 @@ public class Booking {
     private int numberOfTickets;
     private double totalAmount;
     private String status; // CONFIRMED, CANCELLED
+    // Client-chosen key that makes resubmitting the same booking safe; null if none
+    private String idempotencyKey;
     
     // Constructor for new booking (without bookingId and bookingDate)
     public Booking(int userId, int movieId, String movieName, String theaterName,
@@ -95,6 +99,14 @@ public class Booking {
         this.movieId = movieId;
     }
     
+    public int getShowId() {
+        return showId;
+    }
+    
+    public void setShowId(int showId) {
+        this.showId = showId;
+    }
+    
     public String getMovieName() {
         return movieName;
     }
@@ -151,6 +163,14 @@ public class Booking {
         this.status = status;
     }
     
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
     @Override
     public String toString() {
         return "Booking{" +
@@ -0,0 +1,237 @@
+/**
+ * Booking Batch Model Class
+ * File: BookingBatch.java
+ * Location: src/com/movieticket/model/BookingBatch.java
+ *
+ * Purpose: Column-per-array store of many bookings for bulk reads
+ * One primitive array per column instead of one Booking object per row, so
+ * scanning a million bookings allocates a handful of arrays rather than
+ * millions of objects. Amounts are in paise and dates in epoch milliseconds.
+ * A batch can be cleared and refilled to scan a table in chunks.
+ */
+
+package com.movieticket.model;
+
+import java.util.Arrays;
+
+public class BookingBatch {
+
+    public static final byte STATUS_CONFIRMED = 0;
+    public static final byte STATUS_CANCELLED = 1;
+
+    private int size;
+    private int[] bookingIds;
+    private int[] userIds;
+    private int[] showIds;
+    private long[] bookingDates;
+    private int[] tickets;
+    private long[] amounts;
+    private byte[] statuses;
+
+    public BookingBatch() {
+        this(256);
+    }
+
+    public BookingBatch(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        bookingIds = new int[capacity];
+        userIds = new int[capacity];
+        showIds = new int[capacity];
+        bookingDates = new long[capacity];
+        tickets = new int[capacity];
+        amounts = new long[capacity];
+        statuses = new byte[capacity];
+    }
+
+    /**
+     * Append one row, growing the arrays if needed
+     * @param amountPaise Total amount in paise
+     * @param status STATUS_CONFIRMED or STATUS_CANCELLED
+     */
+    public void add(int bookingId, int userId, int showId, long bookingDate,
+                    int numberOfTickets, long amountPaise, byte status) {
+        if (size == bookingIds.length) {
+            grow();
+        }
+        bookingIds[size] = bookingId;
+        userIds[size] = userId;
+        showIds[size] = showId;
+        bookingDates[size] = bookingDate;
+        tickets[size] = numberOfTickets;
+        amounts[size] = amountPaise;
+        statuses[size] = status;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = bookingIds.length * 2;
+        bookingIds = Arrays.copyOf(bookingIds, capacity);
+        userIds = Arrays.copyOf(userIds, capacity);
+        showIds = Arrays.copyOf(showIds, capacity);
+        bookingDates = Arrays.copyOf(bookingDates, capacity);
+        tickets = Arrays.copyOf(tickets, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+    }
+
+    /**
+     * Forget all rows but keep the arrays for reuse
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Column accessors by row index (0 <= row < size())
+    public int getBookingId(int row) {
+        return bookingIds[row];
+    }
+
+    public int getUserId(int row) {
+        return userIds[row];
+    }
+
+    public int getShowId(int row) {
+        return showIds[row];
+    }
+
+    public long getBookingDate(int row) {
+        return bookingDates[row];
+    }
+
+    public int getNumberOfTickets(int row) {
+        return tickets[row];
+    }
+
+    public long getAmountPaise(int row) {
+        return amounts[row];
+    }
+
+    public byte getStatusCode(int row) {
+        return statuses[row];
+    }
+
+    public boolean isConfirmed(int row) {
+        return statuses[row] == STATUS_CONFIRMED;
+    }
+
+    /**
+     * @return Booking ID of the last row, or 0 if empty (next chunk starts after it)
+     */
+    public int getLastBookingId() {
+        return size > 0 ? bookingIds[size - 1] : 0;
+    }
+
+    /**
+     * @return Sum of amounts of confirmed rows, in paise
+     */
+    public long sumConfirmedAmountPaise() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            if (statuses[i] == STATUS_CONFIRMED) {
+                total += amounts[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return Sum of tickets of confirmed rows
+     */
+    public long sumConfirmedTickets() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            if (statuses[i] == STATUS_CONFIRMED) {
+                total += tickets[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return A cursor positioned before the first row
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Forward-only view over the rows; one cursor per scan, no object per row
+     * <pre>
+     * BookingBatch.Cursor c = batch.cursor();
+     * while (c.next()) { total += c.getAmountPaise(); }
+     * </pre>
+     */
+    public final class Cursor {
+        private int row = -1;
+
+        private Cursor() {
+        }
+
+        public boolean next() {
+            return ++row < size;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public int getBookingId() {
+            return bookingIds[row];
+        }
+
+        public int getUserId() {
+            return userIds[row];
+        }
+
+        public int getShowId() {
+            return showIds[row];
+        }
+
+        public long getBookingDate() {
+            return bookingDates[row];
+        }
+
+        public int getNumberOfTickets() {
+            return tickets[row];
+        }
+
+        public long getAmountPaise() {
+            return amounts[row];
+        }
+
+        public byte getStatusCode() {
+            return statuses[row];
+        }
+
+        public boolean isConfirmed() {
+            return statuses[row] == STATUS_CONFIRMED;
+        }
+    }
+
+    /**
+     * Convert a status string from the bookings table to its code
+     */
+    public static byte statusCode(String status) {
+        return "CANCELLED".equals(status) ? STATUS_CANCELLED : STATUS_CONFIRMED;
+    }
+
+    /**
+     * Convert a status code back to the bookings table string
+     */
+    public static String statusName(byte code) {
+        return code == STATUS_CANCELLED ? "CANCELLED" : "CONFIRMED";
+    }
+
+    @Override
+    public String toString() {
+        return "BookingBatch{size=" + size + ", capacity=" + bookingIds.length + "}";
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Booking Contention Benchmark
+ * File: BookingContentionBenchmark.java
+ * Location: src/com/movieticket/bench/BookingContentionBenchmark.java
+ *
+ * Purpose: Many threads booking the same show at once
+ * Compares one transaction per booking (createBooking) with the
+ * group-commit path (submitBooking)
+ */
+
+package com.movieticket.bench;
+
+import com.movieticket.dao.BookingDAO;
+import com.movieticket.model.Booking;
+import com.movieticket.model.BookingResult;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Threads(32)
+@Fork(1)
+public class BookingContentionBenchmark {
+
+    private BookingDAO bookingDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.init();
+        bookingDAO = new BookingDAO();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetSeats() throws Exception {
+        BenchmarkDatabase.resetAvailability();
+    }
+
+    private static Booking newBooking() {
+        int userId = 1 + ThreadLocalRandom.current().nextInt(BenchmarkDatabase.USERS);
+        Booking booking = new Booking(userId, 1, "Movie 1", "Theater 1", "01:00 PM", 2, 500.0);
+        booking.setShowId(BenchmarkDatabase.CONTENDED_SHOW_ID);
+        return booking;
+    }
+
+    @Benchmark
+    public BookingResult createBookingSingleShow() {
+        return bookingDAO.createBooking(newBooking());
+    }
+
+    @Benchmark
+    public BookingResult groupCommitSingleShow() {
+        return bookingDAO.submitBooking(newBooking(), null).join();
+    }
+}
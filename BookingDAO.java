@@ -5,60 +5,341 @@
  * 
  * Purpose: Handle all database operations related to bookings
  * Methods: Create booking, Get user bookings, Cancel booking, Get booking by ID
+ *
+ * A booking may carry an idempotency key. (user_id, idempotency_key) is unique,
+ * so saving the same submission twice returns BookingResult.duplicate with the
+ * original booking ID instead of inserting a second booking.
  */
 
 package com.movieticket.dao;
 
+import com.movieticket.inventory.SeatInventory;
 import com.movieticket.model.Booking;
+import com.movieticket.model.BookingBatch;
+import com.movieticket.model.BookingResult;
+import com.movieticket.model.Movie;
+import com.movieticket.model.Show;
+import com.movieticket.util.DaoExecutor;
+import com.movieticket.util.DaoMetric;
+import com.movieticket.util.DaoMetrics;
 import com.movieticket.util.DatabaseConnection;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 public class BookingDAO {
     
+    private final SeatDAO seatDAO = new SeatDAO();
+    private final UserBookingStatsDAO statsDAO = new UserBookingStatsDAO();
+    
+    // Cancellations close this long before the show starts
+    public static final long CANCEL_CUTOFF_MILLIS =
+            TimeUnit.MINUTES.toMillis(Long.getLong("movieticket.booking.cancelCutoffMinutes", 120));
+    
+    // Retries for deadlock / lock wait timeout before reporting CONFLICT
+    private static final int MAX_ATTEMPTS = 3;
+    
+    // Latency, call, error and row metrics per method (see DaoMetrics)
+    private static final DaoMetric CREATE_BOOKING = DaoMetrics.register("BookingDAO", "createBooking");
+    private static final DaoMetric GET_USER_BOOKINGS = DaoMetrics.register("BookingDAO", "getUserBookings");
+    private static final DaoMetric GET_USER_BOOKINGS_PAGE = DaoMetrics.register("BookingDAO", "getUserBookingsPage");
+    private static final DaoMetric SKIP_USER_BOOKINGS = DaoMetrics.register("BookingDAO", "skipUserBookings");
+    private static final DaoMetric COUNT_USER_BOOKINGS = DaoMetrics.register("BookingDAO", "countUserBookings");
+    private static final DaoMetric FIND_BOOKING_BY_KEY = DaoMetrics.register("BookingDAO", "findBookingIdByKey");
+    private static final DaoMetric GET_USER_BOOKING_BATCH = DaoMetrics.register("BookingDAO", "getUserBookingBatch");
+    private static final DaoMetric SCAN_BOOKINGS = DaoMetrics.register("BookingDAO", "scanBookings");
+    private static final DaoMetric GET_BOOKING_BY_ID = DaoMetrics.register("BookingDAO", "getBookingById");
+    private static final DaoMetric CANCEL_BOOKING = DaoMetrics.register("BookingDAO", "cancelBooking");
+    private static final DaoMetric GET_TOTAL_BOOKINGS_COUNT = DaoMetrics.register("BookingDAO", "getTotalBookingsCount");
+    private static final DaoMetric GET_TOTAL_AMOUNT_SPENT = DaoMetrics.register("BookingDAO", "getTotalAmountSpent");
+    private static final DaoMetric IS_BOOKING_CONFIRMED = DaoMetrics.register("BookingDAO", "isBookingConfirmed");
+    
+    // Shared with BookingWriter. Seat counts keep updated_at as it is, so bookings do
+    // not make the catalog refresh re-read the show (see MovieDAO)
+    static final String DECREMENT_SEATS_SQL =
+            "UPDATE shows SET available_seats = available_seats - ?, updated_at = updated_at " +
+            "WHERE show_id = ? AND available_seats >= ?";
+    static final String INSERT_BOOKING_SQL =
+            "INSERT INTO bookings (user_id, movie_id, show_id, number_of_tickets, total_amount, status, " +
+            "idempotency_key) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String BOOKING_BY_KEY_SQL =
+            "SELECT booking_id, status, show_id FROM bookings WHERE user_id = ? AND idempotency_key = ?";
+    
+    // Columns for BookingBatch, read by index in fillBatch; date in epoch millis
+    // (whole seconds, as bookings.booking_date stores them), amount in paise,
+    // status as BookingBatch.STATUS_* so no Timestamp, String or BigDecimal is
+    // built per row
+    private static final String BATCH_COLUMNS =
+            "booking_id, user_id, show_id, ROUND(UNIX_TIMESTAMP(booking_date) * 1000.0) AS booking_millis, " +
+            "number_of_tickets, " +
+            "ROUND(total_amount * 100) AS amount_paise, " +
+            "CASE WHEN status = 'CANCELLED' THEN " + BookingBatch.STATUS_CANCELLED +
+            " ELSE " + BookingBatch.STATUS_CONFIRMED + " END AS status_code";
+    
+    // Bookings hold only keys; movie, theater and show time come from the catalog
+    private static final RowMapper<Booking> BOOKING_MAPPER = new RowMapper<>(
+            new String[] { "booking_id", "user_id", "movie_id", "show_id", "booking_date",
+                           "number_of_tickets", "total_amount", "status" },
+            (rs, col) -> {
+                Booking booking = new Booking(
+                    rs.getInt(col[0]),
+                    rs.getInt(col[1]),
+                    rs.getInt(col[2]),
+                    null, null, null, // resolved by resolveNames
+                    rs.getTimestamp(col[4]),
+                    rs.getInt(col[5]),
+                    rs.getDouble(col[6]),
+                    rs.getString(col[7])
+                );
+                booking.setShowId(rs.getInt(col[3]));
+                return booking;
+            });
+    
+    // Built once so every call prepares the identical string (the statement cache key)
+    private static final String USER_BOOKINGS_SQL =
+            "SELECT " + BOOKING_MAPPER.getColumns() + " FROM bookings WHERE user_id = ? ORDER BY booking_date DESC";
+    private static final String FIRST_PAGE_SQL =
+            "SELECT " + BOOKING_MAPPER.getColumns() + " FROM bookings WHERE user_id = ? " +
+            "ORDER BY booking_date DESC, booking_id DESC LIMIT ?";
+    private static final String NEXT_PAGE_SQL =
+            "SELECT " + BOOKING_MAPPER.getColumns() + " FROM bookings WHERE user_id = ? " +
+            "AND (booking_date < ? OR (booking_date = ? AND booking_id < ?)) " +
+            "ORDER BY booking_date DESC, booking_id DESC LIMIT ?";
+    private static final String SKIP_FIRST_SQL =
+            "SELECT booking_date, booking_id FROM bookings WHERE user_id = ? " +
+            "ORDER BY booking_date DESC, booking_id DESC LIMIT 1 OFFSET ?";
+    private static final String SKIP_NEXT_SQL =
+            "SELECT booking_date, booking_id FROM bookings WHERE user_id = ? " +
+            "AND (booking_date < ? OR (booking_date = ? AND booking_id < ?)) " +
+            "ORDER BY booking_date DESC, booking_id DESC LIMIT 1 OFFSET ?";
+    private static final String COUNT_USER_BOOKINGS_SQL =
+            "SELECT COUNT(*) FROM bookings WHERE user_id = ?";
+    private static final String BOOKING_BY_ID_SQL =
+            "SELECT " + BOOKING_MAPPER.getColumns() + " FROM bookings WHERE booking_id = ?";
+    private static final String BOOKING_STATUS_SQL =
+            "SELECT status FROM bookings WHERE booking_id = ?";
+    private static final String TOTAL_BOOKINGS_SQL =
+            "SELECT total_bookings FROM user_booking_stats WHERE user_id = ?";
+    private static final String TOTAL_SPENT_SQL =
+            "SELECT total_spent FROM user_booking_stats WHERE user_id = ?";
+    
+    // Cancellation: lock the confirmed booking (columns read by index), check the cutoff,
+    // mark it cancelled and return its tickets
+    private static final String LOCK_CONFIRMED_SQL =
+            "SELECT user_id, show_id, number_of_tickets, total_amount FROM bookings " +
+            "WHERE booking_id = ? AND status = 'CONFIRMED' FOR UPDATE";
+    private static final String SHOW_START_SQL =
+            "SELECT show_start FROM shows WHERE show_id = ?";
+    private static final String MARK_CANCELLED_SQL =
+            "UPDATE bookings SET status = 'CANCELLED' WHERE booking_id = ?";
+    private static final String RESTORE_SEATS_SQL =
+            "UPDATE shows SET available_seats = available_seats + ?, updated_at = updated_at WHERE show_id = ?";
+    
+    private static final String USER_BATCH_SQL =
+            "SELECT " + BATCH_COLUMNS + " FROM bookings WHERE user_id = ? " +
+            "ORDER BY booking_date DESC, booking_id DESC";
+    private static final String SCAN_BATCH_SQL =
+            "SELECT " + BATCH_COLUMNS + " FROM bookings WHERE booking_id > ? " +
+            "ORDER BY booking_id LIMIT ?";
+    
     /**
      * Create a new booking
-     * @param booking Booking object
-     * @return booking ID if successful, 0 otherwise
+     * Step 1: Decrement shows.available_seats only if enough seats remain
+     * Step 2: Insert the booking (and its seats, if any) and update the user's totals
+     * Step 3: Commit all of it together
+     * The shows row is locked first and the transaction holds no other locks,
+     * so concurrent bookings for the same show queue briefly but never deadlock
+     * @param booking Booking object (showId must be set)
+     * @return BookingResult with the generated booking ID when booked
      */
-    public int createBooking(Booking booking) {
+    public BookingResult createBooking(Booking booking) {
+        return createBooking(booking, null);
+    }
+    
+    /**
+     * Create a new booking for seats already reserved in SeatInventory
+     * @param booking Booking object (showId must be set)
+     * @param seats Seat numbers to save with the booking, or null
+     * @return BookingResult with the generated booking ID when booked
+     */
+    public BookingResult createBooking(Booking booking, int[] seats) {
+        return createBooking(booking, seats, false);
+    }
+    
+    /**
+     * Create a new booking for seats already reserved in SeatInventory
+     * @param booking Booking object (showId must be set)
+     * @param seats Seat numbers to save with the booking, or null
+     * @param fromBatch true when BookingWriter saves a booking alone after its
+     *        batch failed; only then may a booking already holding the key be
+     *        this one (see resolveDuplicate)
+     * @return BookingResult with the generated booking ID when booked
+     */
+    public BookingResult createBooking(Booking booking, int[] seats, boolean fromBatch) {
+        if (booking.getShowId() <= 0) {
+            return BookingResult.failed("Booking has no show selected");
+        }
+        
+        long start = System.nanoTime();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    BookingResult result = createBookingOnce(booking, seats);
+                    CREATE_BOOKING.rows(result.isBooked() ? 1 : 0);
+                    return result;
+                } catch (SQLException e) {
+                    if (isRetryable(e) && attempt < MAX_ATTEMPTS) {
+                        backoff(attempt);
+                        continue;
+                    }
+                    if (isDuplicateKey(e) && booking.getIdempotencyKey() != null) {
+                        BookingResult original = resolveDuplicate(booking, seats, fromBatch);
+                        if (original != null) {
+                            CREATE_BOOKING.rows(original.isBooked() ? 1 : 0);
+                            return original;
+                        }
+                    }
+                    if (isRetryable(e) || isDuplicateKey(e)) {
+                        return BookingResult.conflict("Seats were taken by another booking, please try again");
+                    }
+                    CREATE_BOOKING.error();
+                    e.printStackTrace();
+                    return BookingResult.failed("Booking could not be saved");
+                }
+            }
+        } finally {
+            CREATE_BOOKING.stop(start);
+        }
+    }
+    
+    private BookingResult createBookingOnce(Booking booking, int[] seats) throws SQLException {
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         
         try {
             conn = DatabaseConnection.getConnection();
-            String sql = "INSERT INTO bookings (user_id, movie_id, movie_name, theater_name, " +
-                        "show_time, number_of_tickets, total_amount, status) " +
-                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+            conn.setAutoCommit(false);
+            
+            // Step 1: Guarded decrement
+            pstmt = conn.prepareStatement(DECREMENT_SEATS_SQL);
+            bindDecrement(pstmt, booking);
+            
+            if (pstmt.executeUpdate() == 0) {
+                conn.rollback();
+                return BookingResult.soldOut();
+            }
+            pstmt.close();
+            
+            // Step 2: Insert booking
+            pstmt = conn.prepareStatement(INSERT_BOOKING_SQL, Statement.RETURN_GENERATED_KEYS);
+            bindInsert(pstmt, booking);
+            pstmt.executeUpdate();
+            
+            rs = pstmt.getGeneratedKeys();
+            if (!rs.next()) {
+                conn.rollback();
+                return BookingResult.failed("Booking ID was not generated");
+            }
+            int bookingId = rs.getInt(1);
+            
+            if (seats != null && seats.length > 0) {
+                seatDAO.saveBookingSeats(conn, bookingId, booking.getShowId(), seats);
+            }
+            statsDAO.recordBooking(conn, booking.getUserId(), booking.getTotalAmount());
             
-            pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            // Step 3: Commit
+            conn.commit();
+            return BookingResult.booked(bookingId);
+            
+        } catch (SQLException e) {
+            rollbackQuietly(conn);
+            throw e;
+        } finally {
+            closeResources(conn, pstmt, rs);
+        }
+    }
+    
+    static void bindDecrement(PreparedStatement pstmt, Booking booking) throws SQLException {
+        pstmt.setInt(1, booking.getNumberOfTickets());
+        pstmt.setInt(2, booking.getShowId());
+        pstmt.setInt(3, booking.getNumberOfTickets());
+    }
+    
+    static void bindInsert(PreparedStatement pstmt, Booking booking) throws SQLException {
+        pstmt.setInt(1, booking.getUserId());
+        pstmt.setInt(2, booking.getMovieId());
+        pstmt.setInt(3, booking.getShowId());
+        pstmt.setInt(4, booking.getNumberOfTickets());
+        pstmt.setDouble(5, booking.getTotalAmount());
+        pstmt.setString(6, booking.getStatus());
+        pstmt.setString(7, booking.getIdempotencyKey());
+    }
+    
+    /**
+     * The insert hit a unique key: find the booking that already has this key
+     * On a BookingWriter fallback, a confirmed booking for the same show with
+     * exactly these seats is this same booking, saved by the failed batch whose
+     * commit succeeded but was reported as failed, so it counts as booked.
+     * Anything else is an earlier submission and gets DUPLICATE.
+     * @param booking Booking whose insert failed (idempotency key set)
+     * @param seats Seat numbers it was saved with, or null
+     * @param fromBatch true on a BookingWriter fallback
+     * @return BOOKED or DUPLICATE with the original booking ID, or null if no
+     *         booking has the key (the duplicate was a seat)
+     */
+    private BookingResult resolveDuplicate(Booking booking, int[] seats, boolean fromBatch) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(BOOKING_BY_KEY_SQL);
             pstmt.setInt(1, booking.getUserId());
-            pstmt.setInt(2, booking.getMovieId());
-            pstmt.setString(3, booking.getMovieName());
-            pstmt.setString(4, booking.getTheaterName());
-            pstmt.setString(5, booking.getShowTime());
-            pstmt.setInt(6, booking.getNumberOfTickets());
-            pstmt.setDouble(7, booking.getTotalAmount());
-            pstmt.setString(8, booking.getStatus());
-            
-            int rowsAffected = pstmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                rs = pstmt.getGeneratedKeys();
-                if (rs.next()) {
-                    return rs.getInt(1); // Return generated booking_id
+            pstmt.setString(2, booking.getIdempotencyKey());
+            rs = pstmt.executeQuery();
+            if (!rs.next()) {
+                return null;
+            }
+            int originalId = rs.getInt(1);
+            boolean sameBooking = fromBatch
+                    && "CONFIRMED".equals(rs.getString(2))
+                    && rs.getInt(3) == booking.getShowId();
+            
+            if (sameBooking && seats != null && seats.length > 0) {
+                int[] requested = seats.clone();
+                Arrays.sort(requested);
+                if (Arrays.equals(seatDAO.getBookingSeats(conn, originalId), requested)) { // seat order
+                    return BookingResult.booked(originalId);
                 }
             }
+            return BookingResult.duplicate(originalId);
             
         } catch (SQLException e) {
             e.printStackTrace();
+            return null;
         } finally {
             closeResources(conn, pstmt, rs);
         }
-        
-        return 0;
+    }
+    
+    /**
+     * Submit a booking to the shared group-commit writer
+     * Concurrent submissions are saved in one transaction every few milliseconds
+     * @param booking Booking object (showId must be set)
+     * @param seats Seat numbers to save with the booking, or null
+     * @return Future completed with the BookingResult
+     */
+    public CompletableFuture<BookingResult> submitBooking(Booking booking, int[] seats) {
+        return BookingWriter.getInstance().submit(booking, seats);
     }
     
     /**
@@ -67,6 +348,7 @@ public class BookingDAO {
      * @return List of Booking objects
      */
     public List<Booking> getUserBookings(int userId) {
+        long start = System.nanoTime();
         List<Booking> bookings = new ArrayList<>();
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -74,36 +356,296 @@ public class BookingDAO {
         
         try {
             conn = DatabaseConnection.getConnection();
-            String sql = "SELECT * FROM bookings WHERE user_id = ? ORDER BY booking_date DESC";
+            pstmt = conn.prepareStatement(USER_BOOKINGS_SQL);
+            pstmt.setInt(1, userId);
+            
+            rs = pstmt.executeQuery();
+            
+            bookings = BOOKING_MAPPER.mapAll(rs);
+            GET_USER_BOOKINGS.rows(bookings.size());
+            resolveNames(conn, bookings);
+            
+        } catch (SQLException e) {
+            GET_USER_BOOKINGS.error();
+            e.printStackTrace();
+        } finally {
+            closeResources(conn, pstmt, rs);
+            GET_USER_BOOKINGS.stop(start);
+        }
+        
+        return bookings;
+    }
+    
+    /**
+     * Position in a user's booking history, newest first
+     * A page starts right after the key of the previous page's last row
+     */
+    public static final class PageKey {
+        private final Timestamp bookingDate;
+        private final int bookingId;
+        
+        public PageKey(Timestamp bookingDate, int bookingId) {
+            this.bookingDate = bookingDate;
+            this.bookingId = bookingId;
+        }
+        
+        public static PageKey of(Booking booking) {
+            return new PageKey(new Timestamp(booking.getBookingDate().getTime()), booking.getBookingId());
+        }
+        
+        public Timestamp getBookingDate() {
+            return bookingDate;
+        }
+        
+        public int getBookingId() {
+            return bookingId;
+        }
+    }
+    
+    /**
+     * Get one page of a user's bookings, newest first (keyset pagination)
+     * Uses idx_user_booking_date, so the cost does not grow with page depth
+     * @param userId User ID
+     * @param after Key of the last row of the previous page, or null for the first page
+     * @param limit Page size
+     * @return List of Booking objects; shorter than limit only at the end of the history
+     * @throws SQLException if the page cannot be read, so an error is never taken for the end
+     */
+    public List<Booking> getUserBookingsPage(int userId, PageKey after, int limit) throws SQLException {
+        long start = System.nanoTime();
+        List<Booking> bookings = new ArrayList<>(limit);
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(after != null ? NEXT_PAGE_SQL : FIRST_PAGE_SQL);
+            int index = 1;
+            pstmt.setInt(index++, userId);
+            if (after != null) {
+                pstmt.setTimestamp(index++, after.getBookingDate());
+                pstmt.setTimestamp(index++, after.getBookingDate());
+                pstmt.setInt(index++, after.getBookingId());
+            }
+            pstmt.setInt(index, limit);
             
-            pstmt = conn.prepareStatement(sql);
+            rs = pstmt.executeQuery();
+            
+            bookings = BOOKING_MAPPER.mapAll(rs);
+            GET_USER_BOOKINGS_PAGE.rows(bookings.size());
+            resolveNames(conn, bookings);
+            
+        } catch (SQLException e) {
+            GET_USER_BOOKINGS_PAGE.error();
+            throw e;
+        } finally {
+            closeResources(conn, pstmt, rs);
+            GET_USER_BOOKINGS_PAGE.stop(start);
+        }
+        
+        return bookings;
+    }
+    
+    /**
+     * Find the key of the row that ends the page after a given key,
+     * reading only the index (used to jump ahead without loading rows)
+     * @param userId User ID
+     * @param after Key to start from, or null for the beginning
+     * @param rows Number of rows to skip
+     * @return Key of the rows-th row after the start, or null if there are fewer rows
+     * @throws SQLException if the index cannot be read
+     */
+    public PageKey skipUserBookings(int userId, PageKey after, int rows) throws SQLException {
+        long start = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(after != null ? SKIP_NEXT_SQL : SKIP_FIRST_SQL);
+            int index = 1;
+            pstmt.setInt(index++, userId);
+            if (after != null) {
+                pstmt.setTimestamp(index++, after.getBookingDate());
+                pstmt.setTimestamp(index++, after.getBookingDate());
+                pstmt.setInt(index++, after.getBookingId());
+            }
+            pstmt.setInt(index, rows - 1);
+            
+            rs = pstmt.executeQuery();
+            
+            if (rs.next()) {
+                return new PageKey(rs.getTimestamp(1), rs.getInt(2));
+            }
+            
+        } catch (SQLException e) {
+            SKIP_USER_BOOKINGS.error();
+            throw e;
+        } finally {
+            closeResources(conn, pstmt, rs);
+            SKIP_USER_BOOKINGS.stop(start);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Count a user's booking rows (index-only on idx_user_booking_date)
+     * Unlike getTotalBookingsCount this cannot drift from the rows that
+     * getUserBookingsPage returns, so it sizes the paged history
+     * @param userId User ID
+     * @return Number of bookings, 0 on error
+     */
+    public int countUserBookings(int userId) {
+        long start = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(COUNT_USER_BOOKINGS_SQL);
             pstmt.setInt(1, userId);
             
             rs = pstmt.executeQuery();
             
-            while (rs.next()) {
-                Booking booking = new Booking(
-                    rs.getInt("booking_id"),
-                    rs.getInt("user_id"),
-                    rs.getInt("movie_id"),
-                    rs.getString("movie_name"),
-                    rs.getString("theater_name"),
-                    rs.getString("show_time"),
-                    rs.getTimestamp("booking_date"),
-                    rs.getInt("number_of_tickets"),
-                    rs.getDouble("total_amount"),
-                    rs.getString("status")
-                );
-                bookings.add(booking);
+            if (rs.next()) {
+                return rs.getInt(1);
             }
             
         } catch (SQLException e) {
+            COUNT_USER_BOOKINGS.error();
             e.printStackTrace();
         } finally {
             closeResources(conn, pstmt, rs);
+            COUNT_USER_BOOKINGS.stop(start);
         }
         
-        return bookings;
+        return 0;
+    }
+    
+    /**
+     * Find the booking saved with an idempotency key, whatever its status
+     * Lets a checkout that missed IdempotencyCache (evicted, or after a
+     * restart) stop before charging the customer again
+     * @param userId User ID
+     * @param idempotencyKey Idempotency key
+     * @return Booking ID, or 0 if none has the key or on error
+     */
+    public int findBookingIdByKey(int userId, String idempotencyKey) {
+        long start = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(BOOKING_BY_KEY_SQL);
+            pstmt.setInt(1, userId);
+            pstmt.setString(2, idempotencyKey);
+            
+            rs = pstmt.executeQuery();
+            
+            if (rs.next()) {
+                FIND_BOOKING_BY_KEY.rows(1);
+                return rs.getInt(1);
+            }
+            
+        } catch (SQLException e) {
+            FIND_BOOKING_BY_KEY.error();
+            e.printStackTrace();
+        } finally {
+            closeResources(conn, pstmt, rs);
+            FIND_BOOKING_BY_KEY.stop(start);
+        }
+        
+        return 0;
+    }
+    
+    /**
+     * Get all bookings of a user as a columnar batch, newest first
+     * Cheaper than getUserBookings for reports: no Booking object per row
+     * and no name resolution
+     * @param userId User ID
+     * @return BookingBatch, or null on error
+     */
+    public BookingBatch getUserBookingBatch(int userId) {
+        long start = System.nanoTime();
+        BookingBatch batch = new BookingBatch();
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(USER_BATCH_SQL);
+            pstmt.setInt(1, userId);
+            
+            rs = pstmt.executeQuery();
+            GET_USER_BOOKING_BATCH.rows(fillBatch(rs, batch));
+            
+        } catch (SQLException e) {
+            GET_USER_BOOKING_BATCH.error();
+            e.printStackTrace();
+            return null;
+        } finally {
+            closeResources(conn, pstmt, rs);
+            GET_USER_BOOKING_BATCH.stop(start);
+        }
+        
+        return batch;
+    }
+    
+    /**
+     * Read the next chunk of all bookings in booking_id order into a batch
+     * Call repeatedly with batch.getLastBookingId() to scan the whole table
+     * in bounded memory (the batch can be cleared and reused between chunks)
+     * @param afterBookingId Read bookings with a larger ID (0 to start)
+     * @param limit Maximum rows to read
+     * @param into Batch to append to
+     * @return Rows read, or -1 on error
+     */
+    public int scanBookings(int afterBookingId, int limit, BookingBatch into) {
+        long start = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(SCAN_BATCH_SQL);
+            pstmt.setInt(1, afterBookingId);
+            pstmt.setInt(2, limit);
+            
+            rs = pstmt.executeQuery();
+            int rows = fillBatch(rs, into);
+            SCAN_BOOKINGS.rows(rows);
+            return rows;
+            
+        } catch (SQLException e) {
+            SCAN_BOOKINGS.error();
+            e.printStackTrace();
+            return -1;
+        } finally {
+            closeResources(conn, pstmt, rs);
+            SCAN_BOOKINGS.stop(start);
+        }
+    }
+    
+    /**
+     * Copy rows selected with BATCH_COLUMNS into a batch, by column index
+     * @return Rows copied
+     */
+    private int fillBatch(ResultSet rs, BookingBatch batch) throws SQLException {
+        int rows = 0;
+        while (rs.next()) {
+            batch.add(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getLong(4),
+                      rs.getInt(5), rs.getLong(6), rs.getByte(7));
+            rows++;
+        }
+        return rows;
     }
     
     /**
@@ -112,85 +654,143 @@ public class BookingDAO {
      * @return Booking object or null
      */
     public Booking getBookingById(int bookingId) {
+        long start = System.nanoTime();
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         
         try {
             conn = DatabaseConnection.getConnection();
-            String sql = "SELECT * FROM bookings WHERE booking_id = ?";
-            
-            pstmt = conn.prepareStatement(sql);
+            pstmt = conn.prepareStatement(BOOKING_BY_ID_SQL);
             pstmt.setInt(1, bookingId);
             
             rs = pstmt.executeQuery();
             
-            if (rs.next()) {
-                return new Booking(
-                    rs.getInt("booking_id"),
-                    rs.getInt("user_id"),
-                    rs.getInt("movie_id"),
-                    rs.getString("movie_name"),
-                    rs.getString("theater_name"),
-                    rs.getString("show_time"),
-                    rs.getTimestamp("booking_date"),
-                    rs.getInt("number_of_tickets"),
-                    rs.getDouble("total_amount"),
-                    rs.getString("status")
-                );
+            Booking booking = BOOKING_MAPPER.mapNext(rs);
+            if (booking != null) {
+                GET_BOOKING_BY_ID.rows(1);
+                resolveNames(conn, Collections.singletonList(booking));
+                return booking;
             }
             
         } catch (SQLException e) {
+            GET_BOOKING_BY_ID.error();
             e.printStackTrace();
         } finally {
             closeResources(conn, pstmt, rs);
+            GET_BOOKING_BY_ID.stop(start);
         }
         
         return null;
     }
     
+    /**
+     * Check the cancellation cutoff against the cached catalog (no database call)
+     * cancelBooking enforces the same rule against the database
+     * @param showId Show ID
+     * @return false if the show starts within the cutoff; true otherwise,
+     *         including when the show is not in the catalog
+     */
+    public boolean isCancellationOpen(int showId) {
+        Show show = MovieDAO.getLoadedCatalog().getShow(showId);
+        return show == null || show.getShowStart() == null
+            || show.getShowStart().getTime() - System.currentTimeMillis() > CANCEL_CUTOFF_MILLIS;
+    }
+    
     /**
      * Cancel a booking
+     * Step 1: Mark the booking cancelled (only if it is still confirmed and
+     *         the show starts more than the cutoff from now)
+     * Step 2: Return its tickets to the show, free its seats, update the user's totals
+     * Step 3: Commit, then release the seats in SeatInventory
      * @param bookingId Booking ID to cancel
      * @return true if cancellation successful, false otherwise
      */
     public boolean cancelBooking(int bookingId) {
+        long start = System.nanoTime();
         Connection conn = null;
         PreparedStatement pstmt = null;
+        ResultSet rs = null;
         
         try {
             conn = DatabaseConnection.getConnection();
-            String sql = "UPDATE bookings SET status = 'CANCELLED' WHERE booking_id = ?";
+            conn.setAutoCommit(false);
+            
+            pstmt = conn.prepareStatement(LOCK_CONFIRMED_SQL);
+            pstmt.setInt(1, bookingId);
+            rs = pstmt.executeQuery();
+            
+            if (!rs.next()) {
+                conn.rollback();
+                return false;
+            }
+            int userId = rs.getInt(1);
+            int showId = rs.getInt(2);
+            int tickets = rs.getInt(3);
+            double amount = rs.getDouble(4);
+            rs.close();
+            pstmt.close();
+            
+            pstmt = conn.prepareStatement(SHOW_START_SQL);
+            pstmt.setInt(1, showId);
+            rs = pstmt.executeQuery();
+            Timestamp showStart = rs.next() ? rs.getTimestamp(1) : null;
+            rs.close();
+            pstmt.close();
+            if (showStart != null && showStart.getTime() - System.currentTimeMillis() <= CANCEL_CUTOFF_MILLIS) {
+                conn.rollback();
+                return false;
+            }
             
-            pstmt = conn.prepareStatement(sql);
+            // Step 1: Mark cancelled
+            pstmt = conn.prepareStatement(MARK_CANCELLED_SQL);
             pstmt.setInt(1, bookingId);
+            pstmt.executeUpdate();
+            pstmt.close();
             
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
+            // Step 2: Return tickets and seats
+            pstmt = conn.prepareStatement(RESTORE_SEATS_SQL);
+            pstmt.setInt(1, tickets);
+            pstmt.setInt(2, showId);
+            pstmt.executeUpdate();
+            
+            int[] seats = seatDAO.getBookingSeats(conn, bookingId);
+            seatDAO.deleteBookingSeats(conn, bookingId);
+            statsDAO.recordCancellation(conn, userId, amount);
+            
+            // Step 3: Commit and release in memory
+            conn.commit();
+            if (seats != null && seats.length > 0) {
+                SeatInventory.getInstance().release(showId, seats);
+            }
+            CANCEL_BOOKING.rows(1);
+            return true;
             
         } catch (SQLException e) {
+            CANCEL_BOOKING.error();
+            rollbackQuietly(conn);
             e.printStackTrace();
             return false;
         } finally {
-            closeResources(conn, pstmt, null);
+            closeResources(conn, pstmt, rs);
+            CANCEL_BOOKING.stop(start);
         }
     }
     
     /**
-     * Get total bookings count for a user
+     * Get total bookings count for a user (maintained in user_booking_stats)
      * @param userId User ID
      * @return Total number of bookings
      */
     public int getTotalBookingsCount(int userId) {
+        long start = System.nanoTime();
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         
         try {
             conn = DatabaseConnection.getConnection();
-            String sql = "SELECT COUNT(*) FROM bookings WHERE user_id = ?";
-            
-            pstmt = conn.prepareStatement(sql);
+            pstmt = conn.prepareStatement(TOTAL_BOOKINGS_SQL);
             pstmt.setInt(1, userId);
             
             rs = pstmt.executeQuery();
@@ -200,30 +800,30 @@ public class BookingDAO {
             }
             
         } catch (SQLException e) {
+            GET_TOTAL_BOOKINGS_COUNT.error();
             e.printStackTrace();
         } finally {
             closeResources(conn, pstmt, rs);
+            GET_TOTAL_BOOKINGS_COUNT.stop(start);
         }
         
         return 0;
     }
     
     /**
-     * Get total amount spent by user
+     * Get total amount spent by user on confirmed bookings (maintained in user_booking_stats)
      * @param userId User ID
      * @return Total amount spent
      */
     public double getTotalAmountSpent(int userId) {
+        long start = System.nanoTime();
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         
         try {
             conn = DatabaseConnection.getConnection();
-            String sql = "SELECT SUM(total_amount) FROM bookings " +
-                        "WHERE user_id = ? AND status = 'CONFIRMED'";
-            
-            pstmt = conn.prepareStatement(sql);
+            pstmt = conn.prepareStatement(TOTAL_SPENT_SQL);
             pstmt.setInt(1, userId);
             
             rs = pstmt.executeQuery();
@@ -233,9 +833,11 @@ public class BookingDAO {
             }
             
         } catch (SQLException e) {
+            GET_TOTAL_AMOUNT_SPENT.error();
             e.printStackTrace();
         } finally {
             closeResources(conn, pstmt, rs);
+            GET_TOTAL_AMOUNT_SPENT.stop(start);
         }
         
         return 0.0;
@@ -247,32 +849,150 @@ public class BookingDAO {
      * @return true if exists and confirmed
      */
     public boolean isBookingConfirmed(int bookingId) {
+        long start = System.nanoTime();
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         
         try {
             conn = DatabaseConnection.getConnection();
-            String sql = "SELECT status FROM bookings WHERE booking_id = ?";
-            
-            pstmt = conn.prepareStatement(sql);
+            pstmt = conn.prepareStatement(BOOKING_STATUS_SQL);
             pstmt.setInt(1, bookingId);
             
             rs = pstmt.executeQuery();
             
             if (rs.next()) {
-                return "CONFIRMED".equals(rs.getString("status"));
+                return "CONFIRMED".equals(rs.getString(1));
             }
             
         } catch (SQLException e) {
+            IS_BOOKING_CONFIRMED.error();
             e.printStackTrace();
         } finally {
             closeResources(conn, pstmt, rs);
+            IS_BOOKING_CONFIRMED.stop(start);
         }
         
         return false;
     }
     
+    // ----------------------------------------------------------------
+    // Async variants: run on DaoExecutor, never on the Swing EDT
+    // ----------------------------------------------------------------
+    
+    public CompletableFuture<BookingResult> createBookingAsync(Booking booking, int[] seats) {
+        return DaoExecutor.supply(() -> createBooking(booking, seats));
+    }
+    
+    public CompletableFuture<List<Booking>> getUserBookingsAsync(int userId) {
+        return DaoExecutor.supply(() -> getUserBookings(userId));
+    }
+    
+    public CompletableFuture<Booking> getBookingByIdAsync(int bookingId) {
+        return DaoExecutor.supply(() -> getBookingById(bookingId));
+    }
+    
+    public CompletableFuture<Boolean> cancelBookingAsync(int bookingId) {
+        return DaoExecutor.supply(() -> cancelBooking(bookingId));
+    }
+    
+    public CompletableFuture<Integer> countUserBookingsAsync(int userId) {
+        return DaoExecutor.supply(() -> countUserBookings(userId));
+    }
+    
+    public CompletableFuture<Integer> findBookingIdByKeyAsync(int userId, String idempotencyKey) {
+        return DaoExecutor.supply(() -> findBookingIdByKey(userId, idempotencyKey));
+    }
+    
+    public CompletableFuture<Integer> getTotalBookingsCountAsync(int userId) {
+        return DaoExecutor.supply(() -> getTotalBookingsCount(userId));
+    }
+    
+    public CompletableFuture<Double> getTotalAmountSpentAsync(int userId) {
+        return DaoExecutor.supply(() -> getTotalAmountSpent(userId));
+    }
+    
+    /**
+     * Deadlock (1213) and lock wait timeout (1205) are safe to retry
+     */
+    static boolean isRetryable(SQLException e) {
+        return "40001".equals(e.getSQLState()) || e.getErrorCode() == 1213 || e.getErrorCode() == 1205;
+    }
+    
+    /**
+     * Duplicate key (MySQL 1062, or SQLState 23505 on H2), e.g. a seat sold by another node
+     * Other integrity errors, such as a foreign key to a deleted show or user, are not
+     */
+    static boolean isDuplicateKey(SQLException e) {
+        return e.getErrorCode() == 1062 || "23505".equals(e.getSQLState());
+    }
+    
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(5, 20) * attempt);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Fill in movie name, theater name and show time from the cached catalog
+     * Shows not in the catalog (e.g. of inactive movies) are looked up in one query
+     */
+    private void resolveNames(Connection conn, List<Booking> bookings) throws SQLException {
+        MovieCatalog catalog = MovieDAO.getCatalog();
+        Map<Integer, List<Booking>> missing = new HashMap<>();
+        for (Booking booking : bookings) {
+            Show show = catalog.getShow(booking.getShowId());
+            Movie movie = catalog.getMovie(booking.getMovieId());
+            if (show != null && movie != null) {
+                booking.setMovieName(movie.getMovieName());
+                booking.setTheaterName(show.getTheaterName());
+                booking.setShowTime(show.getShowTime());
+            } else {
+                missing.computeIfAbsent(booking.getShowId(), k -> new ArrayList<>()).add(booking);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        
+        StringBuilder sql = new StringBuilder(
+            "SELECT s.show_id, m.movie_name, t.theater_name, s.show_time FROM shows s " +
+            "JOIN movies m ON m.movie_id = s.movie_id " +
+            "JOIN theaters t ON t.theater_id = s.theater_id WHERE s.show_id IN (");
+        for (int i = 0; i < missing.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (Integer showId : missing.keySet()) {
+                pstmt.setInt(index++, showId);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    for (Booking booking : missing.get(rs.getInt(1))) {
+                        booking.setMovieName(rs.getString(2));
+                        booking.setTheaterName(rs.getString(3));
+                        booking.setShowTime(rs.getString(4));
+                    }
+                }
+            }
+        }
+    }
+    
+    static void rollbackQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException e) {
+                // Connection is discarded by the pool if it is broken
+            }
+        }
+    }
+    
     /**
      * Close database resources
      */
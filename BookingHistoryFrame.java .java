@@ -11,12 +11,12 @@ package com.movieticket.ui;
 import com.movieticket.dao.BookingDAO;
 import com.movieticket.model.Booking;
 import com.movieticket.model.User;
+import com.movieticket.util.DaoExecutor;
 import javax.swing.*;
 import javax.swing.table.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.text.SimpleDateFormat;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class BookingHistoryFrame extends JFrame {
     
@@ -26,7 +26,7 @@ public class BookingHistoryFrame extends JFrame {
     
     // Components
     private JTable tblBookings;
-    private DefaultTableModel tableModel;
+    private BookingHistoryTableModel tableModel;
     private JButton btnViewTicket;
     private JButton btnCancelBooking;
     private JButton btnRefresh;
@@ -72,14 +72,7 @@ public class BookingHistoryFrame extends JFrame {
         titlePanel.add(lblTitle);
         
         // Table Panel
-        String[] columnNames = {"Booking ID", "Movie", "Theater", "Show Time", 
-                               "Tickets", "Amount", "Date", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make table read-only
-            }
-        };
+        tableModel = new BookingHistoryTableModel(bookingDAO, currentUser.getUserId());
         
         tblBookings = new JTable(tableModel);
         tblBookings.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -167,40 +160,20 @@ public class BookingHistoryFrame extends JFrame {
     }
     
     /**
-     * Step 1: Get all bookings from database
-     * Step 2: Clear existing table data
-     * Step 3: Populate table with booking data
+     * Step 1: Drop cached rows and fetch the booking count (off the EDT)
+     * Step 2: The table model fetches pages as rows scroll into view
      */
     private void loadBookings() {
-        // Step 1: Get bookings
-        List<Booking> bookings = bookingDAO.getUserBookings(currentUser.getUserId());
-        
-        // Step 2: Clear table
-        tableModel.setRowCount(0);
-        
-        // Step 3: Populate table
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MMM-yyyy hh:mm a");
-        
-        for (Booking booking : bookings) {
-            Object[] row = {
-                "BKG" + String.format("%06d", booking.getBookingId()),
-                booking.getMovieName(),
-                booking.getTheaterName(),
-                booking.getShowTime(),
-                booking.getNumberOfTickets(),
-                "₹" + booking.getTotalAmount(),
-                dateFormat.format(booking.getBookingDate()),
-                booking.getStatus()
-            };
-            tableModel.addRow(row);
-        }
-        
-        if (bookings.isEmpty()) {
-            JOptionPane.showMessageDialog(this,
-                "You have no bookings yet!",
-                "No Bookings",
-                JOptionPane.INFORMATION_MESSAGE);
-        }
+        btnRefresh.setEnabled(false);
+        tableModel.reload(count -> {
+            btnRefresh.setEnabled(true);
+            if (count == 0) {
+                JOptionPane.showMessageDialog(this,
+                    "You have no bookings yet!",
+                    "No Bookings",
+                    JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
     }
     
     /**
@@ -211,10 +184,13 @@ public class BookingHistoryFrame extends JFrame {
         tblBookings.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting()) {
                 int selectedRow = tblBookings.getSelectedRow();
-                if (selectedRow >= 0) {
-                    String status = tableModel.getValueAt(selectedRow, 7).toString();
+                Booking booking = selectedRow >= 0 ? tableModel.getBookingAt(selectedRow) : null;
+                if (booking != null) {
                     btnViewTicket.setEnabled(true);
-                    btnCancelBooking.setEnabled(status.equals("CONFIRMED"));
+                    btnCancelBooking.setEnabled("CONFIRMED".equals(booking.getStatus()));
+                } else {
+                    btnViewTicket.setEnabled(false);
+                    btnCancelBooking.setEnabled(false);
                 }
             }
         });
@@ -259,14 +235,18 @@ public class BookingHistoryFrame extends JFrame {
      */
     private void viewSelectedTicket() {
         int selectedRow = tblBookings.getSelectedRow();
-        if (selectedRow >= 0) {
-            String bookingIdStr = tableModel.getValueAt(selectedRow, 0).toString();
-            int bookingId = Integer.parseInt(bookingIdStr.replace("BKG", ""));
+        Booking selected = selectedRow >= 0 ? tableModel.getBookingAt(selectedRow) : null;
+        if (selected != null) {
+            int bookingId = selected.getBookingId();
             
-            Booking booking = bookingDAO.getBookingById(bookingId);
-            if (booking != null) {
-                new TicketFrame(booking, currentUser).setVisible(true);
-            }
+            bookingDAO.getBookingByIdAsync(bookingId)
+                .whenCompleteAsync((booking, error) -> {
+                    if (error != null) {
+                        error.printStackTrace();
+                    } else if (booking != null) {
+                        new TicketFrame(booking, currentUser).setVisible(true);
+                    }
+                }, DaoExecutor.EDT);
         }
     }
     
@@ -277,9 +257,18 @@ public class BookingHistoryFrame extends JFrame {
      */
     private void cancelSelectedBooking() {
         int selectedRow = tblBookings.getSelectedRow();
-        if (selectedRow >= 0) {
-            String bookingIdStr = tableModel.getValueAt(selectedRow, 0).toString();
-            String movieName = tableModel.getValueAt(selectedRow, 1).toString();
+        Booking selected = selectedRow >= 0 ? tableModel.getBookingAt(selectedRow) : null;
+        if (selected != null) {
+            String movieName = selected.getMovieName();
+            
+            if (!bookingDAO.isCancellationOpen(selected.getShowId())) {
+                JOptionPane.showMessageDialog(this,
+                    "Cancellation is only allowed up to " +
+                    TimeUnit.MILLISECONDS.toHours(BookingDAO.CANCEL_CUTOFF_MILLIS) + " hours before the show.",
+                    "Cannot Cancel",
+                    JOptionPane.WARNING_MESSAGE);
+                return;
+            }
             
             // Step 1: Confirm cancellation
             int confirm = JOptionPane.showConfirmDialog(this,
@@ -289,28 +278,41 @@ public class BookingHistoryFrame extends JFrame {
                 JOptionPane.WARNING_MESSAGE);
             
             if (confirm == JOptionPane.YES_OPTION) {
-                int bookingId = Integer.parseInt(bookingIdStr.replace("BKG", ""));
-                
-                // Step 2: Cancel booking
-                boolean success = bookingDAO.cancelBooking(bookingId);
+                int bookingId = selected.getBookingId();
                 
-                if (success) {
-                    JOptionPane.showMessageDialog(this,
-                        "Booking cancelled successfully!\nRefund will be processed within 5-7 business days.",
-                        "Cancellation Success",
-                        JOptionPane.INFORMATION_MESSAGE);
-                    
-                    // Step 3: Refresh table
-                    loadBookings();
-                    btnViewTicket.setEnabled(false);
-                    btnCancelBooking.setEnabled(false);
-                } else {
-                    JOptionPane.showMessageDialog(this,
-                        "Failed to cancel booking! Please try again.",
-                        "Cancellation Error",
-                        JOptionPane.ERROR_MESSAGE);
-                }
+                // Step 2: Cancel booking off the EDT
+                btnCancelBooking.setEnabled(false);
+                bookingDAO.cancelBookingAsync(bookingId)
+                    .whenCompleteAsync((success, error) -> {
+                        if (error != null) {
+                            error.printStackTrace();
+                        }
+                        onCancelResult(error == null && success);
+                    }, DaoExecutor.EDT);
             }
         }
     }
+    
+    /**
+     * Step 3: Report result and refresh table (runs on EDT)
+     */
+    private void onCancelResult(boolean success) {
+        if (success) {
+            JOptionPane.showMessageDialog(this,
+                "Booking cancelled successfully!\nRefund will be processed within 5-7 business days.",
+                "Cancellation Success",
+                JOptionPane.INFORMATION_MESSAGE);
+            
+            // Step 3: Refresh table
+            loadBookings();
+            btnViewTicket.setEnabled(false);
+            btnCancelBooking.setEnabled(false);
+        } else {
+            btnCancelBooking.setEnabled(true);
+            JOptionPane.showMessageDialog(this,
+                "Failed to cancel booking! Please try again.",
+                "Cancellation Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
 }
\ No newline at end of file
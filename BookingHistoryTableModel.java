@@ -0,0 +1,234 @@
+/**
+ * Booking History Table Model
+ * File: BookingHistoryTableModel.java
+ * Location: src/com/movieticket/ui/BookingHistoryTableModel.java
+ *
+ * Purpose: Lazy, paged table model for a user's booking history
+ * Rows are fetched a page at a time (keyset pagination) when the table asks
+ * for them, and only the most recently used pages are kept in memory. The row
+ * count comes from the bookings themselves and is cut back if a page comes
+ * back short, so the table never asks for rows that do not exist.
+ * All state is touched on the EDT; database calls run on DaoExecutor.
+ */
+
+package com.movieticket.ui;
+
+import com.movieticket.dao.BookingDAO;
+import com.movieticket.dao.BookingDAO.PageKey;
+import com.movieticket.model.Booking;
+import com.movieticket.util.DaoExecutor;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntConsumer;
+import javax.swing.table.AbstractTableModel;
+
+public class BookingHistoryTableModel extends AbstractTableModel {
+
+    public static final String LOADING = "Loading...";
+
+    private static final String[] COLUMN_NAMES = {"Booking ID", "Movie", "Theater", "Show Time",
+                                                   "Tickets", "Amount", "Date", "Status"};
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_CACHED_PAGES = 10;
+
+    private final BookingDAO bookingDAO;
+    private final int userId;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MMM-yyyy hh:mm a");
+
+    private int rowCount;
+
+    // Bumped on reload so results of older requests are discarded
+    private int generation;
+
+    // Loaded pages, least recently used evicted first
+    private final Map<Integer, List<Booking>> pages =
+        new LinkedHashMap<Integer, List<Booking>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Booking>> eldest) {
+                return size() > MAX_CACHED_PAGES;
+            }
+        };
+
+    // pageStarts.get(k) is the key of the last row before page k (null for page 0);
+    // only pages that have been reached are known
+    private final NavigableMap<Integer, PageKey> pageStarts = new TreeMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+
+    /**
+     * Page start found by skipping (null if not skipped or past the end), plus the fetched rows
+     */
+    private static final class PageResult {
+        final PageKey start;
+        final List<Booking> rows;
+
+        PageResult(PageKey start, List<Booking> rows) {
+            this.start = start;
+            this.rows = rows;
+        }
+    }
+
+    public BookingHistoryTableModel(BookingDAO bookingDAO, int userId) {
+        this.bookingDAO = bookingDAO;
+        this.userId = userId;
+    }
+
+    /**
+     * Step 1: Drop all cached pages
+     * Step 2: Fetch the row count, then let the table pull the visible pages
+     * @param onLoaded Called on EDT with the new row count
+     */
+    public void reload(IntConsumer onLoaded) {
+        final int requestGeneration = ++generation;
+        pages.clear();
+        pageStarts.clear();
+        pageStarts.put(0, null);
+        loading.clear();
+
+        bookingDAO.countUserBookingsAsync(userId)
+            .whenCompleteAsync((count, error) -> {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                if (error != null) {
+                    error.printStackTrace();
+                    count = 0;
+                }
+                rowCount = count;
+                fireTableDataChanged();
+                if (onLoaded != null) {
+                    onLoaded.accept(count);
+                }
+            }, DaoExecutor.EDT);
+    }
+
+    /**
+     * Get the booking shown in a row
+     * @param row Row index
+     * @return Booking, or null if its page is not loaded yet
+     */
+    public Booking getBookingAt(int row) {
+        List<Booking> page = pages.get(row / PAGE_SIZE);
+        int offset = row % PAGE_SIZE;
+        return page != null && offset < page.size() ? page.get(offset) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false; // Make table read-only
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Booking booking = getBookingAt(row);
+        if (booking == null) {
+            if (pages.containsKey(row / PAGE_SIZE)) {
+                return ""; // Past the end of a short page; the row count is being cut back
+            }
+            requestPage(row / PAGE_SIZE);
+            return column == 0 ? "" : LOADING;
+        }
+
+        switch (column) {
+            case 0: return "BKG" + String.format("%06d", booking.getBookingId());
+            case 1: return booking.getMovieName();
+            case 2: return booking.getTheaterName();
+            case 3: return booking.getShowTime();
+            case 4: return booking.getNumberOfTickets();
+            case 5: return "₹" + booking.getTotalAmount();
+            case 6: return dateFormat.format(booking.getBookingDate());
+            case 7: return booking.getStatus();
+            default: return null;
+        }
+    }
+
+    /**
+     * Step 1: Find the nearest known page start at or before the page
+     * Step 2: Off the EDT, skip to the page start in one index-only query
+     * Step 3: Fetch the page and publish it on the EDT
+     * Step 4: If the page is short, the history ends there; cut the row count back
+     * A failed read changes nothing, so the page is requested again when next painted
+     */
+    private void requestPage(int pageIndex) {
+        if (!loading.add(pageIndex)) {
+            return;
+        }
+
+        // Step 1: Nearest known start
+        Map.Entry<Integer, PageKey> known = pageStarts.floorEntry(pageIndex);
+        final PageKey knownStart = known.getValue();
+        final int rowsToSkip = (pageIndex - known.getKey()) * PAGE_SIZE;
+        final int requestGeneration = generation;
+
+        DaoExecutor.supply(() -> {
+            try {
+                // Step 2: Skip forward (LIMIT 1 OFFSET rowsToSkip - 1)
+                PageKey start = knownStart;
+                if (rowsToSkip > 0) {
+                    start = bookingDAO.skipUserBookings(userId, knownStart, rowsToSkip);
+                    if (start == null) {
+                        return new PageResult(null, new ArrayList<>());
+                    }
+                }
+                // Step 3: Fetch
+                return new PageResult(start, bookingDAO.getUserBookingsPage(userId, start, PAGE_SIZE));
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }).whenCompleteAsync((result, error) -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading.remove(pageIndex);
+            if (error != null) {
+                error.printStackTrace();
+                return;
+            }
+            List<Booking> rows = result.rows;
+
+            if (result.start != null) {
+                pageStarts.put(pageIndex, result.start);
+            }
+            if (rows.size() == PAGE_SIZE) {
+                pageStarts.putIfAbsent(pageIndex + 1, PageKey.of(rows.get(rows.size() - 1)));
+            }
+            pages.put(pageIndex, rows);
+
+            // Step 4: Clamp to the rows that exist
+            int first = pageIndex * PAGE_SIZE;
+            int end = first + rows.size();
+            if (rows.size() < PAGE_SIZE && end < rowCount) {
+                int oldCount = rowCount;
+                rowCount = end;
+                fireTableRowsDeleted(end, oldCount - 1);
+            }
+            int last = Math.min(rowCount, first + PAGE_SIZE) - 1;
+            if (last >= first) {
+                fireTableRowsUpdated(first, last);
+            }
+        }, DaoExecutor.EDT);
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Booking Report
+ * File: BookingReport.java
+ * Location: src/com/movieticket/dao/BookingReport.java
+ *
+ * Purpose: Tickets sold and revenue per show, from a full scan of bookings
+ * The table is read in booking_id chunks into one reused BookingBatch, so
+ * memory stays flat however many bookings there are.
+ * Usage: java com.movieticket.dao.BookingReport [top-n]
+ */
+
+package com.movieticket.dao;
+
+import com.movieticket.model.BookingBatch;
+import com.movieticket.model.Movie;
+import com.movieticket.model.Show;
+import com.movieticket.util.DatabaseConnection;
+import java.util.Arrays;
+
+public class BookingReport {
+
+    private static final int CHUNK_SIZE = Integer.getInteger("movieticket.report.chunkSize", 10000);
+
+    private final BookingDAO bookingDAO;
+
+    // Indexed by show_id, grown as needed
+    private long[] ticketsByShow = new long[256];
+    private long[] revenueByShow = new long[256];
+
+    private long bookings;
+    private long cancelled;
+    private long totalTickets;
+    private long totalRevenue;
+
+    public BookingReport(BookingDAO bookingDAO) {
+        this.bookingDAO = bookingDAO;
+    }
+
+    /**
+     * Scan every booking and accumulate per-show totals
+     * @return true if the whole table was read
+     */
+    public boolean run() {
+        BookingBatch batch = new BookingBatch(CHUNK_SIZE);
+        int after = 0;
+        while (true) {
+            batch.clear();
+            int rows = bookingDAO.scanBookings(after, CHUNK_SIZE, batch);
+            if (rows < 0) {
+                return false;
+            }
+            accumulate(batch);
+            if (rows < CHUNK_SIZE) {
+                return true;
+            }
+            after = batch.getLastBookingId();
+        }
+    }
+
+    private void accumulate(BookingBatch batch) {
+        BookingBatch.Cursor row = batch.cursor();
+        while (row.next()) {
+            bookings++;
+            if (!row.isConfirmed()) {
+                cancelled++;
+                continue;
+            }
+            int showId = row.getShowId();
+            if (showId >= ticketsByShow.length) {
+                int capacity = Math.max(showId + 1, ticketsByShow.length * 2);
+                ticketsByShow = Arrays.copyOf(ticketsByShow, capacity);
+                revenueByShow = Arrays.copyOf(revenueByShow, capacity);
+            }
+            ticketsByShow[showId] += row.getNumberOfTickets();
+            revenueByShow[showId] += row.getAmountPaise();
+            totalTickets += row.getNumberOfTickets();
+            totalRevenue += row.getAmountPaise();
+        }
+    }
+
+    /**
+     * @param showId Show ID
+     * @return Confirmed tickets sold for the show
+     */
+    public long getTickets(int showId) {
+        return showId < ticketsByShow.length ? ticketsByShow[showId] : 0;
+    }
+
+    /**
+     * @param showId Show ID
+     * @return Confirmed revenue for the show, in paise
+     */
+    public long getRevenuePaise(int showId) {
+        return showId < revenueByShow.length ? revenueByShow[showId] : 0;
+    }
+
+    /**
+     * Print totals and the top shows by revenue
+     * @param topN Number of shows to list
+     */
+    public void print(int topN) {
+        System.out.println("Bookings: " + bookings + " (" + cancelled + " cancelled)");
+        System.out.println("Tickets sold: " + totalTickets);
+        System.out.println("Revenue: ₹" + formatPaise(totalRevenue));
+
+        Integer[] showIds = new Integer[revenueByShow.length];
+        int count = 0;
+        for (int showId = 0; showId < revenueByShow.length; showId++) {
+            if (revenueByShow[showId] > 0) {
+                showIds[count++] = showId;
+            }
+        }
+        Arrays.sort(showIds, 0, count, (a, b) -> Long.compare(revenueByShow[b], revenueByShow[a]));
+
+        MovieCatalog catalog = MovieDAO.getCatalog();
+        System.out.println("Top " + Math.min(topN, count) + " shows by revenue:");
+        for (int i = 0; i < count && i < topN; i++) {
+            int showId = showIds[i];
+            Show show = catalog.getShow(showId);
+            Movie movie = show != null ? catalog.getMovie(show.getMovieId()) : null;
+            String label = show != null && movie != null
+                ? movie.getMovieName() + " | " + show.getTheaterName() + " | " + show.getShowTime()
+                : "Show " + showId;
+            System.out.println(String.format("  %-70s %8d tickets  ₹%s",
+                label, ticketsByShow[showId], formatPaise(revenueByShow[showId])));
+        }
+    }
+
+    private static String formatPaise(long paise) {
+        return String.format("%d.%02d", paise / 100, Math.abs(paise % 100));
+    }
+
+    public static void main(String[] args) {
+        int topN = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        BookingReport report = new BookingReport(new BookingDAO());
+        long start = System.currentTimeMillis();
+        if (report.run()) {
+            report.print(topN);
+            System.out.println("Scanned in " + (System.currentTimeMillis() - start) + " ms");
+        } else {
+            System.err.println("Booking report failed; see errors above");
+        }
+        DatabaseConnection.shutdown();
+    }
+}
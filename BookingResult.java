@@ -0,0 +1,81 @@
+/**
+ * Booking Result Model Class
+ * File: BookingResult.java
+ * Location: src/com/movieticket/model/BookingResult.java
+ *
+ * Purpose: Typed outcome of a booking attempt
+ */
+
+package com.movieticket.model;
+
+public class BookingResult {
+
+    public enum Status {
+        BOOKED,     // booking saved, seats taken
+        SOLD_OUT,   // not enough seats left for the show
+        CONFLICT,   // lost a race (deadlock / lock wait / duplicate seat); safe to retry
+        PAYMENT_FAILED, // payment not authorized or captured; nothing was booked
+        DUPLICATE,  // idempotency key already booked; bookingId is the original booking
+        FAILED      // unexpected database error
+    }
+
+    private final Status status;
+    private final int bookingId;
+    private final String message;
+
+    private BookingResult(Status status, int bookingId, String message) {
+        this.status = status;
+        this.bookingId = bookingId;
+        this.message = message;
+    }
+
+    public static BookingResult booked(int bookingId) {
+        return new BookingResult(Status.BOOKED, bookingId, "Booking confirmed");
+    }
+
+    public static BookingResult soldOut() {
+        return new BookingResult(Status.SOLD_OUT, 0, "Not enough seats available for this show");
+    }
+
+    public static BookingResult conflict(String message) {
+        return new BookingResult(Status.CONFLICT, 0, message);
+    }
+
+    public static BookingResult paymentFailed(String message) {
+        return new BookingResult(Status.PAYMENT_FAILED, 0, message);
+    }
+
+    public static BookingResult duplicate(int originalBookingId) {
+        return new BookingResult(Status.DUPLICATE, originalBookingId,
+                "This booking was already made (booking #" + originalBookingId + ")");
+    }
+
+    public static BookingResult failed(String message) {
+        return new BookingResult(Status.FAILED, 0, message);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getBookingId() {
+        return bookingId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isBooked() {
+        return status == Status.BOOKED;
+    }
+
+    @Override
+    public String toString() {
+        return "BookingResult{" +
+                "status=" + status +
+                ", bookingId=" + bookingId +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
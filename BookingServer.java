@@ -0,0 +1,617 @@
+/**
+ * Booking Server
+ * File: BookingServer.java
+ * Location: src/com/movieticket/server/BookingServer.java
+ *
+ * Purpose: Headless HTTP API for login, catalog, booking, history and cancellation
+ * Runs on the JDK HttpServer with one virtual thread per request, so a request
+ * waiting on the database or the payment gateway costs no platform thread.
+ * Uses the same DAOs, SeatHoldManager and PaymentProcessor as the Swing frames.
+ *
+ * Endpoints (JSON responses; POST parameters form-encoded; Authorization: Bearer <token>):
+ *   GET    /api/health
+ *   POST   /api/login                 username, password -> token
+ *   POST   /api/logout
+ *   GET    /api/movies                [q, limit]  all active movies, or type-ahead matches for q
+ *   GET    /api/movies/{id}/shows     [limit]  next shows with free seats
+ *   POST   /api/queue                 -> waiting-room token, position, estimated wait
+ *   GET    /api/queue                 token -> position, estimated wait, admitted
+ *   DELETE /api/queue                 token  leave the queue
+ *   POST   /api/holds                 showId, tickets, queueToken -> held seats (8 minutes by default)
+ *   DELETE /api/holds/{id}
+ *   POST   /api/bookings              holdId, cardType, cardNumber, [idempotencyKey] -> pay and book
+ *   GET    /api/bookings              [limit, afterDate, afterId]  newest first
+ *   GET    /api/bookings/{id}
+ *   POST   /api/bookings/{id}/cancel
+ *
+ * Usage: java com.movieticket.server.BookingServer
+ * Settings: -Dmovieticket.server.port (8080), backlog (1024), ticketPrice (250.0),
+ *           sessionMinutes (120)
+ *
+ * Holds need an admitted waiting-room token (see WaitingRoom): clients join
+ * the queue, poll it until admitted, then pass the token with each hold.
+ * Not-yet-admitted tokens get 429, so an on-sale spike waits in memory here
+ * instead of piling onto the database. The first hold binds a token to the
+ * logged-in user, and each token allows a few holds (403 after that).
+ *
+ * Clients that may retry POST /api/bookings should send an idempotencyKey
+ * (1-64 characters, new per purchase). A retry with the same key gets status
+ * DUPLICATE and the original bookingId (HTTP 200) instead of a second booking.
+ */
+
+package com.movieticket.server;
+
+import com.movieticket.dao.BookingDAO;
+import com.movieticket.dao.IdempotencyCache;
+import com.movieticket.dao.MovieCatalog;
+import com.movieticket.dao.MovieDAO;
+import com.movieticket.dao.SummaryRebuilder;
+import com.movieticket.dao.SummaryUpdater;
+import com.movieticket.dao.UserDAO;
+import com.movieticket.inventory.SeatHold;
+import com.movieticket.inventory.SeatHoldManager;
+import com.movieticket.inventory.QueueStatus;
+import com.movieticket.inventory.SeatInventory;
+import com.movieticket.inventory.WaitingRoom;
+import com.movieticket.model.Booking;
+import com.movieticket.model.BookingResult;
+import com.movieticket.model.Movie;
+import com.movieticket.model.PaymentRequest;
+import com.movieticket.model.Show;
+import com.movieticket.model.User;
+import com.movieticket.payment.PaymentProcessor;
+import com.movieticket.util.DatabaseConnection;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class BookingServer {
+
+    private static final int PORT = Integer.getInteger("movieticket.server.port", 8080);
+    private static final int BACKLOG = Integer.getInteger("movieticket.server.backlog", 1024);
+    // Same price as MovieSelectionFrame
+    private static final double TICKET_PRICE =
+            Double.parseDouble(System.getProperty("movieticket.server.ticketPrice", "250.0"));
+    private static final int MAX_TICKETS = 10;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final UserDAO userDAO = new UserDAO();
+    private final MovieDAO movieDAO = new MovieDAO();
+    private final BookingDAO bookingDAO = new BookingDAO();
+    private final SessionStore sessions = new SessionStore();
+
+    // Holds handed out over the API, by hold ID, until claimed or released
+    private final Map<Long, ApiHold> holds = new ConcurrentHashMap<>();
+
+    private HttpServer server;
+    private ExecutorService requestExecutor;
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * A hold and the user it belongs to
+     */
+    private static final class ApiHold {
+        final int userId;
+        final SeatHold hold;
+
+        ApiHold(int userId, SeatHold hold) {
+            this.userId = userId;
+            this.hold = hold;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(ApiExchange api) throws IOException;
+    }
+
+    /**
+     * Step 1: Load the catalog
+     * Step 2: Bind the port with a virtual-thread-per-request executor
+     * Step 3: Sweep expired sessions and holds once a minute
+     * @param port TCP port (0 for any free port)
+     */
+    public void start(int port) throws IOException {
+        // Step 1: Load catalog
+        MovieDAO.preload();
+
+        // Step 2: Bind
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(requestExecutor);
+        server.createContext("/api/health", route(this::health));
+        server.createContext("/api/login", route(this::login));
+        server.createContext("/api/logout", route(this::logout));
+        server.createContext("/api/movies", route(this::movies));
+        server.createContext("/api/queue", route(this::queue));
+        server.createContext("/api/holds", route(this::holds));
+        server.createContext("/api/bookings", route(this::bookings));
+        server.start();
+
+        // Step 3: Housekeeping
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "booking-server-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            sessions.evictExpired();
+            holds.values().removeIf(held -> !held.hold.isActive());
+            IdempotencyCache.getInstance().evictExpired(System.currentTimeMillis());
+        }, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @return Bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stop accepting requests, wait up to delaySeconds for running ones, release open holds
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        requestExecutor.shutdown();
+        sweeper.shutdownNow();
+        for (ApiHold held : holds.values()) {
+            SeatHoldManager.getInstance().release(held.hold);
+        }
+        holds.clear();
+    }
+
+    /**
+     * Wrap a handler: map ApiException to its status and anything else to 500
+     */
+    private HttpHandler route(Handler handler) {
+        return exchange -> {
+            ApiExchange api = new ApiExchange(exchange);
+            try {
+                handler.handle(api);
+            } catch (ApiException e) {
+                api.sendError(e.getStatus(), e.getMessage());
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+                try {
+                    api.sendError(500, "Internal server error");
+                } catch (IOException ignored) {
+                    // Client is gone or the response was already started
+                }
+            } finally {
+                api.close();
+            }
+        };
+    }
+
+    private static void requireMethod(ApiExchange api, String method) throws ApiException {
+        if (!method.equals(api.getMethod())) {
+            throw new ApiException(405, "Use " + method);
+        }
+    }
+
+    private User requireUser(ApiExchange api) throws ApiException {
+        User user = sessions.get(api.getBearerToken());
+        if (user == null) {
+            throw new ApiException(401, "Login required");
+        }
+        return user;
+    }
+
+    // ----------------------------------------------------------------
+    // Handlers
+    // ----------------------------------------------------------------
+
+    private void health(ApiExchange api) throws IOException {
+        api.send(200, new JsonWriter().beginObject()
+                .name("status").value("UP")
+                .name("movies").value(MovieDAO.getLoadedCatalog().getMovies().size())
+                .name("sessions").value(sessions.size())
+                .name("activeHolds").value(SeatHoldManager.getInstance().getActiveHolds())
+                .name("waitingRoom").value(String.valueOf(WaitingRoom.getInstance()))
+                .name("pool").value(String.valueOf(DatabaseConnection.getPoolStats()))
+                .endObject());
+    }
+
+    private void login(ApiExchange api) throws IOException {
+        requireMethod(api, "POST");
+        User user = userDAO.validateLogin(api.requiredParam("username"), api.requiredParam("password"));
+        if (user == null) {
+            throw new ApiException(401, "Invalid username or password");
+        }
+        api.send(200, new JsonWriter().beginObject()
+                .name("token").value(sessions.create(user))
+                .name("userId").value(user.getUserId())
+                .name("username").value(user.getUsername())
+                .endObject());
+    }
+
+    private void logout(ApiExchange api) throws IOException {
+        requireMethod(api, "POST");
+        sessions.remove(api.getBearerToken());
+        api.send(200, new JsonWriter().beginObject().name("status").value("LOGGED_OUT").endObject());
+    }
+
+    /**
+     * GET /api/movies [q, limit] and GET /api/movies/{id}/shows
+     */
+    private void movies(ApiExchange api) throws IOException {
+        requireMethod(api, "GET");
+        if (api.segmentCount() == 2) {
+            String query = api.param("q");
+            List<Movie> movies = query == null || query.trim().isEmpty() ? movieDAO.getAllMovies()
+                    : movieDAO.searchMovies(query, Math.min(api.intParam("limit", 20), MAX_PAGE_SIZE));
+            JsonWriter json = new JsonWriter().beginArray();
+            for (Movie movie : movies) {
+                json.beginObject()
+                    .name("movieId").value(movie.getMovieId())
+                    .name("name").value(movie.getMovieName())
+                    .name("genre").value(movie.getGenre())
+                    .name("duration").value(movie.getDuration())
+                    .name("language").value(movie.getLanguage())
+                    .endObject();
+            }
+            api.send(200, json.endArray());
+            return;
+        }
+        if (api.segmentCount() != 4 || !"shows".equals(api.segment(3))) {
+            throw new ApiException(404, "Not found");
+        }
+        int movieId = parseId(api.segment(2));
+        if (movieDAO.getMovieById(movieId) == null) {
+            throw new ApiException(404, "Movie not found");
+        }
+        int limit = Math.min(api.intParam("limit", 20), MAX_PAGE_SIZE);
+        JsonWriter json = new JsonWriter().beginArray();
+        for (Show show : movieDAO.getNextShows(movieId, limit)) {
+            json.beginObject()
+                .name("showId").value(show.getShowId())
+                .name("theaterId").value(show.getTheaterId())
+                .name("theater").value(show.getTheaterName())
+                .name("showTime").value(show.getShowTime())
+                .name("showStart").value(show.getShowStart())
+                .name("freeSeats").value(SeatInventory.getInstance().getFreeSeats(show.getShowId()))
+                .endObject();
+        }
+        api.send(200, json.endArray());
+    }
+
+    /**
+     * POST /api/queue (join), GET /api/queue (poll) and DELETE /api/queue (leave)
+     * No login needed, so customers can queue before an on-sale opens
+     */
+    private void queue(ApiExchange api) throws IOException {
+        WaitingRoom waitingRoom = WaitingRoom.getInstance();
+        if ("POST".equals(api.getMethod())) {
+            api.send(201, writeQueueStatus(waitingRoom.join()));
+            return;
+        }
+        String token = api.requiredParam("token");
+        if ("DELETE".equals(api.getMethod())) {
+            waitingRoom.leave(token);
+            api.send(200, new JsonWriter().beginObject().name("status").value("LEFT").endObject());
+            return;
+        }
+        requireMethod(api, "GET");
+        QueueStatus status = waitingRoom.status(token);
+        if (status == null) {
+            throw new ApiException(404, "Unknown queue token, please join the queue again");
+        }
+        api.send(200, writeQueueStatus(status));
+    }
+
+    private static JsonWriter writeQueueStatus(QueueStatus status) {
+        return new JsonWriter().beginObject()
+                .name("token").value(status.getToken())
+                .name("admitted").value(status.isAdmitted())
+                .name("expired").value(status.isExpired())
+                .name("position").value(status.getPosition())
+                .name("estimatedWaitSeconds").value(status.getEstimatedWaitSeconds())
+                .endObject();
+    }
+
+    /**
+     * Reject holds from customers the waiting room has not admitted yet
+     * Call claimHold before placing the hold
+     */
+    private static void requireAdmitted(ApiExchange api) throws IOException {
+        WaitingRoom waitingRoom = WaitingRoom.getInstance();
+        if (!waitingRoom.isEnabled()) {
+            return;
+        }
+        QueueStatus status = waitingRoom.status(api.param("queueToken"));
+        if (status == null || status.isExpired()) {
+            throw new ApiException(403, "Join the queue (POST /api/queue) and pass its token as queueToken");
+        }
+        if (!status.isAdmitted()) {
+            throw new ApiException(429, "Still in the queue: position " + status.getPosition() +
+                                        ", about " + status.getEstimatedWaitSeconds() + " seconds");
+        }
+    }
+
+    /**
+     * POST /api/holds and DELETE /api/holds/{id}
+     */
+    private void holds(ApiExchange api) throws IOException {
+        User user = requireUser(api);
+        if ("DELETE".equals(api.getMethod()) && api.segmentCount() == 3) {
+            ApiHold held = ownedHold(user, parseHoldId(api.segment(2)));
+            holds.remove(held.hold.getHoldId(), held);
+            SeatHoldManager.getInstance().release(held.hold);
+            api.send(200, new JsonWriter().beginObject().name("status").value("RELEASED").endObject());
+            return;
+        }
+        requireMethod(api, "POST");
+        requireAdmitted(api);
+
+        int showId = api.intParam("showId");
+        int tickets = api.intParam("tickets");
+        if (tickets < 1 || tickets > MAX_TICKETS) {
+            throw new ApiException(400, "tickets must be between 1 and " + MAX_TICKETS);
+        }
+        if (movieDAO.getShowById(showId) == null) {
+            throw new ApiException(404, "Show not found");
+        }
+        WaitingRoom waitingRoom = WaitingRoom.getInstance();
+        String queueToken = api.param("queueToken");
+        if (!waitingRoom.claimHold(queueToken, user.getUserId())) {
+            throw new ApiException(403, "This queue token belongs to another user or has no holds left; join the queue again");
+        }
+        SeatHold hold = SeatHoldManager.getInstance().hold(showId, tickets);
+        if (hold == null) {
+            waitingRoom.returnHold(queueToken);
+            throw new ApiException(409, "Not enough seats left for this show");
+        }
+        holds.put(hold.getHoldId(), new ApiHold(user.getUserId(), hold));
+        api.send(201, new JsonWriter().beginObject()
+                .name("holdId").value(hold.getHoldId())
+                .name("showId").value(showId)
+                .name("seats").value(hold.getSeats())
+                .name("amount").value(tickets * TICKET_PRICE)
+                .name("expiresAt").value(hold.getExpiresAt())
+                .endObject());
+    }
+
+    private ApiHold ownedHold(User user, long holdId) throws ApiException {
+        ApiHold held = holds.get(holdId);
+        if (held == null || held.userId != user.getUserId()) {
+            throw new ApiException(404, "Hold not found");
+        }
+        return held;
+    }
+
+    /**
+     * POST /api/bookings, GET /api/bookings, GET /api/bookings/{id},
+     * POST /api/bookings/{id}/cancel
+     */
+    private void bookings(ApiExchange api) throws IOException {
+        User user = requireUser(api);
+        if (api.segmentCount() == 2) {
+            if ("POST".equals(api.getMethod())) {
+                book(api, user);
+            } else {
+                requireMethod(api, "GET");
+                history(api, user);
+            }
+            return;
+        }
+
+        int bookingId = parseId(api.segment(2));
+        Booking booking = bookingDAO.getBookingById(bookingId);
+        if (booking == null || booking.getUserId() != user.getUserId()) {
+            throw new ApiException(404, "Booking not found");
+        }
+        if (api.segmentCount() == 3) {
+            requireMethod(api, "GET");
+            api.send(200, writeBooking(new JsonWriter(), booking));
+        } else if (api.segmentCount() == 4 && "cancel".equals(api.segment(3))) {
+            requireMethod(api, "POST");
+            cancel(api, booking);
+        } else {
+            throw new ApiException(404, "Not found");
+        }
+    }
+
+    /**
+     * Step 1: Answer a repeat of an already booked idempotencyKey from memory
+     * Step 2: Claim the caller's hold so it cannot expire mid-payment
+     * Step 3: Authorize and capture payment, then save the booking
+     * Step 4: Give the seats back if nothing was booked
+     */
+    private void book(ApiExchange api, User user) throws IOException {
+        long holdId = parseHoldId(api.requiredParam("holdId"));
+        String cardType = api.requiredParam("cardType");
+        String cardNumber = api.requiredParam("cardNumber").trim();
+        if (cardNumber.length() != 16 || !cardNumber.matches("[0-9]+")) {
+            throw new ApiException(400, "cardNumber must be 16 digits");
+        }
+        String idempotencyKey = api.param("idempotencyKey");
+        if (idempotencyKey != null && !IdempotencyCache.isValidKey(idempotencyKey)) {
+            throw new ApiException(400, "idempotencyKey must be 1 to 64 characters");
+        }
+
+        // Step 1: Repeat (its hold is usually gone already, so check before claiming it)
+        if (idempotencyKey != null) {
+            CompletableFuture<BookingResult> first =
+                IdempotencyCache.getInstance().find(user.getUserId(), idempotencyKey);
+            if (first != null) {
+                BookingResult repeat = IdempotencyCache.asRepeat(first.join());
+                if (repeat.getStatus() == BookingResult.Status.DUPLICATE) {
+                    api.send(statusFor(repeat), new JsonWriter().beginObject()
+                            .name("status").value(repeat.getStatus().name())
+                            .name("bookingId").value(repeat.getBookingId())
+                            .name("message").value(repeat.getMessage())
+                            .endObject());
+                    return;
+                }
+            }
+        }
+
+        // Step 2: Claim
+        ApiHold held = ownedHold(user, holdId);
+        SeatHold hold = held.hold;
+        if (!holds.remove(holdId, held) || !SeatHoldManager.getInstance().claim(hold)) {
+            throw new ApiException(409, "Seat hold has expired, please hold seats again");
+        }
+        int[] seats = hold.getSeats();
+
+        MovieCatalog catalog = MovieDAO.getCatalog();
+        Show show = catalog.getShow(hold.getShowId());
+        Movie movie = show != null ? catalog.getMovie(show.getMovieId()) : null;
+        if (show == null || movie == null) {
+            SeatInventory.getInstance().release(hold.getShowId(), seats);
+            throw new ApiException(409, "Show is no longer available");
+        }
+        double amount = seats.length * TICKET_PRICE;
+        Booking booking = new Booking(user.getUserId(), movie.getMovieId(), movie.getMovieName(),
+                show.getTheaterName(), show.getShowTime(), seats.length, amount);
+        booking.setShowId(show.getShowId());
+        booking.setIdempotencyKey(idempotencyKey);
+
+        // Step 3: Pay and book (this virtual thread just waits)
+        PaymentRequest request = new PaymentRequest("HOLD" + holdId, user.getUserId(), amount,
+                cardType, cardNumber);
+        BookingResult result;
+        try {
+            result = PaymentProcessor.getInstance().checkout(request, booking, seats).join();
+        } catch (CompletionException e) {
+            e.printStackTrace();
+            result = BookingResult.failed(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        }
+
+        // Step 4: Release on failure (a DUPLICATE did not use this hold's seats)
+        if (!result.isBooked()) {
+            SeatInventory.getInstance().release(show.getShowId(), seats);
+        }
+        api.send(statusFor(result), new JsonWriter().beginObject()
+                .name("status").value(result.getStatus().name())
+                .name("bookingId").value(result.getBookingId())
+                .name("message").value(result.getMessage())
+                .name("seats").value(seats)
+                .name("amount").value(amount)
+                .endObject());
+    }
+
+    private static int statusFor(BookingResult result) {
+        switch (result.getStatus()) {
+            case BOOKED: return 201;
+            case DUPLICATE: return 200;
+            case SOLD_OUT:
+            case CONFLICT: return 409;
+            case PAYMENT_FAILED: return 402;
+            default: return 500;
+        }
+    }
+
+    /**
+     * Newest first, one keyset page at a time; pass the returned next.afterDate
+     * and next.afterId to get the following page
+     */
+    private void history(ApiExchange api, User user) throws IOException {
+        int limit = Math.max(1, Math.min(api.intParam("limit", 20), MAX_PAGE_SIZE));
+        BookingDAO.PageKey after = null;
+        if (api.param("afterDate") != null) {
+            long afterDate;
+            try {
+                afterDate = Long.parseLong(api.param("afterDate"));
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "afterDate must be epoch milliseconds");
+            }
+            after = new BookingDAO.PageKey(new Timestamp(afterDate), api.intParam("afterId"));
+        }
+
+        List<Booking> page;
+        try {
+            page = bookingDAO.getUserBookingsPage(user.getUserId(), after, limit);
+        } catch (SQLException e) {
+            throw new ApiException(503, "Booking history is unavailable, please try again");
+        }
+        JsonWriter json = new JsonWriter().beginObject().name("bookings").beginArray();
+        for (Booking booking : page) {
+            writeBooking(json, booking);
+        }
+        json.endArray().name("next");
+        if (page.size() == limit) {
+            Booking last = page.get(page.size() - 1);
+            json.beginObject()
+                .name("afterDate").value(last.getBookingDate())
+                .name("afterId").value(last.getBookingId())
+                .endObject();
+        } else {
+            json.value((String) null);
+        }
+        api.send(200, json.endObject());
+    }
+
+    private void cancel(ApiExchange api, Booking booking) throws IOException {
+        if (!"CONFIRMED".equals(booking.getStatus())) {
+            throw new ApiException(409, "Booking is already cancelled");
+        }
+        if (!bookingDAO.isCancellationOpen(booking.getShowId())) {
+            throw new ApiException(409, "Cancellation is closed for this show");
+        }
+        if (!bookingDAO.cancelBooking(booking.getBookingId())) {
+            throw new ApiException(409, "Booking could not be cancelled");
+        }
+        api.send(200, new JsonWriter().beginObject()
+                .name("bookingId").value(booking.getBookingId())
+                .name("status").value("CANCELLED")
+                .endObject());
+    }
+
+    private static JsonWriter writeBooking(JsonWriter json, Booking booking) {
+        return json.beginObject()
+                .name("bookingId").value(booking.getBookingId())
+                .name("showId").value(booking.getShowId())
+                .name("movie").value(booking.getMovieName())
+                .name("theater").value(booking.getTheaterName())
+                .name("showTime").value(booking.getShowTime())
+                .name("bookingDate").value(booking.getBookingDate())
+                .name("tickets").value(booking.getNumberOfTickets())
+                .name("amount").value(booking.getTotalAmount())
+                .name("status").value(booking.getStatus())
+                .endObject();
+    }
+
+    private static int parseId(String value) throws ApiException {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Invalid id: " + value);
+        }
+    }
+
+    private static long parseHoldId(String value) throws ApiException {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Invalid hold id: " + value);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        BookingServer bookingServer = new BookingServer();
+        bookingServer.start(PORT);
+        System.out.println("Booking server listening on port " + bookingServer.getPort());
+        SummaryRebuilder.schedule();
+        if (Boolean.parseBoolean(System.getProperty("movieticket.summary.updater", "true"))) {
+            SummaryUpdater.start();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            bookingServer.stop(2);
+            DatabaseConnection.shutdown();
+        }, "booking-server-shutdown"));
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Booking Stats Reconciler
+ * File: BookingStatsReconciler.java
+ * Location: src/com/movieticket/dao/BookingStatsReconciler.java
+ *
+ * Purpose: Rebuild user_booking_stats from bookings and report drift
+ * Users are checked in user_id chunks so no single query scans all bookings.
+ * Usage: java com.movieticket.dao.BookingStatsReconciler [--fix]
+ */
+
+package com.movieticket.dao;
+
+import com.movieticket.util.DatabaseConnection;
+import java.sql.*;
+
+public class BookingStatsReconciler {
+
+    private static final int CHUNK_SIZE = Integer.getInteger("movieticket.stats.reconcileChunk", 500);
+
+    private final boolean fix;
+    private int usersChecked;
+    private int usersDrifted;
+
+    /**
+     * @param fix true to rewrite drifted rows, false to only report them
+     */
+    public BookingStatsReconciler(boolean fix) {
+        this.fix = fix;
+    }
+
+    /**
+     * Check every user, one chunk of user IDs at a time
+     * @return Number of users whose stats had drifted
+     */
+    public int run() {
+        usersChecked = 0;
+        usersDrifted = 0;
+
+        int maxUserId = getMaxUserId();
+        for (int from = 1; from <= maxUserId; from += CHUNK_SIZE) {
+            reconcileChunk(from, from + CHUNK_SIZE - 1);
+        }
+
+        System.out.println("Booking stats reconciled: " + usersChecked + " users checked, " +
+                           usersDrifted + " drifted" + (fix ? " (fixed)" : ""));
+        return usersDrifted;
+    }
+
+    /**
+     * Step 1: Compute the real totals for a user_id range next to the stored ones
+     * Step 2: Report (and optionally fix) every user where they differ
+     */
+    private void reconcileChunk(int fromUserId, int toUserId) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+
+            // Step 1: Actual vs stored totals
+            String sql = "SELECT u.user_id, COALESCE(b.total_bookings, 0) AS actual_bookings, " +
+                        "COALESCE(b.total_spent, 0) AS actual_spent, " +
+                        "s.total_bookings AS stored_bookings, s.total_spent AS stored_spent " +
+                        "FROM users u " +
+                        "LEFT JOIN (SELECT user_id, COUNT(*) AS total_bookings, " +
+                        "SUM(CASE WHEN status = 'CONFIRMED' THEN total_amount ELSE 0 END) AS total_spent " +
+                        "FROM bookings WHERE user_id BETWEEN ? AND ? GROUP BY user_id) b ON b.user_id = u.user_id " +
+                        "LEFT JOIN user_booking_stats s ON s.user_id = u.user_id " +
+                        "WHERE u.user_id BETWEEN ? AND ?";
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, fromUserId);
+            pstmt.setInt(2, toUserId);
+            pstmt.setInt(3, fromUserId);
+            pstmt.setInt(4, toUserId);
+            rs = pstmt.executeQuery();
+
+            // Step 2: Compare
+            while (rs.next()) {
+                usersChecked++;
+                int userId = rs.getInt("user_id");
+                int actualBookings = rs.getInt("actual_bookings");
+                double actualSpent = rs.getDouble("actual_spent");
+                int storedBookings = rs.getInt("stored_bookings");
+                boolean missing = rs.wasNull();
+                double storedSpent = rs.getDouble("stored_spent");
+
+                boolean drifted = missing
+                    ? actualBookings != 0
+                    : storedBookings != actualBookings || Math.abs(storedSpent - actualSpent) >= 0.005;
+                if (drifted) {
+                    usersDrifted++;
+                    System.err.println("Stats drift for user " + userId + ": stored " +
+                        (missing ? "none" : storedBookings + " / " + storedSpent) +
+                        ", actual " + actualBookings + " / " + actualSpent);
+                    if (fix) {
+                        fixUser(userId);
+                    }
+                }
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            closeResources(conn, pstmt, rs);
+        }
+    }
+
+    /**
+     * Recompute one user's stats while holding its stats row lock, so
+     * bookings committed meanwhile are either counted or wait for us
+     * Step 1: Make sure the row exists and lock it
+     * Step 2: Overwrite it with totals recomputed from bookings
+     */
+    private void fixUser(int userId) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // Step 1: Lock
+            pstmt = conn.prepareStatement(
+                "INSERT INTO user_booking_stats (user_id, total_bookings, total_spent) VALUES (?, 0, 0) " +
+                "ON DUPLICATE KEY UPDATE total_bookings = total_bookings");
+            pstmt.setInt(1, userId);
+            pstmt.executeUpdate();
+            pstmt.close();
+
+            // Step 2: Recompute
+            pstmt = conn.prepareStatement(
+                "UPDATE user_booking_stats s SET " +
+                "total_bookings = (SELECT COUNT(*) FROM bookings WHERE user_id = s.user_id), " +
+                "total_spent = (SELECT COALESCE(SUM(total_amount), 0) FROM bookings " +
+                "WHERE user_id = s.user_id AND status = 'CONFIRMED') " +
+                "WHERE s.user_id = ?");
+            pstmt.setInt(1, userId);
+            pstmt.executeUpdate();
+
+            conn.commit();
+
+        } catch (SQLException e) {
+            BookingDAO.rollbackQuietly(conn);
+            e.printStackTrace();
+        } finally {
+            closeResources(conn, pstmt, null);
+        }
+    }
+
+    private int getMaxUserId() {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement("SELECT COALESCE(MAX(user_id), 0) FROM users");
+            rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            closeResources(conn, pstmt, rs);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Helper method to close database resources
+     */
+    private void closeResources(Connection conn, PreparedStatement pstmt, ResultSet rs) {
+        try {
+            if (rs != null) rs.close();
+            if (pstmt != null) pstmt.close();
+            if (conn != null) conn.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static void main(String[] args) {
+        boolean fix = args.length > 0 && "--fix".equals(args[0]);
+        int drifted = new BookingStatsReconciler(fix).run();
+        DatabaseConnection.shutdown();
+        System.exit(drifted == 0 || fix ? 0 : 1);
+    }
+}
@@ -0,0 +1,420 @@
+/**
+ * Group-Commit Booking Writer
+ * File: BookingWriter.java
+ * Location: src/com/movieticket/dao/BookingWriter.java
+ *
+ * Purpose: Save concurrent bookings together so one commit covers many of them
+ * Features: Configurable flush interval and batch size, per-booking results
+ *
+ * Callers submit a booking and get a future. A single writer thread collects
+ * everything submitted within the flush interval (or until the batch is full),
+ * runs the guarded seat decrements and booking inserts as JDBC batches in one
+ * transaction and commits once. If one booking breaks the batch (a constraint
+ * or data error before the commit) the batch is split in half and each half
+ * written again, down to single bookings, which go through
+ * BookingDAO.createBooking. One bad request therefore costs about 2 log2(n)
+ * extra transactions rather than n, and cannot fail its neighbours.
+ *
+ * Other failures are not bisected: a deadlock or lock wait timeout writes the
+ * whole batch again (3 attempts), and no connection fails the whole batch at
+ * once instead of waiting for the pool once per booking. If the commit itself
+ * throws, the batch may still have been saved, so it is never written again:
+ * its first booking is looked up and the batch reported by that.
+ */
+
+package com.movieticket.dao;
+
+import com.movieticket.model.Booking;
+import com.movieticket.model.BookingResult;
+import com.movieticket.util.DaoMetric;
+import com.movieticket.util.DaoMetrics;
+import com.movieticket.util.DatabaseConnection;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BookingWriter {
+
+    private static final long FLUSH_INTERVAL_MS = Long.getLong("movieticket.writer.flushMillis", 5L);
+    private static final int MAX_BATCH_SIZE = Integer.getInteger("movieticket.writer.maxBatch", 100);
+    private static final int MAX_ATTEMPTS = 3; // per batch, for deadlocks and lock wait timeouts
+    private static final String BOOKING_EXISTS_SQL = "SELECT 1 FROM bookings WHERE booking_id = ?";
+
+    // One call per committed batch; rows are the bookings it wrote
+    private static final DaoMetric WRITE_BATCH = DaoMetrics.register("BookingWriter", "writeBatch");
+
+    private static volatile BookingWriter instance;
+
+    private final long flushIntervalNanos;
+    private final int maxBatchSize;
+    private final BookingDAO bookingDAO;
+    private final SeatDAO seatDAO = new SeatDAO();
+    private final UserBookingStatsDAO statsDAO = new UserBookingStatsDAO();
+    private final BlockingQueue<PendingBooking> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final AtomicLong bookingsWritten = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    /**
+     * One submitted booking waiting for the next flush
+     */
+    private static final class PendingBooking {
+        final Booking booking;
+        final int[] seats;
+        final CompletableFuture<BookingResult> future = new CompletableFuture<>();
+
+        PendingBooking(Booking booking, int[] seats) {
+            this.booking = booking;
+            this.seats = seats;
+        }
+    }
+
+    public BookingWriter(BookingDAO bookingDAO, long flushIntervalMillis, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.bookingDAO = bookingDAO;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.maxBatchSize = maxBatchSize;
+        this.writerThread = new Thread(this::runLoop, "booking-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Get the writer shared by the application
+     * @return BookingWriter
+     */
+    public static BookingWriter getInstance() {
+        BookingWriter w = instance;
+        if (w == null) {
+            synchronized (BookingWriter.class) {
+                w = instance;
+                if (w == null) {
+                    w = new BookingWriter(new BookingDAO(), FLUSH_INTERVAL_MS, MAX_BATCH_SIZE);
+                    instance = w;
+                }
+            }
+        }
+        return w;
+    }
+
+    /**
+     * Queue a booking for the next group commit
+     * @param booking Booking object (showId must be set)
+     * @param seats Seat numbers to save with the booking, or null
+     * @return Future completed with the BookingResult once committed
+     */
+    public CompletableFuture<BookingResult> submit(Booking booking, int[] seats) {
+        PendingBooking pending = new PendingBooking(booking, seats);
+        if (booking.getShowId() <= 0) {
+            pending.future.complete(BookingResult.failed("Booking has no show selected"));
+        } else if (!running) {
+            pending.future.complete(BookingResult.failed("Booking writer is shut down"));
+        } else {
+            queue.add(pending);
+            // Shutdown may have drained the queue between the check and the add;
+            // if the writer did not take this booking, nobody will
+            if (!running && queue.remove(pending)) {
+                pending.future.complete(BookingResult.failed("Booking writer is shut down"));
+            }
+        }
+        return pending.future;
+    }
+
+    /**
+     * Step 1: Wait for the first booking
+     * Step 2: Collect more until the flush interval ends or the batch is full
+     * Step 3: Write the batch
+     */
+    private void runLoop() {
+        List<PendingBooking> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingBooking first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < maxBatchSize) {
+                    long wait = deadline - System.nanoTime();
+                    if (wait <= 0) {
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+                    PendingBooking next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Shutdown: write whatever was already taken from the queue
+                if (!running) {
+                    queue.drainTo(batch);
+                }
+                flush(batch);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                for (PendingBooking pending : batch) {
+                    pending.future.complete(BookingResult.failed("Booking could not be saved"));
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingBooking> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Lock show rows in a fixed order so concurrent writers cannot deadlock
+        batch.sort(Comparator.comparingInt(p -> p.booking.getShowId()));
+        write(batch);
+    }
+
+    /**
+     * Write a batch, bisecting it while a booking in it breaks the batch
+     * (halves keep the show order)
+     */
+    private void write(List<PendingBooking> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                BookingResult[] results = writeBatch(batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).future.complete(results[i]);
+                }
+                return;
+            } catch (SQLFeatureNotSupportedException e) {
+                // No per-statement update counts: nothing can be batched
+                fallbacks.incrementAndGet();
+                for (PendingBooking pending : batch) {
+                    writeAlone(pending);
+                }
+                return;
+            } catch (SQLException e) {
+                if (BookingDAO.isRetryable(e) && attempt < MAX_ATTEMPTS) {
+                    continue; // Rolled back as a whole; nothing was saved
+                }
+                if (!isBadBooking(e)) {
+                    e.printStackTrace();
+                    failAll(batch, BookingDAO.isRetryable(e)
+                            ? BookingResult.conflict("Seats were taken by another booking, please try again")
+                            : BookingResult.failed("Booking could not be saved"));
+                    return;
+                }
+                fallbacks.incrementAndGet();
+                bisect(batch);
+                return;
+            }
+        }
+    }
+
+    private void bisect(List<PendingBooking> batch) {
+        if (batch.size() == 1) {
+            writeAlone(batch.get(0));
+            return;
+        }
+        int half = batch.size() / 2;
+        for (List<PendingBooking> part : List.of(batch.subList(0, half), batch.subList(half, batch.size()))) {
+            if (part.size() == 1) {
+                writeAlone(part.get(0));
+            } else {
+                write(part);
+            }
+        }
+    }
+
+    private static void failAll(List<PendingBooking> batch, BookingResult result) {
+        for (PendingBooking pending : batch) {
+            pending.future.complete(result);
+        }
+    }
+
+    /**
+     * A constraint or data error: one booking in the batch is at fault, and
+     * bisecting finds it. Anything else (no connection, a lost connection)
+     * would fail every half the same way.
+     */
+    private static boolean isBadBooking(SQLException e) {
+        for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+            String state = cause.getSQLState();
+            if (cause instanceof SQLIntegrityConstraintViolationException
+                    || cause instanceof SQLDataException
+                    || BookingDAO.isDuplicateKey(cause)
+                    || (state != null && (state.startsWith("22") || state.startsWith("23")))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One booking in its own transaction, with BookingDAO's retries and error mapping
+     */
+    private void writeAlone(PendingBooking pending) {
+        pending.future.complete(bookingDAO.createBooking(pending.booking, pending.seats, true));
+    }
+
+    /**
+     * Step 1: Batch the guarded decrements; a zero update count means sold out
+     * Step 2: Batch-insert the bookings that got seats and collect their IDs
+     * Step 3: Save their seats and user totals, and commit once
+     */
+    private BookingResult[] writeBatch(List<PendingBooking> batch) throws SQLException {
+        long start = System.nanoTime();
+        BookingResult[] results = new BookingResult[batch.size()];
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // Step 1: Decrement seats
+            int[] counts;
+            try (PreparedStatement pstmt = conn.prepareStatement(BookingDAO.DECREMENT_SEATS_SQL)) {
+                for (PendingBooking pending : batch) {
+                    BookingDAO.bindDecrement(pstmt, pending.booking);
+                    pstmt.addBatch();
+                }
+                counts = pstmt.executeBatch();
+            }
+
+            List<Integer> accepted = new ArrayList<>(batch.size());
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                    throw new SQLFeatureNotSupportedException("Driver did not report update counts for batched decrement");
+                }
+                if (counts[i] == 0) {
+                    results[i] = BookingResult.soldOut();
+                } else {
+                    accepted.add(i);
+                }
+            }
+
+            if (!accepted.isEmpty()) {
+                // Step 2: Insert bookings
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        BookingDAO.INSERT_BOOKING_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    for (int index : accepted) {
+                        BookingDAO.bindInsert(pstmt, batch.get(index).booking);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+
+                    try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                        for (int index : accepted) {
+                            if (!keys.next()) {
+                                throw new SQLException("Missing generated booking ID in batch");
+                            }
+                            results[index] = BookingResult.booked(keys.getInt(1));
+                        }
+                    }
+                }
+
+                // Step 3: Save seats and user totals (stats rows in ascending user_id)
+                Map<Integer, double[]> totals = new TreeMap<>();
+                for (int index : accepted) {
+                    PendingBooking pending = batch.get(index);
+                    if (pending.seats != null && pending.seats.length > 0) {
+                        seatDAO.saveBookingSeats(conn, results[index].getBookingId(),
+                                pending.booking.getShowId(), pending.seats);
+                    }
+                    double[] total = totals.computeIfAbsent(pending.booking.getUserId(), k -> new double[2]);
+                    total[0]++;
+                    total[1] += pending.booking.getTotalAmount();
+                }
+                statsDAO.recordBookings(conn, totals);
+            }
+
+            try {
+                conn.commit();
+            } catch (SQLException e) {
+                // The commit may have reached the database; writing the batch
+                // again could book its seats twice
+                WRITE_BATCH.error();
+                e.printStackTrace();
+                BookingDAO.rollbackQuietly(conn);
+                if (!accepted.isEmpty() && !isCommitted(results[accepted.get(0)].getBookingId())) {
+                    Arrays.fill(results, BookingResult.failed("Booking could not be saved"));
+                    return results;
+                }
+            }
+            commits.incrementAndGet();
+            bookingsWritten.addAndGet(accepted.size());
+            WRITE_BATCH.rows(accepted.size());
+            return results;
+
+        } catch (SQLException e) {
+            WRITE_BATCH.error();
+            BookingDAO.rollbackQuietly(conn);
+            throw e;
+        } finally {
+            DatabaseConnection.closeConnection(conn);
+            WRITE_BATCH.stop(start);
+        }
+    }
+
+    /**
+     * After a failed commit: the batch is one transaction, so its first booking
+     * tells whether all of it was saved
+     * @return true if the booking exists; false if not, or if that cannot be read
+     */
+    private static boolean isCommitted(int bookingId) {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            try (PreparedStatement pstmt = conn.prepareStatement(BOOKING_EXISTS_SQL)) {
+                pstmt.setInt(1, bookingId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next();
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Cannot tell whether booking " + bookingId + " was committed: " + e.getMessage());
+            return false;
+        } finally {
+            DatabaseConnection.closeConnection(conn);
+        }
+    }
+
+    /**
+     * Stop accepting bookings and flush what is queued
+     */
+    public void shutdown() {
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BookingWriter{" +
+                "bookingsWritten=" + bookingsWritten.get() +
+                ", commits=" + commits.get() +
+                ", fallbacks=" + fallbacks.get() +
+                ", queued=" + queue.size() +
+                '}';
+    }
+}
@@ -0,0 +1,470 @@
+/**
+ * JDBC Connection Pool
+ * File: ConnectionPool.java
+ * Location: src/com/movieticket/util/ConnectionPool.java
+ *
+ * Purpose: Keep a bounded set of open MySQL connections for reuse by the DAOs
+ * Features: Min/max size, acquisition timeout, validation on borrow,
+ *           idle eviction, leak detection, per-connection prepared
+ *           statement cache, pool statistics
+ */
+
+package com.movieticket.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class ConnectionPool {
+
+    // Wait time histogram buckets: <1ms, <2ms, <4ms ... <2^(N-2)ms, overflow
+    public static final int WAIT_BUCKETS = 16;
+
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final long leakThresholdMillis;
+    private final int leakTraceEvery;
+    private final int statementCacheSize;
+
+    // A permit is held for every borrowed connection, so at most maxSize are out
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Map<PooledConnection, Boolean> active = new ConcurrentHashMap<>();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final AtomicLongArray waitHistogram = new AtomicLongArray(WAIT_BUCKETS);
+
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String username, String password,
+                          int minSize, int maxSize, long acquireTimeoutMillis,
+                          long idleTimeoutMillis, long validationIntervalMillis,
+                          long leakThresholdMillis) {
+        this(url, username, password, minSize, maxSize, acquireTimeoutMillis,
+             idleTimeoutMillis, validationIntervalMillis, leakThresholdMillis, 0, 0);
+    }
+
+    /**
+     * @param statementCacheSize Prepared statements kept open per connection (0 disables the cache)
+     * @param leakTraceEvery Record the borrower's stack trace on every Nth borrow, for
+     *                       leak reports (0 = never; leaks are still detected by hold time)
+     */
+    public ConnectionPool(String url, String username, String password,
+                          int minSize, int maxSize, long acquireTimeoutMillis,
+                          long idleTimeoutMillis, long validationIntervalMillis,
+                          long leakThresholdMillis, int statementCacheSize, int leakTraceEvery) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.leakTraceEvery = Math.max(0, leakTraceEvery);
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep, 5, 5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Borrow a connection from the pool
+     * Closing the returned connection gives it back to the pool
+     * @return Connection object
+     * @throws SQLException if no connection becomes available in time
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is shut down");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + acquireTimeoutMillis
+                        + " ms waiting for a database connection (active=" + active.size()
+                        + ", max=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                pooled = createConnection();
+            }
+            long borrow = borrowCount.incrementAndGet();
+            // A stack walk per borrow is too dear for the hot path, so only sampled borrows record one
+            pooled.onBorrow(leakThresholdMillis > 0 && leakTraceEvery > 0 && borrow % leakTraceEvery == 0);
+            active.put(pooled, Boolean.TRUE);
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Take the most recently used idle connection that is still usable
+     */
+    private PooledConnection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            destroy(pooled);
+        }
+        return null;
+    }
+
+    /**
+     * Validate on borrow, skipping the round trip for recently used connections
+     */
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            long idleFor = System.currentTimeMillis() - pooled.lastReturnedAt;
+            if (idleFor < validationIntervalMillis) {
+                return true;
+            }
+            return pooled.physical.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        totalConnections.incrementAndGet();
+        createdCount.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    /**
+     * Called when a borrowed connection is closed by the DAO
+     */
+    private void release(PooledConnection pooled) {
+        active.remove(pooled);
+        try {
+            boolean reusable = !closed && !pooled.physical.isClosed();
+            if (reusable && !pooled.physical.getAutoCommit()) {
+                // Never hand out a connection with an open transaction
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            if (reusable) {
+                if (pooled.statements != null) {
+                    pooled.statements.endLease();
+                }
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            } else {
+                destroy(pooled);
+            }
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            // Connection is being discarded anyway
+        }
+    }
+
+    /**
+     * Periodic maintenance: evict idle connections, top up to minimum, report leaks
+     */
+    private void housekeep() {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+
+        // Step 1: Evict connections idle for too long, oldest first, keeping minSize
+        PooledConnection oldest;
+        while (totalConnections.get() > minSize
+                && (oldest = idle.peekLast()) != null
+                && now - oldest.lastReturnedAt > idleTimeoutMillis) {
+            if (idle.removeLastOccurrence(oldest)) {
+                destroy(oldest);
+                evictedCount.incrementAndGet();
+            }
+        }
+
+        // Step 2: Keep at least minSize physical connections open
+        while (totalConnections.get() < minSize) {
+            try {
+                PooledConnection pooled = createConnection();
+                pooled.lastReturnedAt = now;
+                idle.offerLast(pooled);
+            } catch (SQLException e) {
+                System.out.println("Connection pool could not pre-open connection: " + e.getMessage());
+                break;
+            }
+        }
+
+        // Step 3: Report connections held longer than the leak threshold
+        if (leakThresholdMillis > 0) {
+            for (PooledConnection pooled : active.keySet()) {
+                if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                    pooled.leakReported = true;
+                    leakCount.incrementAndGet();
+                    System.out.println("Possible connection leak: connection held for "
+                            + (now - pooled.borrowedAt) + " ms");
+                    if (pooled.borrowSite != null) {
+                        pooled.borrowSite.printStackTrace(System.out);
+                    }
+                }
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        long millis = nanos / 1_000_000L;
+        int bucket = millis == 0 ? 0 : 64 - Long.numberOfLeadingZeros(millis);
+        waitHistogram.incrementAndGet(Math.min(bucket, WAIT_BUCKETS - 1));
+    }
+
+    /**
+     * Get a point-in-time snapshot of pool statistics
+     * @return Stats object
+     */
+    public Stats getStats() {
+        long[] histogram = new long[WAIT_BUCKETS];
+        for (int i = 0; i < WAIT_BUCKETS; i++) {
+            histogram[i] = waitHistogram.get(i);
+        }
+        return new Stats(active.size(), idle.size(), permits.getQueueLength(),
+                totalConnections.get(), maxSize, borrowCount.get(), timeoutCount.get(),
+                createdCount.get(), evictedCount.get(), leakCount.get(),
+                statementHits.get(), statementMisses.get(), histogram);
+    }
+
+    /**
+     * Close all idle connections and reject further borrows
+     * Borrowed connections are closed when they are returned
+     */
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    /**
+     * One physical connection owned by the pool
+     */
+    private final class PooledConnection {
+        final Connection physical;
+        final StatementCache statements;
+        volatile long lastReturnedAt = System.currentTimeMillis();
+        volatile long borrowedAt;
+        volatile Throwable borrowSite;
+        volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = statementCacheSize > 0
+                    ? new StatementCache(physical, statementCacheSize, statementHits, statementMisses)
+                    : null;
+        }
+
+        void onBorrow(boolean captureSite) {
+            borrowedAt = System.currentTimeMillis();
+            borrowSite = captureSite ? new Throwable("Connection borrowed here") : null;
+            leakReported = false;
+        }
+
+        /**
+         * Each borrow gets its own handle so a stale close() cannot return
+         * the connection twice
+         */
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new Handle(this));
+        }
+    }
+
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                if (returned.compareAndSet(false, true)) {
+                    release(pooled);
+                }
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return returned.get() || pooled.physical.isClosed();
+            }
+            if (returned.get()) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if ("prepareStatement".equals(name) && pooled.statements != null && isCacheable(method)) {
+                int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                return pooled.statements.prepare((String) args[0], autoGeneratedKeys);
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Only prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) are cached
+     */
+    private static boolean isCacheable(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        return types.length == 1 || (types.length == 2 && types[1] == int.class);
+    }
+
+    /**
+     * Immutable snapshot of pool statistics
+     */
+    public static final class Stats {
+        private final int active;
+        private final int idle;
+        private final int waiters;
+        private final int total;
+        private final int maxSize;
+        private final long borrows;
+        private final long timeouts;
+        private final long created;
+        private final long evicted;
+        private final long leaks;
+        private final long statementHits;
+        private final long statementMisses;
+        private final long[] waitHistogram;
+
+        Stats(int active, int idle, int waiters, int total, int maxSize, long borrows,
+              long timeouts, long created, long evicted, long leaks,
+              long statementHits, long statementMisses, long[] waitHistogram) {
+            this.active = active;
+            this.idle = idle;
+            this.waiters = waiters;
+            this.total = total;
+            this.maxSize = maxSize;
+            this.borrows = borrows;
+            this.timeouts = timeouts;
+            this.created = created;
+            this.evicted = evicted;
+            this.leaks = leaks;
+            this.statementHits = statementHits;
+            this.statementMisses = statementMisses;
+            this.waitHistogram = waitHistogram;
+        }
+
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getWaiters() { return waiters; }
+        public int getTotal() { return total; }
+        public int getMaxSize() { return maxSize; }
+        public long getBorrows() { return borrows; }
+        public long getTimeouts() { return timeouts; }
+        public long getCreated() { return created; }
+        public long getEvicted() { return evicted; }
+        public long getLeaks() { return leaks; }
+        public long getStatementHits() { return statementHits; }
+        public long getStatementMisses() { return statementMisses; }
+
+        /**
+         * Bucket i counts borrows that waited less than 2^i ms
+         * (bucket 0 is under 1 ms, the last bucket is everything above)
+         */
+        public long[] getWaitHistogram() {
+            return waitHistogram.clone();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("PoolStats{")
+                    .append("active=").append(active)
+                    .append(", idle=").append(idle)
+                    .append(", waiters=").append(waiters)
+                    .append(", total=").append(total)
+                    .append("/").append(maxSize)
+                    .append(", borrows=").append(borrows)
+                    .append(", timeouts=").append(timeouts)
+                    .append(", created=").append(created)
+                    .append(", evicted=").append(evicted)
+                    .append(", leaks=").append(leaks)
+                    .append(", stmtCache=").append(statementHits).append("/")
+                    .append(statementHits + statementMisses)
+                    .append(", wait=[");
+            for (int i = 0; i < waitHistogram.length; i++) {
+                if (waitHistogram[i] == 0) continue;
+                String bound = i == waitHistogram.length - 1 ? "inf" : String.valueOf(1L << i);
+                sb.append(" <").append(bound).append("ms:").append(waitHistogram[i]);
+            }
+            return sb.append(" ]}").toString();
+        }
+    }
+}
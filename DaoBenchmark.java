@@ -0,0 +1,116 @@
+/**
+ * DAO Benchmarks
+ * File: DaoBenchmark.java
+ * Location: src/com/movieticket/bench/DaoBenchmark.java
+ *
+ * Purpose: JMH benchmarks for the single-threaded DAO hot paths
+ * Covers login, booking history (object and columnar), booking counts,
+ * catalog lookups and createBooking
+ */
+
+package com.movieticket.bench;
+
+import com.movieticket.dao.BookingDAO;
+import com.movieticket.dao.MovieDAO;
+import com.movieticket.dao.UserDAO;
+import com.movieticket.model.Booking;
+import com.movieticket.model.BookingBatch;
+import com.movieticket.model.BookingResult;
+import com.movieticket.model.Movie;
+import com.movieticket.model.User;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoBenchmark {
+
+    private UserDAO userDAO;
+    private BookingDAO bookingDAO;
+    private MovieDAO movieDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.init();
+        BenchmarkDatabase.resetAvailability();
+        userDAO = new UserDAO();
+        bookingDAO = new BookingDAO();
+        movieDAO = new MovieDAO();
+        MovieDAO.preload();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetSeats() throws Exception {
+        BenchmarkDatabase.resetAvailability();
+    }
+
+    private static int randomUserId() {
+        return 2 + ThreadLocalRandom.current().nextInt(BenchmarkDatabase.USERS - 1);
+    }
+
+    private static int randomMovieId() {
+        return 1 + ThreadLocalRandom.current().nextInt(BenchmarkDatabase.MOVIES);
+    }
+
+    @Benchmark
+    public User validateLogin() {
+        int userId = randomUserId();
+        return userDAO.validateLogin("user" + userId, "pass" + userId);
+    }
+
+    @Benchmark
+    public List<Booking> getUserBookings() {
+        return bookingDAO.getUserBookings(randomUserId());
+    }
+
+    @Benchmark
+    public List<Booking> getUserBookingsHeavyUser() {
+        return bookingDAO.getUserBookings(BenchmarkDatabase.HEAVY_USER_ID);
+    }
+
+    @Benchmark
+    public BookingBatch getUserBookingBatchHeavyUser() {
+        return bookingDAO.getUserBookingBatch(BenchmarkDatabase.HEAVY_USER_ID);
+    }
+
+    @Benchmark
+    public int getTotalBookingsCount() {
+        return bookingDAO.getTotalBookingsCount(randomUserId());
+    }
+
+    @Benchmark
+    public double getTotalAmountSpent() {
+        return bookingDAO.getTotalAmountSpent(randomUserId());
+    }
+
+    @Benchmark
+    public List<Movie> catalogAllMovies() {
+        return movieDAO.getAllMovies();
+    }
+
+    @Benchmark
+    public List<String> catalogTheaters() {
+        return movieDAO.getTheatersForMovie(randomMovieId());
+    }
+
+    @Benchmark
+    public List<String> catalogShowTimings() {
+        return movieDAO.getShowTimings(randomMovieId(), "Theater 2");
+    }
+
+    @Benchmark
+    public BookingResult createBooking() {
+        int movieId = randomMovieId();
+        Booking booking = new Booking(randomUserId(), movieId, "Movie " + movieId,
+                "Theater 1", "01:00 PM", 2, 500.0);
+        booking.setShowId((movieId - 1) * BenchmarkDatabase.THEATERS_PER_MOVIE
+                * BenchmarkDatabase.SHOWS_PER_THEATER + 1);
+        return bookingDAO.createBooking(booking);
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * DAO Executor
+ * File: DaoExecutor.java
+ * Location: src/com/movieticket/util/DaoExecutor.java
+ *
+ * Purpose: Run database calls off the Swing event dispatch thread
+ * Each call gets its own virtual thread, so a slow query never blocks the UI
+ * and thousands of waiting calls cost no platform threads. Completion handlers
+ * that touch Swing components must run on EDT.
+ */
+
+package com.movieticket.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import javax.swing.SwingUtilities;
+
+public final class DaoExecutor {
+
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Executor that runs completion handlers on the Swing event dispatch thread
+     * Use with thenAcceptAsync / whenCompleteAsync
+     */
+    public static final Executor EDT = SwingUtilities::invokeLater;
+
+    private DaoExecutor() {
+    }
+
+    /**
+     * Run a DAO call on a virtual thread
+     * @param call DAO call
+     * @return Future completed with the call's result
+     */
+    public static <T> CompletableFuture<T> supply(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, EXECUTOR);
+    }
+
+    /**
+     * @return Executor backing the async DAO methods
+     */
+    public static Executor executor() {
+        return EXECUTOR;
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * DAO Metric
+ * File: DaoMetric.java
+ * Location: src/com/movieticket/util/DaoMetric.java
+ *
+ * Purpose: Latency histogram and call/error/row counters for one DAO method
+ * Recording is lock-free and allocation-free: counters are LongAdders and the
+ * histogram is a fixed AtomicLongArray of log-linear buckets (8 per power of
+ * two, so any reported percentile is within 12.5% of the true value).
+ * Usage:
+ * <pre>
+ * long start = System.nanoTime();
+ * try { ...; METRIC.rows(n); }
+ * catch (SQLException e) { METRIC.error(); ... }
+ * finally { METRIC.stop(start); }
+ * </pre>
+ */
+
+package com.movieticket.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class DaoMetric implements DaoMetricMBean {
+
+    // Values below 2^LINEAR_BITS ns get one bucket each, then 2^SUB_BITS per power of two
+    private static final int SUB_BITS = 3;
+    private static final int LINEAR_BITS = SUB_BITS + 1;
+    private static final int MAX_EXPONENT = 40; // ~18 minutes; longer calls land in the last bucket
+    private static final int BUCKETS = (1 << LINEAR_BITS) + (MAX_EXPONENT - LINEAR_BITS + 1) * (1 << SUB_BITS);
+
+    private final String dao;
+    private final String method;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    DaoMetric(String dao, String method) {
+        this.dao = dao;
+        this.method = method;
+    }
+
+    public String getDao() {
+        return dao;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Record one call that started at start (from System.nanoTime())
+     */
+    public void stop(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    /**
+     * Record one call of the given duration
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        calls.increment();
+        totalNanos.add(value);
+        histogram.incrementAndGet(bucketOf(value));
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Count a failed call (still call stop() for its latency)
+     */
+    public void error() {
+        errors.increment();
+    }
+
+    /**
+     * Count rows returned or affected by the current call
+     */
+    public void rows(long count) {
+        rows.add(count);
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < (1L << LINEAR_BITS)) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+        return (1 << LINEAR_BITS) + ((exponent - LINEAR_BITS) << SUB_BITS) + sub;
+    }
+
+    /**
+     * @return Largest value that falls in the bucket
+     */
+    static long bucketUpperBound(int bucket) {
+        if (bucket < (1 << LINEAR_BITS)) {
+            return bucket;
+        }
+        int offset = bucket - (1 << LINEAR_BITS);
+        int exponent = (offset >>> SUB_BITS) + LINEAR_BITS;
+        long sub = offset & ((1 << SUB_BITS) - 1);
+        long width = 1L << (exponent - SUB_BITS);
+        return ((1L << SUB_BITS) + sub) * width + width - 1;
+    }
+
+    /**
+     * @param quantile 0.0 - 1.0
+     * @return Latency at the quantile in nanoseconds (bucket upper bound, capped at max)
+     */
+    public long getPercentileNanos(double quantile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    /**
+     * @return Sum of all recorded latencies in nanoseconds (for rates over an interval)
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long count = calls.sum();
+        return count == 0 ? 0.0 : totalNanos.sum() / 1000.0 / count;
+    }
+
+    @Override
+    public long getP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(0.50));
+    }
+
+    @Override
+    public long getP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(0.99));
+    }
+
+    @Override
+    public long getP999Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(0.999));
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxNanos.get());
+    }
+
+    @Override
+    public void reset() {
+        calls.reset();
+        errors.reset();
+        rows.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-40s calls=%-8d errors=%-5d rows=%-9d mean=%.0fus p50=%dus p99=%dus p999=%dus max=%dus",
+                dao + "." + method, getCalls(), getErrors(), getRows(), getMeanMicros(),
+                getP50Micros(), getP99Micros(), getP999Micros(), getMaxMicros());
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * DAO Metric MBean Interface
+ * File: DaoMetricMBean.java
+ * Location: src/com/movieticket/util/DaoMetricMBean.java
+ *
+ * Purpose: JMX view of one DaoMetric (latencies in microseconds)
+ * Registered as com.movieticket:type=DaoMetric,dao=<DAO>,method=<method>
+ */
+
+package com.movieticket.util;
+
+public interface DaoMetricMBean {
+
+    long getCalls();
+
+    long getErrors();
+
+    long getRows();
+
+    double getMeanMicros();
+
+    long getP50Micros();
+
+    long getP99Micros();
+
+    long getP999Micros();
+
+    long getMaxMicros();
+
+    /**
+     * Zero all counters and the histogram
+     */
+    void reset();
+}
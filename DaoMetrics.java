@@ -0,0 +1,132 @@
+/**
+ * DAO Metrics Registry
+ * File: DaoMetrics.java
+ * Location: src/com/movieticket/util/DaoMetrics.java
+ *
+ * Purpose: Create, publish and report the DaoMetric of every DAO method
+ * Each metric is registered as an MBean (see DaoMetricMBean) and all of them
+ * are printed every movieticket.metrics.dumpSeconds (60, 0 to disable) when
+ * there were calls since the last dump.
+ * Set -Dmovieticket.metrics.jmx=false to skip MBean registration.
+ */
+
+package com.movieticket.util;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public final class DaoMetrics {
+
+    private static final long DUMP_SECONDS = Long.getLong("movieticket.metrics.dumpSeconds", 60L);
+    private static final boolean JMX_ENABLED =
+            Boolean.parseBoolean(System.getProperty("movieticket.metrics.jmx", "true"));
+
+    // Sorted by "DAO.method" so dumps are stable
+    private static final Map<String, DaoMetric> METRICS = new ConcurrentSkipListMap<>();
+
+    private static ScheduledExecutorService dumper;
+    private static long callsAtLastDump;
+
+    private DaoMetrics() {
+    }
+
+    /**
+     * Get or create the metric for a DAO method
+     * Call once per method and keep the result in a static final field
+     * @param dao DAO class simple name
+     * @param method Method name
+     * @return DaoMetric
+     */
+    public static DaoMetric register(String dao, String method) {
+        DaoMetric metric = METRICS.computeIfAbsent(dao + "." + method, k -> {
+            DaoMetric created = new DaoMetric(dao, method);
+            publish(created);
+            return created;
+        });
+        startDumper();
+        return metric;
+    }
+
+    private static void publish(DaoMetric metric) {
+        if (!JMX_ENABLED) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.movieticket:type=DaoMetric,dao="
+                    + metric.getDao() + ",method=" + metric.getMethod());
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metric, name);
+            }
+        } catch (JMException e) {
+            System.out.println("Could not register DAO metric MBean: " + e.getMessage());
+        }
+    }
+
+    private static synchronized void startDumper() {
+        if (dumper != null || DUMP_SECONDS <= 0) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dao-metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleWithFixedDelay(DaoMetrics::dumpIfActive, DUMP_SECONDS, DUMP_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static synchronized void dumpIfActive() {
+        long calls = 0;
+        for (DaoMetric metric : METRICS.values()) {
+            calls += metric.getCalls();
+        }
+        if (calls != callsAtLastDump) {
+            callsAtLastDump = calls;
+            dump(System.out);
+        }
+    }
+
+    /**
+     * @return All metrics, sorted by DAO and method
+     */
+    public static List<DaoMetric> getAll() {
+        return new ArrayList<>(METRICS.values());
+    }
+
+    /**
+     * Print one line per metric that has been called, plus pool statistics
+     * @param out Stream to print to
+     */
+    public static void dump(PrintStream out) {
+        StringBuilder sb = new StringBuilder("DAO metrics (cumulative):\n");
+        for (DaoMetric metric : METRICS.values()) {
+            if (metric.getCalls() > 0) {
+                sb.append("  ").append(metric).append('\n');
+            }
+        }
+        ConnectionPool.Stats pool = DatabaseConnection.getPoolStats();
+        if (pool != null) {
+            sb.append("  ").append(pool).append('\n');
+        }
+        out.print(sb);
+    }
+
+    /**
+     * Zero every metric
+     */
+    public static void resetAll() {
+        for (DaoMetric metric : METRICS.values()) {
+            metric.reset();
+        }
+    }
+}
@@ -4,41 +4,95 @@
  * Location: src/com/movieticket/util/DatabaseConnection.java
  * 
  * Purpose: Provide database connection to all DAO classes
+ * Connections come from a shared ConnectionPool; closing them returns them to the pool
+ * Pool settings can be overridden with -Dmovieticket.pool.* system properties
+ * SQL tracing (see SqlTracer) wraps the connection only while it is enabled
  */
 
 package com.movieticket.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DatabaseConnection {
     
     // Database credentials - CHANGE THESE ACCORDING TO YOUR MYSQL SETUP
-    private static final String URL = "jdbc:mysql://localhost:3306/movie_ticket_db";
-    private static final String USERNAME = "root";
-    private static final String PASSWORD = "root"; // Change this to your MySQL password
+    // (or pass -Dmovieticket.db.url / .username / .password / .driver, e.g. for benchmarks)
+    private static final String URL = System.getProperty("movieticket.db.url", "jdbc:mysql://localhost:3306/movie_ticket_db");
+    private static final String USERNAME = System.getProperty("movieticket.db.username", "root");
+    private static final String PASSWORD = System.getProperty("movieticket.db.password", "root"); // Change this to your MySQL password
+    private static final String DRIVER = System.getProperty("movieticket.db.driver", "com.mysql.cj.jdbc.Driver");
+    
+    // Pool settings
+    private static final int POOL_MIN_SIZE = Integer.getInteger("movieticket.pool.minSize", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("movieticket.pool.maxSize", 20);
+    private static final long ACQUIRE_TIMEOUT_MS = Long.getLong("movieticket.pool.acquireTimeoutMs", 5000L);
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("movieticket.pool.idleTimeoutMs", 600000L);
+    private static final long VALIDATION_INTERVAL_MS = Long.getLong("movieticket.pool.validationIntervalMs", 30000L);
+    private static final long LEAK_THRESHOLD_MS = Long.getLong("movieticket.pool.leakThresholdMs", 60000L);
+    private static final int LEAK_TRACE_EVERY = Integer.getInteger("movieticket.pool.leakTraceEvery", 0);
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("movieticket.pool.statementCacheSize", 64);
+    
+    private static volatile ConnectionPool pool;
     
     /**
-     * Get database connection
-     * @return Connection object
+     * Get database connection from the pool
+     * @return Connection object (traced if SQL tracing is enabled)
      * @throws SQLException if connection fails
      */
     public static Connection getConnection() throws SQLException {
-        try {
-            // Load MySQL JDBC Driver
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            
-            // Return connection
-            return DriverManager.getConnection(URL, USERNAME, PASSWORD);
-            
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("MySQL JDBC Driver not found! Add mysql-connector-java.jar to classpath", e);
+        return SqlTracer.getInstance().wrap(getPool().getConnection());
+    }
+    
+    /**
+     * Create the pool on first use (loads the MySQL driver once)
+     */
+    private static ConnectionPool getPool() throws SQLException {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DatabaseConnection.class) {
+                p = pool;
+                if (p == null) {
+                    try {
+                        // Load MySQL JDBC Driver
+                        Class.forName(DRIVER);
+                    } catch (ClassNotFoundException e) {
+                        throw new SQLException("JDBC Driver " + DRIVER + " not found! Add mysql-connector-java.jar to classpath", e);
+                    }
+                    p = new ConnectionPool(URL, USERNAME, PASSWORD,
+                            POOL_MIN_SIZE, POOL_MAX_SIZE, ACQUIRE_TIMEOUT_MS,
+                            IDLE_TIMEOUT_MS, VALIDATION_INTERVAL_MS, LEAK_THRESHOLD_MS,
+                            STATEMENT_CACHE_SIZE, LEAK_TRACE_EVERY);
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+    
+    /**
+     * Get connection pool statistics
+     * @return Stats snapshot, or null if the pool has not been used yet
+     */
+    public static ConnectionPool.Stats getPoolStats() {
+        ConnectionPool p = pool;
+        return p != null ? p.getStats() : null;
+    }
+    
+    /**
+     * Close all pooled connections (call on application exit)
+     */
+    public static void shutdown() {
+        synchronized (DatabaseConnection.class) {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
         }
     }
     
     /**
-     * Close database connection
+     * Close database connection (returns it to the pool)
      * @param connection Connection to close
      */
     public static void closeConnection(Connection connection) {
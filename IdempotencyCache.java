@@ -0,0 +1,164 @@
+/**
+ * Idempotency Cache
+ * File: IdempotencyCache.java
+ * Location: src/com/movieticket/dao/IdempotencyCache.java
+ *
+ * Purpose: Answer repeated booking submissions from memory
+ * The first checkout with a (user, idempotency key) registers its result
+ * future here; a retry with the same key gets that future back, so it waits for
+ * or reuses the original outcome without paying again or touching the database.
+ * Failed attempts are forgotten so the customer can try again.
+ *
+ * Entries live for movieticket.booking.idempotencyTtlSeconds (900), at most
+ * idempotencyCacheSize (100000) of them. Past either limit, or after a
+ * restart, the unique index on bookings (user_id, idempotency_key) still stops
+ * the second insert (see BookingDAO).
+ */
+
+package com.movieticket.dao;
+
+import com.movieticket.model.BookingResult;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class IdempotencyCache {
+
+    private static final long TTL_MILLIS =
+            TimeUnit.SECONDS.toMillis(Long.getLong("movieticket.booking.idempotencyTtlSeconds", 900L));
+    private static final int MAX_ENTRIES = Integer.getInteger("movieticket.booking.idempotencyCacheSize", 100000);
+    private static final int MAX_KEY_LENGTH = 64; // bookings.idempotency_key
+
+    private static final IdempotencyCache INSTANCE = new IdempotencyCache();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong lastEviction = new AtomicLong();
+
+    /**
+     * Outcome (possibly still running) of the first submission with a key
+     */
+    private static final class Entry {
+        final CompletableFuture<BookingResult> result;
+        final long expiresAt;
+
+        Entry(CompletableFuture<BookingResult> result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Get the cache shared by the application
+     * @return IdempotencyCache
+     */
+    public static IdempotencyCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param key Idempotency key from the client
+     * @return true if the key can be stored (1-64 characters)
+     */
+    public static boolean isValidKey(String key) {
+        return key != null && !key.isEmpty() && key.length() <= MAX_KEY_LENGTH;
+    }
+
+    /**
+     * Register a submission, unless one with the same key is already known
+     * @param userId User ID
+     * @param key Idempotency key
+     * @param result Future the caller will complete with its outcome
+     * @return The earlier submission's future, or null if the caller is first
+     */
+    public CompletableFuture<BookingResult> register(int userId, String key, CompletableFuture<BookingResult> result) {
+        long now = System.currentTimeMillis();
+        if (entries.size() >= MAX_ENTRIES) {
+            // One sweep per second at most, so a cache full of live keys is not rescanned per call
+            long last = lastEviction.get();
+            if (now - last >= 1000 && lastEviction.compareAndSet(last, now)) {
+                evictExpired(now);
+            }
+        }
+        Entry mine = new Entry(result, now + TTL_MILLIS);
+        String cacheKey = cacheKey(userId, key);
+        while (true) {
+            Entry existing = entries.get(cacheKey);
+            if (existing == null) {
+                if (entries.size() >= MAX_ENTRIES) {
+                    misses.incrementAndGet();
+                    return null; // Full: the unique index still catches a repeat
+                }
+                if (entries.putIfAbsent(cacheKey, mine) == null) {
+                    misses.incrementAndGet();
+                    result.whenComplete((outcome, error) -> {
+                        if (error != null || !isFinal(outcome)) {
+                            entries.remove(cacheKey, mine);
+                        }
+                    });
+                    return null;
+                }
+            } else if (existing.expiresAt <= now) {
+                entries.remove(cacheKey, existing);
+            } else {
+                hits.incrementAndGet();
+                return existing.result;
+            }
+        }
+    }
+
+    /**
+     * @param userId User ID
+     * @param key Idempotency key
+     * @return Future of the submission with this key, or null if none is cached
+     */
+    public CompletableFuture<BookingResult> find(int userId, String key) {
+        Entry entry = entries.get(cacheKey(userId, key));
+        if (entry == null || entry.expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.result;
+    }
+
+    /**
+     * What a repeat submission should see, given the first one's outcome
+     * @param first First submission's result
+     * @return DUPLICATE with the original booking ID if it booked, otherwise the result itself
+     */
+    public static BookingResult asRepeat(BookingResult first) {
+        return first.isBooked() ? BookingResult.duplicate(first.getBookingId()) : first;
+    }
+
+    /**
+     * Booked (or found to be a duplicate) is final; anything else may be retried
+     */
+    private static boolean isFinal(BookingResult result) {
+        return result != null
+                && (result.isBooked() || result.getStatus() == BookingResult.Status.DUPLICATE);
+    }
+
+    /**
+     * Drop entries past their TTL (also run periodically by BookingServer)
+     * @param now Current time in epoch millis
+     */
+    public void evictExpired(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+    }
+
+    private static String cacheKey(int userId, String key) {
+        return userId + ":" + key;
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotencyCache{" +
+                "entries=" + entries.size() +
+                ", hits=" + hits.get() +
+                ", misses=" + misses.get() +
+                '}';
+    }
+}
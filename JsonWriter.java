@@ -0,0 +1,149 @@
+/**
+ * JSON Writer
+ * File: JsonWriter.java
+ * Location: src/com/movieticket/server/JsonWriter.java
+ *
+ * Purpose: Build JSON response bodies without a JSON library
+ * Commas are inserted automatically; calls must be properly nested.
+ * <pre>
+ * new JsonWriter().beginObject().name("id").value(1).endObject().toString()
+ * </pre>
+ */
+
+package com.movieticket.server;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+
+public final class JsonWriter {
+
+    private final StringBuilder out = new StringBuilder(256);
+
+    // One entry per open object/array: true once it has a first element
+    private final Deque<Boolean> hasElements = new ArrayDeque<>();
+    private boolean afterName;
+
+    public JsonWriter beginObject() {
+        separate();
+        out.append('{');
+        hasElements.push(false);
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        hasElements.pop();
+        out.append('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        separate();
+        out.append('[');
+        hasElements.push(false);
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        hasElements.pop();
+        out.append(']');
+        return this;
+    }
+
+    public JsonWriter name(String name) {
+        separate();
+        quote(name);
+        out.append(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            out.append("null");
+        } else {
+            quote(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        separate();
+        out.append(value);
+        return this;
+    }
+
+    public JsonWriter value(double value) {
+        separate();
+        out.append(Double.isFinite(value) ? String.valueOf(value) : "null");
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        separate();
+        out.append(value);
+        return this;
+    }
+
+    /**
+     * Dates are written as epoch milliseconds
+     */
+    public JsonWriter value(Date value) {
+        if (value == null) {
+            separate();
+            out.append("null");
+            return this;
+        }
+        return value(value.getTime());
+    }
+
+    public JsonWriter value(int[] values) {
+        beginArray();
+        for (int v : values) {
+            value(v);
+        }
+        return endArray();
+    }
+
+    private void separate() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (!hasElements.isEmpty()) {
+            if (hasElements.peek()) {
+                out.append(',');
+            } else {
+                hasElements.pop();
+                hasElements.push(true);
+            }
+        }
+    }
+
+    private void quote(String s) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
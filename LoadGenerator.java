@@ -0,0 +1,412 @@
+/**
+ * Load Generator
+ * File: LoadGenerator.java
+ * Location: src/com/movieticket/bench/LoadGenerator.java
+ *
+ * Purpose: Drive simulated users through the whole booking funnel
+ * login -> browse movies -> wait in the WaitingRoom -> pick a show and hold seats ->
+ * pay and book -> view history,
+ * calling UserDAO, MovieDAO, WaitingRoom, SeatHoldManager, PaymentProcessor and BookingDAO
+ * directly, exactly as the frames do. Users arrive open-loop at a fixed rate
+ * (each on its own virtual thread), so a slow backend shows up as growing
+ * latency and in-flight users rather than as a lower request rate.
+ *
+ * Profiles:
+ *   steady  rate arrivals per second for the whole run
+ *   spike   on-sale: rate for the first third, then rate * spikeFactor for
+ *           spikeSeconds with most users going for the same movie, then rate again
+ *
+ * Reports throughput, per-step latency percentiles, booking outcomes
+ * (sold out / conflict / payment failed), pool saturation and an oversell
+ * check against the database.
+ *
+ * Usage: java com.movieticket.bench.LoadGenerator
+ * Settings (-Dmovieticket.load.*): users (200), rate (50), durationSeconds (60),
+ *   profile (steady), spikeFactor (10), spikeSeconds (10), hotShare (0.8),
+ *   maxTickets (4), thinkMillis (0), maxInFlight (10000),
+ *   h2 (false: use the configured database; true: in-memory BenchmarkDatabase),
+ *   createUsers (true: register missing load users "user<i>" / "pass<i>"),
+ *   waitingRoom (true: queue for admission before holding seats, as the HTTP API does)
+ */
+
+package com.movieticket.bench;
+
+import com.movieticket.dao.BookingDAO;
+import com.movieticket.dao.MovieDAO;
+import com.movieticket.dao.UserDAO;
+import com.movieticket.inventory.QueueStatus;
+import com.movieticket.inventory.SeatHold;
+import com.movieticket.inventory.SeatHoldManager;
+import com.movieticket.inventory.SeatInventory;
+import com.movieticket.inventory.WaitingRoom;
+import com.movieticket.model.Booking;
+import com.movieticket.model.BookingResult;
+import com.movieticket.model.Movie;
+import com.movieticket.model.PaymentRequest;
+import com.movieticket.model.Show;
+import com.movieticket.model.User;
+import com.movieticket.payment.PaymentProcessor;
+import com.movieticket.util.ConnectionPool;
+import com.movieticket.util.DaoMetric;
+import com.movieticket.util.DaoMetrics;
+import com.movieticket.util.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoadGenerator {
+
+    private static final double TICKET_PRICE = 250.0;
+
+    private final int users = Integer.getInteger("movieticket.load.users", 200);
+    private final double rate = Double.parseDouble(System.getProperty("movieticket.load.rate", "50"));
+    private final int durationSeconds = Integer.getInteger("movieticket.load.durationSeconds", 60);
+    private final boolean spike = "spike".equals(System.getProperty("movieticket.load.profile", "steady"));
+    private final double spikeFactor = Double.parseDouble(System.getProperty("movieticket.load.spikeFactor", "10"));
+    private final int spikeSeconds = Integer.getInteger("movieticket.load.spikeSeconds", 10);
+    private final double hotShare = Double.parseDouble(System.getProperty("movieticket.load.hotShare", "0.8"));
+    private final int maxTickets = Integer.getInteger("movieticket.load.maxTickets", 4);
+    private final long thinkMillis = Long.getLong("movieticket.load.thinkMillis", 0L);
+    private final int maxInFlight = Integer.getInteger("movieticket.load.maxInFlight", 10000);
+    private final boolean waitingRoom =
+            Boolean.parseBoolean(System.getProperty("movieticket.load.waitingRoom", "true"));
+
+    private final UserDAO userDAO = new UserDAO();
+    private final MovieDAO movieDAO = new MovieDAO();
+    private final BookingDAO bookingDAO = new BookingDAO();
+
+    // Per-step latency; also visible over JMX under dao=LoadGenerator
+    private final DaoMetric loginStep = DaoMetrics.register("LoadGenerator", "login");
+    private final DaoMetric browseStep = DaoMetrics.register("LoadGenerator", "browse");
+    private final DaoMetric queueStep = DaoMetrics.register("LoadGenerator", "queue");
+    private final DaoMetric holdStep = DaoMetrics.register("LoadGenerator", "selectShow");
+    private final DaoMetric payStep = DaoMetrics.register("LoadGenerator", "payAndBook");
+    private final DaoMetric historyStep = DaoMetrics.register("LoadGenerator", "history");
+    private final DaoMetric funnel = DaoMetrics.register("LoadGenerator", "funnel");
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder arrivals = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder loginFailures = new LongAdder();
+    private final LongAdder noShows = new LongAdder();
+    private final LongAdder holdRejected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Map<BookingResult.Status, LongAdder> outcomes = new EnumMap<>(BookingResult.Status.class);
+
+    // Pool saturation, sampled every second
+    private int peakActive;
+    private int peakWaiters;
+    private int saturatedSeconds;
+
+    private volatile int hotMovieId;
+
+    public LoadGenerator() {
+        for (BookingResult.Status status : BookingResult.Status.values()) {
+            outcomes.put(status, new LongAdder());
+        }
+    }
+
+    /**
+     * Step 1: Make sure the load users exist and the catalog is loaded
+     * Step 2: Issue arrivals on schedule, one virtual thread per simulated user
+     * Step 3: Wait for stragglers and report
+     */
+    public void run() throws InterruptedException {
+        // Step 1: Prepare
+        if (Boolean.parseBoolean(System.getProperty("movieticket.load.createUsers", "true"))) {
+            ensureUsers();
+        }
+        List<Movie> movies = movieDAO.getAllMovies();
+        if (movies.isEmpty()) {
+            System.err.println("No movies in the catalog; nothing to book");
+            return;
+        }
+        hotMovieId = movies.get(0).getMovieId();
+        DaoMetrics.resetAll();
+
+        System.out.println("Load: " + (spike ? "spike" : "steady") + " profile, " + rate + " users/s for "
+                + durationSeconds + " s" + (spike ? ", x" + spikeFactor + " for " + spikeSeconds + " s" : "")
+                + ", " + users + " accounts");
+
+        // Step 2: Arrivals
+        ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long nextArrival = start;
+        long nextReport = start + TimeUnit.SECONDS.toNanos(1);
+        while (true) {
+            long now = System.nanoTime();
+            if (now >= end) {
+                break;
+            }
+            if (now >= nextReport) {
+                progress(now - start);
+                nextReport += TimeUnit.SECONDS.toNanos(1);
+            }
+            if (now < nextArrival) {
+                TimeUnit.NANOSECONDS.sleep(Math.min(nextArrival - now, nextReport - now));
+                continue;
+            }
+            double elapsedSeconds = (nextArrival - start) / 1e9;
+            boolean inSpike = inSpike(elapsedSeconds);
+            nextArrival += (long) (1e9 / (inSpike ? rate * spikeFactor : rate));
+
+            arrivals.increment();
+            if (inFlight.get() >= maxInFlight) {
+                dropped.increment();
+                continue;
+            }
+            inFlight.incrementAndGet();
+            sessions.execute(() -> {
+                try {
+                    runSession(inSpike);
+                } catch (RuntimeException e) {
+                    errors.increment();
+                    e.printStackTrace();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+
+        // Step 3: Drain and report
+        sessions.shutdown();
+        while (!sessions.awaitTermination(1, TimeUnit.SECONDS)) {
+            progress(System.nanoTime() - start);
+        }
+        report((System.nanoTime() - start) / 1e9);
+    }
+
+    private boolean inSpike(double elapsedSeconds) {
+        double spikeStart = durationSeconds / 3.0;
+        return spike && elapsedSeconds >= spikeStart && elapsedSeconds < spikeStart + spikeSeconds;
+    }
+
+    /**
+     * One simulated user going through the funnel
+     */
+    private void runSession(boolean inSpike) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long sessionStart = System.nanoTime();
+        int index = 1 + random.nextInt(users);
+
+        // Login
+        long start = System.nanoTime();
+        User user = userDAO.validateLogin("user" + index, "pass" + index);
+        loginStep.stop(start);
+        if (user == null) {
+            loginFailures.increment();
+            return;
+        }
+        think();
+
+        // Browse: pick a movie (during an on-sale spike most users want the hot one)
+        start = System.nanoTime();
+        List<Movie> movies = movieDAO.getAllMovies();
+        Movie movie = inSpike && random.nextDouble() < hotShare
+            ? movieDAO.getMovieById(hotMovieId)
+            : movies.get(random.nextInt(movies.size()));
+        List<Show> shows = movie != null ? movieDAO.getNextShows(movie.getMovieId(), 10) : null;
+        browseStep.stop(start);
+        if (shows == null || shows.isEmpty()) {
+            noShows.increment();
+            return;
+        }
+        think();
+
+        // Wait to be admitted (polling, as an HTTP client would)
+        if (waitingRoom && !queue()) {
+            return;
+        }
+
+        // Select a show and hold seats
+        start = System.nanoTime();
+        Show show = inSpike ? shows.get(0) : shows.get(random.nextInt(shows.size()));
+        int tickets = 1 + random.nextInt(maxTickets);
+        SeatHold hold = SeatHoldManager.getInstance().hold(show.getShowId(), tickets);
+        holdStep.stop(start);
+        if (hold == null) {
+            holdRejected.increment();
+            return;
+        }
+        think();
+
+        // Pay and book, as PaymentFrame does
+        start = System.nanoTime();
+        BookingResult result;
+        if (!SeatHoldManager.getInstance().claim(hold)) {
+            result = BookingResult.conflict("Hold expired");
+        } else {
+            int[] seats = hold.getSeats();
+            double amount = tickets * TICKET_PRICE;
+            Booking booking = new Booking(user.getUserId(), movie.getMovieId(), movie.getMovieName(),
+                    show.getTheaterName(), show.getShowTime(), tickets, amount);
+            booking.setShowId(show.getShowId());
+            booking.setIdempotencyKey(hold.getPurchaseKey()); // unique per run, unlike the hold ID
+            PaymentRequest request = new PaymentRequest("LOAD" + hold.getHoldId(), user.getUserId(),
+                    amount, "Credit Card", "4111111111111111");
+            result = PaymentProcessor.getInstance().checkout(request, booking, seats).join();
+            if (!result.isBooked()) {
+                SeatInventory.getInstance().release(show.getShowId(), seats);
+            }
+        }
+        payStep.stop(start);
+        outcomes.get(result.getStatus()).increment();
+        think();
+
+        // Booking history
+        start = System.nanoTime();
+        try {
+            historyStep.rows(bookingDAO.getUserBookingsPage(user.getUserId(), null, 20).size());
+        } catch (SQLException e) {
+            historyStep.error();
+        }
+        historyStep.stop(start);
+
+        funnel.stop(sessionStart);
+        completed.increment();
+    }
+
+    /**
+     * Join the waiting room and poll until admitted
+     * @return false if interrupted while waiting
+     */
+    private boolean queue() {
+        long start = System.nanoTime();
+        WaitingRoom room = WaitingRoom.getInstance();
+        QueueStatus status = room.join();
+        while (!status.isAdmitted()) {
+            try {
+                Thread.sleep(Math.min(1000, Math.max(100, status.getEstimatedWaitSeconds() * 250)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                room.leave(status.getToken());
+                return false;
+            }
+            status = room.status(status.getToken());
+        }
+        queueStep.stop(start);
+        return true;
+    }
+
+    private void think() {
+        if (thinkMillis > 0) {
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextLong(thinkMillis / 2, thinkMillis * 3 / 2 + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Register load users that do not exist yet
+     */
+    private void ensureUsers() {
+        int created = 0;
+        for (int i = 1; i <= users; i++) {
+            if (!userDAO.isUsernameExists("user" + i)
+                    && userDAO.registerUser(new User("user" + i, "pass" + i,
+                                                     "user" + i + "@load.test", "90000" + String.format("%05d", i)))) {
+                created++;
+            }
+        }
+        if (created > 0) {
+            System.out.println("Registered " + created + " load users");
+        }
+    }
+
+    private void progress(long elapsedNanos) {
+        ConnectionPool.Stats pool = DatabaseConnection.getPoolStats();
+        if (pool != null) {
+            peakActive = Math.max(peakActive, pool.getActive());
+            peakWaiters = Math.max(peakWaiters, pool.getWaiters());
+            if (pool.getActive() >= pool.getMaxSize() && pool.getWaiters() > 0) {
+                saturatedSeconds++;
+            }
+        }
+        System.out.println(String.format("t=%3ds arrivals=%d completed=%d inFlight=%d booked=%d pool=%s",
+                TimeUnit.NANOSECONDS.toSeconds(elapsedNanos), arrivals.sum(), completed.sum(), inFlight.get(),
+                outcomes.get(BookingResult.Status.BOOKED).sum(),
+                pool != null ? pool.getActive() + "/" + pool.getMaxSize() + " waiters=" + pool.getWaiters() : "-"));
+    }
+
+    private void report(double seconds) {
+        System.out.println();
+        System.out.println("=== Load test report ===");
+        System.out.println(String.format("Duration: %.1f s, arrivals: %d, completed funnels: %d (%.1f/s), dropped: %d",
+                seconds, arrivals.sum(), completed.sum(), completed.sum() / seconds, dropped.sum()));
+        long booked = outcomes.get(BookingResult.Status.BOOKED).sum();
+        System.out.println(String.format("Bookings: %d (%.1f/s)", booked, booked / seconds));
+        System.out.println("Outcomes: login failed=" + loginFailures.sum()
+                + ", no shows=" + noShows.sum()
+                + ", no seats to hold=" + holdRejected.sum()
+                + ", sold out=" + outcomes.get(BookingResult.Status.SOLD_OUT).sum()
+                + ", conflict=" + outcomes.get(BookingResult.Status.CONFLICT).sum()
+                + ", payment failed=" + outcomes.get(BookingResult.Status.PAYMENT_FAILED).sum()
+                + ", duplicate=" + outcomes.get(BookingResult.Status.DUPLICATE).sum()
+                + ", failed=" + outcomes.get(BookingResult.Status.FAILED).sum()
+                + ", errors=" + errors.sum());
+
+        System.out.println("Step latency:");
+        for (DaoMetric step : new DaoMetric[] { loginStep, browseStep, queueStep, holdStep, payStep, historyStep, funnel }) {
+            System.out.println("  " + step);
+        }
+
+        if (waitingRoom) {
+            System.out.println("Waiting room: " + WaitingRoom.getInstance());
+        }
+
+        ConnectionPool.Stats pool = DatabaseConnection.getPoolStats();
+        System.out.println("Pool: peak active=" + peakActive + ", peak waiters=" + peakWaiters
+                + ", seconds saturated=" + saturatedSeconds);
+        if (pool != null) {
+            System.out.println("  " + pool);
+        }
+
+        long oversold = countOversoldShows();
+        System.out.println("Oversold shows: " + (oversold < 0 ? "check failed" : String.valueOf(oversold)));
+        System.out.println();
+        DaoMetrics.dump(System.out);
+    }
+
+    /**
+     * Shows whose confirmed tickets exceed capacity, or whose counter went negative
+     * @return Count, or -1 if the query failed
+     */
+    private static long countOversoldShows() {
+        String sql = "SELECT COUNT(*) FROM shows s " +
+                    "LEFT JOIN (SELECT show_id, SUM(number_of_tickets) AS sold FROM bookings " +
+                    "           WHERE status = 'CONFIRMED' GROUP BY show_id) b ON b.show_id = s.show_id " +
+                    "WHERE s.available_seats < 0 OR COALESCE(b.sold, 0) > s.total_seats";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (Boolean.getBoolean("movieticket.load.h2")) {
+            BenchmarkDatabase.init();
+        }
+        new LoadGenerator().run();
+        DatabaseConnection.shutdown();
+        System.exit(0);
+    }
+}
@@ -10,6 +10,7 @@ package com.movieticket.ui;
 
 import com.movieticket.dao.UserDAO;
 import com.movieticket.model.User;
+import com.movieticket.util.DaoExecutor;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
@@ -165,10 +166,25 @@ public class LoginFrame extends JFrame {
             return;
         }
         
-        // Step 3: Verify credentials
-        User user = userDAO.validateLogin(username, password);
+        // Step 3: Verify credentials off the EDT
+        btnLogin.setEnabled(false);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
         
-        // Step 4: Handle result
+        userDAO.validateLoginAsync(username, password)
+            .whenCompleteAsync((user, error) -> {
+                btnLogin.setEnabled(true);
+                setCursor(Cursor.getDefaultCursor());
+                if (error != null) {
+                    error.printStackTrace();
+                }
+                onLoginResult(user);
+            }, DaoExecutor.EDT);
+    }
+    
+    /**
+     * Step 4: Open movie selection frame if successful (runs on EDT)
+     */
+    private void onLoginResult(User user) {
         if (user != null) {
             JOptionPane.showMessageDialog(this,
                 "Login Successful! Welcome " + user.getUsername(),
@@ -0,0 +1,286 @@
+/**
+ * Movie Catalog Snapshot
+ * File: MovieCatalog.java
+ * Location: src/com/movieticket/dao/MovieCatalog.java
+ *
+ * Purpose: Immutable in-memory view of movies -> theaters -> show times
+ * A new snapshot is built on every refresh and swapped in by MovieDAO,
+ * so lookups never lock and never allocate. Shows are also indexed by start
+ * time (ShowTimeline) overall, per movie and per theater, and movie names
+ * by MovieSearchIndex for type-ahead search.
+ */
+
+package com.movieticket.dao;
+
+import com.movieticket.model.Movie;
+import com.movieticket.model.Show;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public final class MovieCatalog {
+
+    public static final MovieCatalog EMPTY =
+            new MovieCatalog(new HashMap<>(), new HashMap<>(), MovieSearchIndex.EMPTY);
+
+    private final List<Movie> movies;        // active movies, sorted by name
+    private final int[] movieIds;            // sorted, parallel to entries
+    private final Entry[] entries;
+    private final Map<Integer, Show> showById;
+    private final ShowTimeline timeline;
+    private final Map<Integer, ShowTimeline> timelineByMovie;
+    private final Map<Integer, ShowTimeline> timelineByTheater;
+    private final MovieSearchIndex searchIndex;
+
+    // Source data kept so the next refresh only has to apply a delta
+    private final Map<Integer, Movie> movieById;
+    private final Map<Integer, Map<String, List<Show>>> showsByMovie;
+
+    /**
+     * Shows for a single movie
+     */
+    private static final class Entry {
+        final Movie movie;
+        final String[] theaters;
+        final List<String> theaterList;
+        final List<List<String>> showTimes; // parallel to theaters
+        final List<List<Show>> shows;       // parallel to theaters
+
+        Entry(Movie movie, Map<String, List<Show>> showsByTheater) {
+            this.movie = movie;
+            this.theaters = showsByTheater.keySet().toArray(new String[0]);
+            this.theaterList = Collections.unmodifiableList(Arrays.asList(theaters.clone()));
+            List<List<String>> times = new ArrayList<>(theaters.length);
+            List<List<Show>> theaterShows = new ArrayList<>(theaters.length);
+            for (String theater : theaters) {
+                List<Show> list = showsByTheater.get(theater);
+                List<String> timeList = new ArrayList<>(list.size());
+                for (Show show : list) {
+                    timeList.add(show.getShowTime());
+                }
+                times.add(Collections.unmodifiableList(timeList));
+                theaterShows.add(Collections.unmodifiableList(new ArrayList<>(list)));
+            }
+            this.showTimes = times;
+            this.shows = theaterShows;
+        }
+    }
+
+    private MovieCatalog(Map<Integer, Movie> movieById,
+                         Map<Integer, Map<String, List<Show>>> showsByMovie,
+                         MovieSearchIndex searchIndex) {
+        this.movieById = movieById;
+        this.showsByMovie = showsByMovie;
+        this.searchIndex = searchIndex;
+
+        List<Movie> sorted = new ArrayList<>(movieById.values());
+        sorted.sort(Comparator.comparing(Movie::getMovieName, String.CASE_INSENSITIVE_ORDER)
+                .thenComparingInt(Movie::getMovieId));
+        this.movies = Collections.unmodifiableList(sorted);
+
+        this.movieIds = movieById.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        this.entries = new Entry[movieIds.length];
+        for (int i = 0; i < movieIds.length; i++) {
+            Map<String, List<Show>> shows = showsByMovie.get(movieIds[i]);
+            entries[i] = new Entry(movieById.get(movieIds[i]),
+                    shows != null ? shows : Collections.emptyMap());
+        }
+
+        this.showById = new HashMap<>();
+        for (Entry entry : entries) {
+            for (List<Show> theaterShows : entry.shows) {
+                for (Show show : theaterShows) {
+                    showById.put(show.getShowId(), show);
+                }
+            }
+        }
+
+        Map<Integer, List<Show>> showsByTheater = new HashMap<>();
+        this.timelineByMovie = new HashMap<>();
+        for (Entry entry : entries) {
+            List<Show> movieShows = new ArrayList<>();
+            for (List<Show> theaterShows : entry.shows) {
+                movieShows.addAll(theaterShows);
+                for (Show show : theaterShows) {
+                    showsByTheater.computeIfAbsent(show.getTheaterId(), k -> new ArrayList<>()).add(show);
+                }
+            }
+            timelineByMovie.put(entry.movie.getMovieId(), ShowTimeline.of(movieShows));
+        }
+        this.timelineByTheater = new HashMap<>();
+        for (Map.Entry<Integer, List<Show>> theater : showsByTheater.entrySet()) {
+            timelineByTheater.put(theater.getKey(), ShowTimeline.of(theater.getValue()));
+        }
+        this.timeline = ShowTimeline.of(new ArrayList<>(showById.values()));
+    }
+
+    /**
+     * Build a snapshot from a full load
+     * @param movies Active movies
+     * @param shows Shows of active movies, in display order
+     * @return new MovieCatalog
+     */
+    public static MovieCatalog of(List<Movie> movies, List<Show> shows) {
+        Map<Integer, Movie> movieById = new HashMap<>();
+        for (Movie movie : movies) {
+            movieById.put(movie.getMovieId(), movie);
+        }
+        Map<Integer, Map<String, List<Show>>> showsByMovie = new HashMap<>();
+        addShows(showsByMovie, shows);
+        return new MovieCatalog(movieById, showsByMovie, MovieSearchIndex.of(movieById.values()));
+    }
+
+    /**
+     * Build the next snapshot by applying a delta to this one
+     * @param changedMovies Movies whose row changed (inactive ones are removed)
+     * @param reloadedMovieIds Movies whose shows were re-read in full
+     * @param shows Complete show rows for reloadedMovieIds
+     * @return new MovieCatalog; this snapshot is left untouched
+     */
+    public MovieCatalog withChanges(List<Movie> changedMovies, List<Integer> reloadedMovieIds,
+                                    List<Show> shows) {
+        Map<Integer, Movie> nextMovies = new HashMap<>(movieById);
+        List<Integer> changedIds = new ArrayList<>(changedMovies.size());
+        List<Movie> activeChanged = new ArrayList<>(changedMovies.size());
+        for (Movie movie : changedMovies) {
+            changedIds.add(movie.getMovieId());
+            if (movie.isActive()) {
+                nextMovies.put(movie.getMovieId(), movie);
+                activeChanged.add(movie);
+            } else {
+                nextMovies.remove(movie.getMovieId());
+            }
+        }
+
+        Map<Integer, Map<String, List<Show>>> nextShows = new HashMap<>(showsByMovie);
+        for (Integer movieId : reloadedMovieIds) {
+            nextShows.remove(movieId);
+        }
+        addShows(nextShows, shows);
+        nextShows.keySet().retainAll(nextMovies.keySet());
+
+        // Show changes do not affect names, so only changed movies are re-indexed
+        return new MovieCatalog(nextMovies, nextShows, searchIndex.withChanges(changedIds, activeChanged));
+    }
+
+    private static void addShows(Map<Integer, Map<String, List<Show>>> showsByMovie,
+                                 List<Show> shows) {
+        for (Show show : shows) {
+            showsByMovie.computeIfAbsent(show.getMovieId(), k -> new TreeMap<>())
+                    .computeIfAbsent(show.getTheaterName(), k -> new ArrayList<>())
+                    .add(show);
+        }
+    }
+
+    /**
+     * @return Active movies sorted by name (unmodifiable)
+     */
+    public List<Movie> getMovies() {
+        return movies;
+    }
+
+    /**
+     * Type-ahead search over movie names (see MovieSearchIndex)
+     * @param query Text typed so far
+     * @param limit Maximum number of results
+     * @return Best matches first (empty for a blank query)
+     */
+    public List<Movie> searchMovies(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * @param movieId Movie ID
+     * @return Movie or null if not in the catalog
+     */
+    public Movie getMovie(int movieId) {
+        Entry entry = find(movieId);
+        return entry != null ? entry.movie : null;
+    }
+
+    /**
+     * @param movieId Movie ID
+     * @return Theaters showing the movie, sorted by name (unmodifiable)
+     */
+    public List<String> getTheaters(int movieId) {
+        Entry entry = find(movieId);
+        return entry != null ? entry.theaterList : Collections.emptyList();
+    }
+
+    /**
+     * @param movieId Movie ID
+     * @param theaterName Theater name
+     * @return Show times for the movie at the theater (unmodifiable)
+     */
+    public List<String> getShowTimes(int movieId, String theaterName) {
+        Entry entry = find(movieId);
+        if (entry != null) {
+            String[] theaters = entry.theaters;
+            for (int i = 0; i < theaters.length; i++) {
+                if (theaters[i].equals(theaterName)) {
+                    return entry.showTimes.get(i);
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * @param movieId Movie ID
+     * @param theaterName Theater name
+     * @return Shows for the movie at the theater (unmodifiable)
+     */
+    public List<Show> getShows(int movieId, String theaterName) {
+        Entry entry = find(movieId);
+        if (entry != null) {
+            String[] theaters = entry.theaters;
+            for (int i = 0; i < theaters.length; i++) {
+                if (theaters[i].equals(theaterName)) {
+                    return entry.shows.get(i);
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * @param showId Show ID
+     * @return Show or null if not in the catalog (e.g. its movie is inactive)
+     */
+    public Show getShow(int showId) {
+        return showById.get(showId);
+    }
+
+    /**
+     * @return All shows ordered by start time
+     */
+    public ShowTimeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * @param movieId Movie ID
+     * @return Shows of the movie ordered by start time
+     */
+    public ShowTimeline getMovieTimeline(int movieId) {
+        return timelineByMovie.getOrDefault(movieId, ShowTimeline.EMPTY);
+    }
+
+    /**
+     * @param theaterId Theater ID
+     * @return Shows at the theater ordered by start time
+     */
+    public ShowTimeline getTheaterTimeline(int theaterId) {
+        return timelineByTheater.getOrDefault(theaterId, ShowTimeline.EMPTY);
+    }
+
+    private Entry find(int movieId) {
+        int index = Arrays.binarySearch(movieIds, movieId);
+        return index >= 0 ? entries[index] : null;
+    }
+}
@@ -0,0 +1,552 @@
+/**
+ * Movie Data Access Object
+ * File: MovieDAO.java
+ * Location: src/com/movieticket/dao/MovieDAO.java
+ *
+ * Purpose: Serve movies, theaters and show timings from an in-memory catalog
+ * Methods: Get all movies, Get theaters for movie, Get show timings, Get showtime
+ *          grid, Refresh catalog
+ *
+ * The catalog is loaded once, held as an immutable MovieCatalog snapshot and
+ * swapped atomically on refresh. Reads never touch the database after the
+ * first load. Refresh only re-reads rows whose updated_at moved forward, with
+ * a periodic full reload to pick up deleted shows.
+ *
+ * Bookings and cancellations change available_seats without moving updated_at,
+ * so seat availability in the catalog is only as fresh as the last full reload;
+ * the booking screen uses getShowtimeGrid instead: every theater, show time
+ * and live seat count of a movie in one query, cached for
+ * movieticket.catalog.gridSeconds (10). prefetchShowtimeGrids loads the grids
+ * of several movies in one query before they are selected.
+ */
+
+package com.movieticket.dao;
+
+import com.movieticket.model.Movie;
+import com.movieticket.model.Show;
+import com.movieticket.util.DaoExecutor;
+import com.movieticket.util.DaoMetric;
+import com.movieticket.util.DaoMetrics;
+import com.movieticket.util.DatabaseConnection;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class MovieDAO {
+
+    // Refresh settings
+    private static final long REFRESH_INTERVAL_SECONDS = Long.getLong("movieticket.catalog.refreshSeconds", 30L);
+    private static final int FULL_RELOAD_EVERY = Integer.getInteger("movieticket.catalog.fullReloadEvery", 20);
+    private static final long GRID_TTL_MILLIS = Long.getLong("movieticket.catalog.gridSeconds", 10L) * 1000;
+    private static final int GRID_CACHE_SIZE = Integer.getInteger("movieticket.catalog.gridCacheSize", 256);
+
+    // Reads are served from memory; only the refresh and showtime grids touch the database
+    private static final DaoMetric REFRESH = DaoMetrics.register("MovieDAO", "refresh");
+    private static final DaoMetric LOAD_GRIDS = DaoMetrics.register("MovieDAO", "loadShowtimeGrids");
+
+    private static final RowMapper<Movie> MOVIE_MAPPER = new RowMapper<>(
+            new String[] { "movie_id", "movie_name", "genre", "duration", "language",
+                           "description", "is_active", "created_at" },
+            (rs, col) -> new Movie(
+                rs.getInt(col[0]),
+                rs.getString(col[1]),
+                rs.getString(col[2]),
+                rs.getInt(col[3]),
+                rs.getString(col[4]),
+                rs.getString(col[5]),
+                rs.getBoolean(col[6]),
+                rs.getTimestamp(col[7])
+            ));
+    private static final RowMapper<Show> SHOW_MAPPER = new RowMapper<>(
+            new String[] { "s.show_id", "s.movie_id", "s.theater_id", "t.theater_name",
+                           "s.show_time", "s.show_start", "s.available_seats" },
+            (rs, col) -> new Show(
+                rs.getInt(col[0]),
+                rs.getInt(col[1]),
+                rs.getInt(col[2]),
+                rs.getString(col[3]),
+                rs.getString(col[4]),
+                rs.getTimestamp(col[5]),
+                rs.getInt(col[6])
+            ));
+    private static final String MOVIE_COLUMNS = MOVIE_MAPPER.getColumns();
+    private static final String SHOW_COLUMNS = SHOW_MAPPER.getColumns();
+
+    // Current snapshot, shared by every MovieDAO instance
+    private static volatile MovieCatalog catalog;
+    private static Timestamp watermark;
+    private static int refreshesSinceFullLoad;
+    private static ScheduledExecutorService refresher;
+
+    // Recently fetched showtime grids by movie ID
+    private static final Map<Integer, ShowtimeGrid> grids = new ConcurrentHashMap<>();
+    private static final Set<Integer> gridsLoading = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Get all active movies
+     * @return List of Movie objects sorted by name (read-only, shared)
+     */
+    public List<Movie> getAllMovies() {
+        return getCatalog().getMovies();
+    }
+
+    /**
+     * Search active movies by name as the user types
+     * @param query Text typed so far (case and accents are ignored)
+     * @param limit Maximum number of results
+     * @return Best matches first (read-only)
+     */
+    public List<Movie> searchMovies(String query, int limit) {
+        return getCatalog().searchMovies(query, limit);
+    }
+
+    /**
+     * Get movie by ID
+     * @param movieId Movie ID
+     * @return Movie object or null
+     */
+    public Movie getMovieById(int movieId) {
+        return getCatalog().getMovie(movieId);
+    }
+
+    /**
+     * Get theaters showing a movie
+     * @param movieId Movie ID
+     * @return List of theater names (read-only, shared)
+     */
+    public List<String> getTheatersForMovie(int movieId) {
+        return getCatalog().getTheaters(movieId);
+    }
+
+    /**
+     * Get show timings for a movie at a theater
+     * @param movieId Movie ID
+     * @param theaterName Theater name
+     * @return List of show times (read-only, shared)
+     */
+    public List<String> getShowTimings(int movieId, String theaterName) {
+        return getCatalog().getShowTimes(movieId, theaterName);
+    }
+
+    /**
+     * Find the show for a movie, theater and show time
+     * @param movieId Movie ID
+     * @param theaterName Theater name
+     * @param showTime Show time
+     * @return Show object or null
+     */
+    public Show getShow(int movieId, String theaterName, String showTime) {
+        for (Show show : getCatalog().getShows(movieId, theaterName)) {
+            if (show.getShowTime().equals(showTime)) {
+                return show;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get a show by ID
+     * @param showId Show ID
+     * @return Show object or null if not in the catalog
+     */
+    public Show getShowById(int showId) {
+        return getCatalog().getShow(showId);
+    }
+
+    /**
+     * Get the next shows of a movie that have not started yet
+     * @param movieId Movie ID
+     * @param limit Maximum number of shows
+     * @return Shows in start order (read-only)
+     */
+    public List<Show> getNextShows(int movieId, int limit) {
+        return getCatalog().getMovieTimeline(movieId).next(System.currentTimeMillis(), limit);
+    }
+
+    /**
+     * Get the next shows at a theater that have not started yet
+     * @param theaterId Theater ID
+     * @param limit Maximum number of shows
+     * @return Shows in start order (read-only)
+     */
+    public List<Show> getNextShowsAtTheater(int theaterId, int limit) {
+        return getCatalog().getTheaterTimeline(theaterId).next(System.currentTimeMillis(), limit);
+    }
+
+    /**
+     * Get every show starting between now and now + hours
+     * @param hours Window length in hours
+     * @return Shows in start order (read-only)
+     */
+    public List<Show> getShowsStartingWithin(int hours) {
+        long now = System.currentTimeMillis();
+        return getCatalog().getTimeline().between(now, now + TimeUnit.HOURS.toMillis(hours));
+    }
+
+    /**
+     * Get every theater, show time and current seat count of a movie
+     * One query unless a grid fetched within gridSeconds is cached
+     * @param movieId Movie ID
+     * @return ShowtimeGrid (from the catalog, not live, if the database is unreachable)
+     */
+    public ShowtimeGrid getShowtimeGrid(int movieId) {
+        ShowtimeGrid grid = grids.get(movieId);
+        if (isFresh(grid)) {
+            return grid;
+        }
+        grid = loadShowtimeGrids(List.of(movieId)).get(movieId);
+        return grid != null ? grid : ShowtimeGrid.fromCatalog(getCatalog(), movieId);
+    }
+
+    /**
+     * Load the grids of movies the user is likely to pick next, in one query
+     * Returns at once; movies with a fresh grid or a load in flight are skipped
+     * @param movieIds Movie IDs
+     */
+    public void prefetchShowtimeGrids(Collection<Integer> movieIds) {
+        List<Integer> missing = new ArrayList<>();
+        for (Integer movieId : movieIds) {
+            if (!isFresh(grids.get(movieId)) && gridsLoading.add(movieId)) {
+                missing.add(movieId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        DaoExecutor.supply(() -> loadShowtimeGrids(missing))
+            .whenComplete((loaded, error) -> gridsLoading.removeAll(missing));
+    }
+
+    // ----------------------------------------------------------------
+    // Async variants: run on DaoExecutor, never on the Swing EDT
+    // (they only wait on the database while the catalog is first loading)
+    // ----------------------------------------------------------------
+
+    public CompletableFuture<List<Movie>> getAllMoviesAsync() {
+        return DaoExecutor.supply(this::getAllMovies);
+    }
+
+    public CompletableFuture<List<String>> getTheatersForMovieAsync(int movieId) {
+        return DaoExecutor.supply(() -> getTheatersForMovie(movieId));
+    }
+
+    public CompletableFuture<List<String>> getShowTimingsAsync(int movieId, String theaterName) {
+        return DaoExecutor.supply(() -> getShowTimings(movieId, theaterName));
+    }
+
+    public CompletableFuture<ShowtimeGrid> getShowtimeGridAsync(int movieId) {
+        return DaoExecutor.supply(() -> getShowtimeGrid(movieId));
+    }
+
+    public CompletableFuture<Show> getShowAsync(int movieId, String theaterName, String showTime) {
+        return DaoExecutor.supply(() -> getShow(movieId, theaterName, showTime));
+    }
+
+    /**
+     * Get the current catalog snapshot, loading it on first use
+     * @return MovieCatalog (empty if the database is unreachable)
+     */
+    public static MovieCatalog getCatalog() {
+        MovieCatalog current = catalog;
+        if (current == null) {
+            current = preload();
+        }
+        return current;
+    }
+
+    /**
+     * Get the current catalog snapshot without ever loading it
+     * For callers on the EDT that can fall back when the catalog is not ready
+     * @return MovieCatalog (empty if not loaded yet)
+     */
+    public static MovieCatalog getLoadedCatalog() {
+        MovieCatalog current = catalog;
+        return current != null ? current : MovieCatalog.EMPTY;
+    }
+
+    /**
+     * Load the catalog and start background refresh
+     * Call once at startup so the first screen does not wait on the database
+     * @return Loaded MovieCatalog
+     */
+    public static synchronized MovieCatalog preload() {
+        if (catalog == null) {
+            if (!refresh()) {
+                return MovieCatalog.EMPTY; // Retried on next access
+            }
+            if (REFRESH_INTERVAL_SECONDS > 0) {
+                refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "movie-catalog-refresh");
+                    t.setDaemon(true);
+                    return t;
+                });
+                refresher.scheduleWithFixedDelay(MovieDAO::refresh,
+                        REFRESH_INTERVAL_SECONDS, REFRESH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * Refresh the catalog from the database
+     * Applies only changed rows unless a full reload is due
+     * @return true if a snapshot is now available
+     */
+    public static synchronized boolean refresh() {
+        long start = System.nanoTime();
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+
+            // Read the high-water mark first so nothing changed during the refresh is missed
+            Timestamp nextWatermark = readWatermark(conn);
+
+            MovieCatalog previous = catalog;
+            if (catalog == null || watermark == null || ++refreshesSinceFullLoad >= FULL_RELOAD_EVERY) {
+                catalog = loadAll(conn);
+                refreshesSinceFullLoad = 0;
+            } else {
+                catalog = loadChanges(conn, catalog, watermark);
+            }
+            watermark = nextWatermark;
+
+            // Show counts in movie_show_stats follow added, deleted and moved shows
+            // (recounted in the background, only in the process running the updater)
+            SummaryUpdater updater = SummaryUpdater.getInstance();
+            if (updater != null && previous != null && previous != catalog) {
+                updater.showsChanged(moviesWithChangedShows(previous, catalog));
+            }
+            return true;
+
+        } catch (SQLException e) {
+            REFRESH.error();
+            e.printStackTrace();
+            return catalog != null;
+        } finally {
+            DatabaseConnection.closeConnection(conn);
+            REFRESH.stop(start);
+        }
+    }
+
+    /**
+     * Step 1: Load all active movies
+     * Step 2: Load all shows of active movies
+     */
+    private static MovieCatalog loadAll(Connection conn) throws SQLException {
+        List<Movie> movies;
+        String movieSql = "SELECT " + MOVIE_COLUMNS + " FROM movies WHERE is_active = TRUE";
+        try (PreparedStatement pstmt = conn.prepareStatement(movieSql);
+             ResultSet rs = pstmt.executeQuery()) {
+            movies = MOVIE_MAPPER.mapAll(rs);
+        }
+
+        String showSql = "SELECT " + SHOW_COLUMNS + " FROM shows s " +
+                        "JOIN theaters t ON t.theater_id = s.theater_id " +
+                        "JOIN movies m ON m.movie_id = s.movie_id " +
+                        "WHERE m.is_active = TRUE ORDER BY s.movie_id, s.show_start, s.show_id";
+        List<Show> shows;
+        try (PreparedStatement pstmt = conn.prepareStatement(showSql);
+             ResultSet rs = pstmt.executeQuery()) {
+            shows = SHOW_MAPPER.mapAll(rs);
+        }
+
+        return MovieCatalog.of(movies, shows);
+    }
+
+    /**
+     * Step 1: Find movies changed since the watermark
+     * Step 2: Find movies whose shows or theaters changed since the watermark
+     * Step 3: Re-read the shows of those movies only
+     */
+    private static MovieCatalog loadChanges(Connection conn, MovieCatalog current, Timestamp since)
+            throws SQLException {
+        List<Movie> changedMovies;
+        Set<Integer> affected = new LinkedHashSet<>();
+
+        // >= because updated_at has one-second resolution; re-applying a row is harmless
+        String movieSql = "SELECT " + MOVIE_COLUMNS + " FROM movies WHERE updated_at >= ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(movieSql)) {
+            pstmt.setTimestamp(1, since);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                changedMovies = MOVIE_MAPPER.mapAll(rs);
+            }
+            for (Movie movie : changedMovies) {
+                affected.add(movie.getMovieId());
+            }
+        }
+
+        // No DISTINCT: affected already drops duplicates, and the plan stays a covered
+        // range on idx_show_updated instead of adding a temporary table
+        String changedShowsSql = "SELECT movie_id FROM shows WHERE updated_at >= ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(changedShowsSql)) {
+            pstmt.setTimestamp(1, since);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    affected.add(rs.getInt(1));
+                }
+            }
+        }
+
+        // A renamed theater changes the shows of every movie playing there
+        String changedTheatersSql = "SELECT s.movie_id FROM shows s " +
+                                   "JOIN theaters t ON t.theater_id = s.theater_id WHERE t.updated_at >= ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(changedTheatersSql)) {
+            pstmt.setTimestamp(1, since);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    affected.add(rs.getInt(1));
+                }
+            }
+        }
+
+        if (affected.isEmpty()) {
+            return current;
+        }
+
+        StringBuilder showSql = new StringBuilder("SELECT " + SHOW_COLUMNS + " FROM shows s " +
+                "JOIN theaters t ON t.theater_id = s.theater_id WHERE s.movie_id IN (");
+        for (int i = 0; i < affected.size(); i++) {
+            showSql.append(i == 0 ? "?" : ", ?");
+        }
+        showSql.append(") ORDER BY s.movie_id, s.show_start, s.show_id");
+
+        List<Show> shows;
+        try (PreparedStatement pstmt = conn.prepareStatement(showSql.toString())) {
+            int index = 1;
+            for (Integer movieId : affected) {
+                pstmt.setInt(index++, movieId);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                shows = SHOW_MAPPER.mapAll(rs);
+            }
+        }
+
+        return current.withChanges(changedMovies, new ArrayList<>(affected), shows);
+    }
+
+    /**
+     * Movies whose set of show IDs differs between two snapshots
+     * Edits to a show (time, seats) keep its ID and are not reported
+     */
+    private static Set<Integer> moviesWithChangedShows(MovieCatalog before, MovieCatalog after) {
+        Set<Integer> movieIds = new TreeSet<>();
+        for (Movie movie : before.getMovies()) {
+            movieIds.add(movie.getMovieId());
+        }
+        for (Movie movie : after.getMovies()) {
+            movieIds.add(movie.getMovieId());
+        }
+        Set<Integer> changed = new TreeSet<>();
+        for (Integer movieId : movieIds) {
+            if (!showIds(before, movieId).equals(showIds(after, movieId))) {
+                changed.add(movieId);
+            }
+        }
+        return changed;
+    }
+
+    private static Set<Integer> showIds(MovieCatalog catalog, int movieId) {
+        Set<Integer> ids = new HashSet<>();
+        for (String theater : catalog.getTheaters(movieId)) {
+            for (Show show : catalog.getShows(movieId, theater)) {
+                ids.add(show.getShowId());
+            }
+        }
+        return ids;
+    }
+
+    private static boolean isFresh(ShowtimeGrid grid) {
+        return grid != null && grid.isLive()
+                && System.currentTimeMillis() - grid.getFetchedAt() < GRID_TTL_MILLIS;
+    }
+
+    /**
+     * Step 1: Read the shows of all requested movies in one query
+     * Step 2: Build one grid per movie (empty if it has no shows) and cache it
+     * @param movieIds Movie IDs
+     * @return Grids by movie ID (empty if the query failed)
+     */
+    private static Map<Integer, ShowtimeGrid> loadShowtimeGrids(Collection<Integer> movieIds) {
+        long start = System.nanoTime();
+        Connection conn = null;
+        Map<Integer, ShowtimeGrid> loaded = new HashMap<>();
+
+        try {
+            // Step 1: Same covered order as the catalog refresh (idx_movie_start)
+            StringBuilder sql = new StringBuilder("SELECT " + SHOW_COLUMNS + " FROM shows s " +
+                    "JOIN theaters t ON t.theater_id = s.theater_id WHERE s.movie_id IN (");
+            for (int i = 0; i < movieIds.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(") ORDER BY s.movie_id, s.show_start, s.show_id");
+
+            conn = DatabaseConnection.getConnection();
+            List<Show> shows;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+                int index = 1;
+                for (Integer movieId : movieIds) {
+                    pstmt.setInt(index++, movieId);
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    shows = SHOW_MAPPER.mapAll(rs);
+                }
+            }
+            LOAD_GRIDS.rows(shows.size());
+
+            // Step 2: Group per movie
+            Map<Integer, List<Show>> showsByMovie = new HashMap<>();
+            for (Show show : shows) {
+                showsByMovie.computeIfAbsent(show.getMovieId(), k -> new ArrayList<>()).add(show);
+            }
+            for (Integer movieId : movieIds) {
+                List<Show> movieShows = showsByMovie.get(movieId);
+                loaded.put(movieId, new ShowtimeGrid(movieId,
+                        movieShows != null ? movieShows : new ArrayList<>(), true));
+            }
+            cacheGrids(loaded);
+
+        } catch (SQLException e) {
+            LOAD_GRIDS.error();
+            e.printStackTrace();
+        } finally {
+            DatabaseConnection.closeConnection(conn);
+            LOAD_GRIDS.stop(start);
+        }
+        return loaded;
+    }
+
+    /**
+     * Cache grids, dropping expired ones (or everything) once the cache is full
+     */
+    private static void cacheGrids(Map<Integer, ShowtimeGrid> loaded) {
+        if (grids.size() + loaded.size() > GRID_CACHE_SIZE) {
+            grids.values().removeIf(grid -> !isFresh(grid));
+            if (grids.size() + loaded.size() > GRID_CACHE_SIZE) {
+                grids.clear();
+            }
+        }
+        grids.putAll(loaded);
+    }
+
+    private static Timestamp readWatermark(Connection conn) throws SQLException {
+        String sql = "SELECT MAX(t) FROM (SELECT MAX(updated_at) AS t FROM movies " +
+                    "UNION ALL SELECT MAX(updated_at) FROM shows " +
+                    "UNION ALL SELECT MAX(updated_at) FROM theaters) w";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getTimestamp(1) : null;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Movie Search Combo Box
+ * File: MovieSearchComboBox.java
+ * Location: src/com/movieticket/ui/MovieSearchComboBox.java
+ *
+ * Purpose: Editable movie picker that searches as the user types
+ * Each edit runs the search function (an in-memory MovieSearchIndex lookup,
+ * so it is safe on the EDT) and shows the matches in the popup. Pressing
+ * Enter picks the best match. getSelectedMovie() is null until a movie has
+ * actually been chosen, however much text has been typed.
+ */
+
+package com.movieticket.ui;
+
+import com.movieticket.model.Movie;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+import javax.swing.JComboBox;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+
+public class MovieSearchComboBox extends JComboBox<Movie> {
+
+    private final Function<String, List<Movie>> search;
+    private final ResultsModel results = new ResultsModel();
+    private final JTextComponent textField;
+
+    // True while the component changes its own text or model
+    private boolean updating;
+    private boolean searchQueued;
+
+    /**
+     * Matches for the current text; unlike DefaultComboBoxModel it never
+     * selects an item by itself when the list changes
+     */
+    private static final class ResultsModel extends AbstractListModel<Movie> implements ComboBoxModel<Movie> {
+        private List<Movie> movies = Collections.emptyList();
+        private Object selected;
+
+        void setMovies(List<Movie> movies) {
+            int oldSize = this.movies.size();
+            this.movies = new ArrayList<>(movies);
+            if (oldSize > 0) {
+                fireIntervalRemoved(this, 0, oldSize - 1);
+            }
+            if (!this.movies.isEmpty()) {
+                fireIntervalAdded(this, 0, this.movies.size() - 1);
+            }
+        }
+
+        @Override
+        public int getSize() {
+            return movies.size();
+        }
+
+        @Override
+        public Movie getElementAt(int index) {
+            return movies.get(index);
+        }
+
+        @Override
+        public void setSelectedItem(Object item) {
+            if (item == null ? selected != null : !item.equals(selected)) {
+                selected = item;
+                fireContentsChanged(this, -1, -1);
+            }
+        }
+
+        @Override
+        public Object getSelectedItem() {
+            return selected;
+        }
+    }
+
+    /**
+     * @param search Returns the movies to offer for the typed text (blank text included)
+     */
+    public MovieSearchComboBox(Function<String, List<Movie>> search) {
+        this.search = search;
+        setModel(results);
+        setEditable(true);
+        setMaximumRowCount(12);
+        textField = (JTextComponent) getEditor().getEditorComponent();
+        textField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                textEdited();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                textEdited();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+    }
+
+    /**
+     * @return Chosen movie, or null if the text does not name one yet
+     */
+    public Movie getSelectedMovie() {
+        Object item = getSelectedItem();
+        return item instanceof Movie ? (Movie) item : null;
+    }
+
+    /**
+     * Run the search again for the current text (e.g. once the catalog has loaded)
+     */
+    public void refreshResults() {
+        updateResults(false);
+    }
+
+    /**
+     * Typed text (an Enter in the editor) selects the best match instead of the raw string
+     */
+    @Override
+    public void setSelectedItem(Object item) {
+        if (item instanceof String && !updating) {
+            String text = (String) item;
+            List<Movie> matches = text.trim().isEmpty() ? Collections.emptyList() : search.apply(text);
+            item = matches.isEmpty() ? null : matches.get(0);
+        }
+        super.setSelectedItem(item);
+    }
+
+    private void textEdited() {
+        if (updating || searchQueued) {
+            return;
+        }
+        // The document cannot be changed from inside its own notification
+        searchQueued = true;
+        SwingUtilities.invokeLater(() -> {
+            searchQueued = false;
+            updateResults(true);
+        });
+    }
+
+    /**
+     * Step 1: Ignore the text the combo itself shows for the selected movie
+     * Step 2: Search and replace the list, keeping the typed text and caret
+     * Step 3: Show the matches if the user is typing
+     */
+    private void updateResults(boolean fromTyping) {
+        String text = textField.getText();
+        Movie selected = getSelectedMovie();
+        if (fromTyping && selected != null && text.equals(selected.toString())) {
+            return;
+        }
+
+        int caret = textField.getCaretPosition();
+        updating = true;
+        try {
+            results.setMovies(search.apply(text));
+            if (selected != null && !text.equals(selected.toString())) {
+                // Editing away from the chosen movie deselects it
+                super.setSelectedItem(null);
+            }
+            if (!text.equals(textField.getText())) {
+                textField.setText(text);
+                textField.setCaretPosition(Math.min(caret, text.length()));
+            }
+        } finally {
+            updating = false;
+        }
+
+        if (fromTyping && isShowing() && textField.hasFocus()) {
+            setPopupVisible(false);
+            if (results.getSize() > 0) {
+                setPopupVisible(true);
+            }
+        }
+    }
+}
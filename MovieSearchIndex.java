@@ -0,0 +1,467 @@
+/**
+ * Movie Search Index
+ * File: MovieSearchIndex.java
+ * Location: src/com/movieticket/dao/MovieSearchIndex.java
+ *
+ * Purpose: Type-ahead search over movie names
+ * Names are folded (case, and accents on Latin, Greek and Cyrillic letters, so
+ * "amelie" finds "Amélie"; marks in other scripts such as Devanagari vowel
+ * signs are kept) and split into words. Short queries are answered from a
+ * sorted word array (word prefix), longer ones from trigram posting lists
+ * (substring anywhere in a word), so a lookup touches only the candidates.
+ *
+ * Immutable like MovieCatalog: withChanges builds the next index from this
+ * one, re-folding only the changed movies and rebuilding only the posting
+ * lists they appear in.
+ */
+
+package com.movieticket.dao;
+
+import com.movieticket.model.Movie;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class MovieSearchIndex {
+
+    public static final MovieSearchIndex EMPTY =
+            new MovieSearchIndex(new HashMap<>(), new HashMap<>(), new String[0], new int[0]);
+
+    private static final int GRAM = 3;
+
+    // One- and two-letter queries match a large share of the catalog; their
+    // top SHORT_QUERY_RESULTS are computed once per index and reused
+    private static final int SHORT_QUERY_RESULTS = 50;
+
+    // Match tiers, best first
+    private static final int NAME_PREFIX = 0;
+    private static final int WORD_PREFIX = 1;
+    private static final int SUBSTRING = 2;
+
+    private final Map<Integer, Doc> docs;       // movie ID -> indexed name
+    private final Map<String, int[]> postings;  // trigram -> sorted movie IDs
+    private final String[] words;               // every (word, movie) pair, sorted by word then ID
+    private final int[] wordMovieIds;           // parallel to words
+    private final Map<String, List<Movie>> shortQueries = new ConcurrentHashMap<>();
+
+    /**
+     * One indexed movie
+     */
+    private static final class Doc {
+        final Movie movie;
+        final String name;      // folded
+        final String[] words;   // folded, distinct
+
+        Doc(Movie movie) {
+            this.movie = movie;
+            this.name = fold(movie.getMovieName());
+            this.words = name.isEmpty() ? new String[0]
+                    : new LinkedHashSet<>(Arrays.asList(name.split(" "))).toArray(new String[0]);
+        }
+
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            for (String word : words) {
+                for (int i = 0; i + GRAM <= word.length(); i++) {
+                    grams.add(word.substring(i, i + GRAM));
+                }
+            }
+            return grams;
+        }
+    }
+
+    private MovieSearchIndex(Map<Integer, Doc> docs, Map<String, int[]> postings,
+                             String[] words, int[] wordMovieIds) {
+        this.docs = docs;
+        this.postings = postings;
+        this.words = words;
+        this.wordMovieIds = wordMovieIds;
+    }
+
+    /**
+     * Index a full set of movies
+     * @param movies Movies to index
+     * @return new MovieSearchIndex
+     */
+    public static MovieSearchIndex of(Collection<Movie> movies) {
+        return EMPTY.withChanges(Collections.emptyList(), movies);
+    }
+
+    /**
+     * Build the next index by applying a delta to this one
+     * @param removedMovieIds Movies to drop (a changed movie is removed and re-added)
+     * @param addedMovies Movies to add
+     * @return new MovieSearchIndex; this index is left untouched
+     */
+    public MovieSearchIndex withChanges(Collection<Integer> removedMovieIds, Collection<Movie> addedMovies) {
+        Map<Integer, Doc> nextDocs = new HashMap<>(docs);
+        List<Doc> removed = new ArrayList<>();
+        Set<Integer> removedIds = new HashSet<>();
+        for (Integer movieId : removedMovieIds) {
+            Doc doc = nextDocs.remove(movieId);
+            if (doc != null) {
+                removed.add(doc);
+                removedIds.add(movieId);
+            }
+        }
+        List<Doc> added = new ArrayList<>(addedMovies.size());
+        for (Movie movie : addedMovies) {
+            Doc doc = new Doc(movie);
+            Doc replaced = nextDocs.put(movie.getMovieId(), doc);
+            if (replaced != null && removedIds.add(movie.getMovieId())) {
+                removed.add(replaced);
+            }
+            added.add(doc);
+        }
+
+        // Posting lists: only the grams of removed or added movies change
+        Map<String, int[]> nextPostings = new HashMap<>(postings);
+        Set<String> touched = new HashSet<>();
+        for (Doc doc : removed) {
+            touched.addAll(doc.grams());
+        }
+        Map<String, List<Integer>> additions = new HashMap<>();
+        for (Doc doc : added) {
+            for (String gram : doc.grams()) {
+                additions.computeIfAbsent(gram, k -> new ArrayList<>()).add(doc.movie.getMovieId());
+            }
+        }
+        touched.addAll(additions.keySet());
+        for (String gram : touched) {
+            int[] ids = rebuildPosting(postings.get(gram), removedIds, additions.get(gram));
+            if (ids.length == 0) {
+                nextPostings.remove(gram);
+            } else {
+                nextPostings.put(gram, ids);
+            }
+        }
+
+        // Word array: drop removed movies' entries and merge in the added ones
+        List<Object[]> newWords = new ArrayList<>();
+        for (Doc doc : added) {
+            for (String word : doc.words) {
+                newWords.add(new Object[] { word, doc.movie.getMovieId() });
+            }
+        }
+        newWords.sort(Comparator.<Object[], String>comparing(e -> (String) e[0])
+                .thenComparingInt(e -> (Integer) e[1]));
+
+        int size = words.length + newWords.size();
+        String[] nextWords = new String[size];
+        int[] nextIds = new int[size];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < words.length || j < newWords.size()) {
+            if (i < words.length && removedIds.contains(wordMovieIds[i])) {
+                i++;
+                continue;
+            }
+            boolean takeOld = j >= newWords.size()
+                    || (i < words.length && compareWord(words[i], wordMovieIds[i], newWords.get(j)) <= 0);
+            if (takeOld) {
+                nextWords[n] = words[i];
+                nextIds[n++] = wordMovieIds[i++];
+            } else {
+                Object[] entry = newWords.get(j++);
+                nextWords[n] = (String) entry[0];
+                nextIds[n++] = (Integer) entry[1];
+            }
+        }
+
+        return new MovieSearchIndex(nextDocs, nextPostings,
+                Arrays.copyOf(nextWords, n), Arrays.copyOf(nextIds, n));
+    }
+
+    private static int compareWord(String word, int movieId, Object[] entry) {
+        int c = word.compareTo((String) entry[0]);
+        return c != 0 ? c : Integer.compare(movieId, (Integer) entry[1]);
+    }
+
+    private static int[] rebuildPosting(int[] current, Set<Integer> removedIds, List<Integer> additions) {
+        int[] ids = new int[(current != null ? current.length : 0) + (additions != null ? additions.size() : 0)];
+        int n = 0;
+        if (current != null) {
+            for (int id : current) {
+                if (!removedIds.contains(id)) {
+                    ids[n++] = id;
+                }
+            }
+        }
+        if (additions != null) {
+            for (int id : additions) {
+                ids[n++] = id;
+            }
+        }
+        ids = Arrays.copyOf(ids, n);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Find movies whose name matches what the user has typed so far
+     * Every word of the query must match the start of a word in the name, or
+     * (from three characters) appear anywhere in one. Names starting with the
+     * query come first, then word-start matches, then the rest; ties by name.
+     * @param query Text typed so far
+     * @param limit Maximum number of results
+     * @return Matching movies (empty for a blank query)
+     */
+    public List<Movie> search(String query, int limit) {
+        String folded = fold(query);
+        if (folded.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        if (folded.length() < GRAM && limit <= SHORT_QUERY_RESULTS) {
+            List<Movie> top = shortQueries.computeIfAbsent(folded,
+                    q -> Collections.unmodifiableList(find(q, SHORT_QUERY_RESULTS)));
+            return top.size() > limit ? top.subList(0, limit) : top;
+        }
+        return find(folded, limit);
+    }
+
+    private List<Movie> find(String folded, int limit) {
+        String[] tokens = folded.split(" ");
+
+        // Step 1: Candidates from the most selective structure available
+        String longest = tokens[0];
+        for (String token : tokens) {
+            if (token.length() > longest.length()) {
+                longest = token;
+            }
+        }
+        int[] candidates = longest.length() >= GRAM ? gramCandidates(tokens) : prefixCandidates(longest);
+
+        // Step 2: Check every token against each candidate, keeping only the best `limit`
+        // (a bounded heap whose head is the worst kept hit, so one-letter queries stay cheap)
+        PriorityQueue<Hit> best = new PriorityQueue<>(Math.min(limit, candidates.length) + 1,
+                Collections.reverseOrder());
+        for (int movieId : candidates) {
+            Doc doc = docs.get(movieId);
+            int tier = doc != null ? match(doc, folded, tokens) : -1;
+            if (tier < 0) {
+                continue;
+            }
+            Hit hit = new Hit(tier, doc);
+            if (best.size() < limit) {
+                best.add(hit);
+            } else if (hit.compareTo(best.peek()) < 0) {
+                best.poll();
+                best.add(hit);
+            }
+        }
+
+        Hit[] hits = best.toArray(new Hit[0]);
+        Arrays.sort(hits);
+        List<Movie> result = new ArrayList<>(hits.length);
+        for (Hit hit : hits) {
+            result.add(hit.doc.movie);
+        }
+        return result;
+    }
+
+    /**
+     * A matching movie; orders by tier, then folded name, then ID
+     */
+    private static final class Hit implements Comparable<Hit> {
+        final int tier;
+        final Doc doc;
+
+        Hit(int tier, Doc doc) {
+            this.tier = tier;
+            this.doc = doc;
+        }
+
+        @Override
+        public int compareTo(Hit other) {
+            if (tier != other.tier) {
+                return Integer.compare(tier, other.tier);
+            }
+            int c = doc.name.compareTo(other.doc.name);
+            return c != 0 ? c : Integer.compare(doc.movie.getMovieId(), other.doc.movie.getMovieId());
+        }
+    }
+
+    /**
+     * Movies containing every trigram of every token of three or more characters
+     */
+    private int[] gramCandidates(String[] tokens) {
+        List<int[]> lists = new ArrayList<>();
+        for (String token : tokens) {
+            for (int i = 0; i + GRAM <= token.length(); i++) {
+                int[] ids = postings.get(token.substring(i, i + GRAM));
+                if (ids == null) {
+                    return new int[0];
+                }
+                lists.add(ids);
+            }
+        }
+        lists.sort(Comparator.comparingInt(ids -> ids.length));
+        int[] result = lists.get(0);
+        for (int k = 1; k < lists.size() && result.length > 0; k++) {
+            result = intersect(result, lists.get(k));
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Movies with a word starting with prefix (binary search, then a scan of the range)
+     */
+    private int[] prefixCandidates(String prefix) {
+        int low = 0;
+        int high = words.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (words[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int end = low;
+        while (end < words.length && words[end].startsWith(prefix)) {
+            end++;
+        }
+        int[] ids = Arrays.copyOfRange(wordMovieIds, low, end);
+        Arrays.sort(ids);
+        int n = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (n == 0 || ids[n - 1] != ids[i]) {
+                ids[n++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, n);
+    }
+
+    /**
+     * @return Match tier, or -1 if some token does not match
+     */
+    private static int match(Doc doc, String query, String[] tokens) {
+        boolean allWordPrefixes = true;
+        for (String token : tokens) {
+            boolean wordPrefix = false;
+            boolean inWord = false;
+            for (String word : doc.words) {
+                if (word.startsWith(token)) {
+                    wordPrefix = true;
+                    break;
+                }
+                if (token.length() >= GRAM && word.contains(token)) {
+                    inWord = true;
+                }
+            }
+            if (!wordPrefix && !inWord) {
+                return -1;
+            }
+            allWordPrefixes &= wordPrefix;
+        }
+        if (doc.name.startsWith(query)) {
+            return NAME_PREFIX;
+        }
+        return allWordPrefixes ? WORD_PREFIX : SUBSTRING;
+    }
+
+    /**
+     * @return Number of indexed movies
+     */
+    public int size() {
+        return docs.size();
+    }
+
+    /**
+     * Fold text for matching: lower case, accents removed from Latin, Greek and
+     * Cyrillic letters, punctuation turned into single spaces
+     * @param text Movie name or query
+     * @return Folded text (never null)
+     */
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        Character.UnicodeScript baseScript = null;
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); ) {
+            int cp = decomposed.codePointAt(i);
+            i += Character.charCount(cp);
+            int type = Character.getType(cp);
+            boolean mark = type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+                    || type == Character.ENCLOSING_MARK;
+            if (mark) {
+                // An accent on a Latin letter is dropped; a vowel sign in Devanagari is part of the letter
+                if (baseScript != null && !isAccentedScript(baseScript)) {
+                    sb.appendCodePoint(cp);
+                }
+                continue;
+            }
+            if (!Character.isLetterOrDigit(cp)) {
+                pendingSpace = sb.length() > 0;
+                baseScript = null;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            baseScript = Character.UnicodeScript.of(cp);
+            appendFolded(sb, cp);
+        }
+        return Normalizer.normalize(sb, Normalizer.Form.NFC);
+    }
+
+    private static boolean isAccentedScript(Character.UnicodeScript script) {
+        return script == Character.UnicodeScript.LATIN
+                || script == Character.UnicodeScript.GREEK
+                || script == Character.UnicodeScript.CYRILLIC;
+    }
+
+    /**
+     * Lower-case one letter; letters that do not decompose get an ASCII spelling
+     */
+    private static void appendFolded(StringBuilder sb, int cp) {
+        int lower = Character.toLowerCase(cp);
+        switch (lower) {
+            case 'ß': sb.append("ss"); break;
+            case 'æ': sb.append("ae"); break;
+            case 'œ': sb.append("oe"); break;
+            case 'ø': sb.append('o'); break;
+            case 'ł': sb.append('l'); break;
+            case 'đ': sb.append('d'); break;
+            case 'ð': sb.append('d'); break;
+            case 'þ': sb.append("th"); break;
+            case 'ı': sb.append('i'); break;
+            default: sb.appendCodePoint(lower);
+        }
+    }
+}
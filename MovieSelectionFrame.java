@@ -3,17 +3,25 @@
  * Main booking interface after login
  * 
  * Purpose: Display available movies and allow user to make selections
- * Features: Select movie, theater, show time, number of tickets
+ * Features: Select movie (type-ahead search), theater, show time, number of tickets
+ * Selecting a movie fetches its whole showtime grid (theaters, times, seats) in
+ * one call and prefetches the grids of the movies listed next to it, so theater
+ * and show time selection never wait on the database.
  */
 
 package com.movieticket.ui;
 
 import com.movieticket.dao.MovieDAO;
+import com.movieticket.dao.ShowtimeGrid;
+import com.movieticket.inventory.SeatHoldManager;
 import com.movieticket.model.Movie;
+import com.movieticket.model.Show;
 import com.movieticket.model.User;
+import com.movieticket.util.DaoExecutor;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.ArrayList;
 import java.util.List;
 
 public class MovieSelectionFrame extends JFrame {
@@ -22,7 +30,7 @@ public class MovieSelectionFrame extends JFrame {
     private MovieDAO movieDAO;
     
     // Components
-    private JComboBox<Movie> cmbMovies;
+    private MovieSearchComboBox cmbMovies;
     private JComboBox<String> cmbTheaters;
     private JComboBox<String> cmbShowTimes;
     private JSpinner spnTickets;
@@ -32,7 +40,12 @@ public class MovieSelectionFrame extends JFrame {
     private JButton btnViewBookings;
     private JButton btnLogout;
     
+    // Showtime grid of the selected movie (null while loading)
+    private ShowtimeGrid currentGrid;
+    
     private final double TICKET_PRICE = 250.0; // Price per ticket
+    private static final int MOVIE_SUGGESTIONS = 50; // Movies listed in the search popup
+    private static final int PREFETCH_NEIGHBOURS = 2; // Grids prefetched on each side of the selection
     
     public MovieSelectionFrame(User user) {
         this.currentUser = user;
@@ -78,7 +91,7 @@ public class MovieSelectionFrame extends JFrame {
         
         // Movie Selection Panel
         JPanel moviePanel = createLabelFieldPanel("Select Movie:", 
-            cmbMovies = new JComboBox<>());
+            cmbMovies = new MovieSearchComboBox(this::searchMovies));
         cmbMovies.setPreferredSize(new Dimension(350, 30));
         
         // Theater Selection Panel
@@ -92,6 +105,14 @@ public class MovieSelectionFrame extends JFrame {
             cmbShowTimes = new JComboBox<>());
         cmbShowTimes.setPreferredSize(new Dimension(350, 30));
         cmbShowTimes.setEnabled(false);
+        cmbShowTimes.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                return super.getListCellRendererComponent(list, describeShowTime((String) value),
+                                                          index, isSelected, cellHasFocus);
+            }
+        });
         
         // Number of Tickets Panel
         SpinnerNumberModel spinnerModel = new SpinnerNumberModel(1, 1, 10, 1);
@@ -171,18 +192,34 @@ public class MovieSelectionFrame extends JFrame {
     }
     
     /**
-     * Step 1: Get all movies from database
-     * Step 2: Populate movie combo box
+     * Step 1: Load the movie catalog (off the EDT)
+     * Step 2: Offer the first movies in the search combo box
      */
     private void loadMovies() {
-        List<Movie> movies = movieDAO.getAllMovies();
-        
-        cmbMovies.removeAllItems();
-        cmbMovies.addItem(null); // Add empty option
-        
-        for (Movie movie : movies) {
-            cmbMovies.addItem(movie);
+        cmbMovies.setEnabled(false);
+        movieDAO.getAllMoviesAsync()
+            .whenCompleteAsync((movies, error) -> {
+                cmbMovies.setEnabled(true);
+                if (error != null) {
+                    error.printStackTrace();
+                    return;
+                }
+                cmbMovies.refreshResults();
+            }, DaoExecutor.EDT);
+    }
+    
+    /**
+     * Movies for the search combo box; runs on the EDT, so it only reads
+     * the catalog already in memory
+     * @param query Text typed so far
+     * @return First movies by name for a blank query, otherwise the best matches
+     */
+    private List<Movie> searchMovies(String query) {
+        if (query.trim().isEmpty()) {
+            List<Movie> movies = MovieDAO.getLoadedCatalog().getMovies();
+            return movies.subList(0, Math.min(MOVIE_SUGGESTIONS, movies.size()));
         }
+        return MovieDAO.getLoadedCatalog().searchMovies(query, MOVIE_SUGGESTIONS);
     }
     
     /**
@@ -193,16 +230,20 @@ public class MovieSelectionFrame extends JFrame {
         cmbMovies.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                Movie selectedMovie = (Movie) cmbMovies.getSelectedItem();
+                Movie selectedMovie = cmbMovies.getSelectedMovie();
+                if (currentGrid != null && selectedMovie != null
+                        && currentGrid.getMovieId() == selectedMovie.getMovieId()) {
+                    return;
+                }
+                currentGrid = null;
+                cmbTheaters.removeAllItems();
+                cmbTheaters.setEnabled(false);
+                cmbShowTimes.removeAllItems();
+                cmbShowTimes.setEnabled(false);
+                btnProceed.setEnabled(false);
                 if (selectedMovie != null) {
-                    loadTheaters(selectedMovie.getMovieId());
-                    cmbTheaters.setEnabled(true);
-                } else {
-                    cmbTheaters.removeAllItems();
-                    cmbTheaters.setEnabled(false);
-                    cmbShowTimes.removeAllItems();
-                    cmbShowTimes.setEnabled(false);
-                    btnProceed.setEnabled(false);
+                    loadShowtimeGrid(selectedMovie.getMovieId());
+                    prefetchNeighbours(selectedMovie);
                 }
             }
         });
@@ -211,10 +252,9 @@ public class MovieSelectionFrame extends JFrame {
         cmbTheaters.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                Movie selectedMovie = (Movie) cmbMovies.getSelectedItem();
                 String selectedTheater = (String) cmbTheaters.getSelectedItem();
-                if (selectedMovie != null && selectedTheater != null) {
-                    loadShowTimes(selectedMovie.getMovieId(), selectedTheater);
+                if (currentGrid != null && selectedTheater != null) {
+                    showTimesFor(selectedTheater);
                     cmbShowTimes.setEnabled(true);
                 }
             }
@@ -260,27 +300,75 @@ public class MovieSelectionFrame extends JFrame {
     }
     
     /**
-     * Load theaters for selected movie
+     * Load the showtime grid for the selected movie and list its theaters
+     * Results are ignored if the selection changed while loading
+     */
+    private void loadShowtimeGrid(int movieId) {
+        movieDAO.getShowtimeGridAsync(movieId)
+            .whenCompleteAsync((grid, error) -> {
+                if (error != null) {
+                    error.printStackTrace();
+                    return;
+                }
+                Movie selectedMovie = cmbMovies.getSelectedMovie();
+                if (selectedMovie == null || selectedMovie.getMovieId() != movieId) {
+                    return;
+                }
+                currentGrid = grid;
+                cmbTheaters.removeAllItems();
+                for (String theater : grid.getTheaters()) {
+                    cmbTheaters.addItem(theater);
+                }
+                cmbTheaters.setEnabled(true);
+            }, DaoExecutor.EDT);
+    }
+    
+    /**
+     * Prefetch the grids of the movies listed around the selected one,
+     * the likeliest next picks
      */
-    private void loadTheaters(int movieId) {
-        List<String> theaters = movieDAO.getTheatersForMovie(movieId);
-        cmbTheaters.removeAllItems();
-        for (String theater : theaters) {
-            cmbTheaters.addItem(theater);
+    private void prefetchNeighbours(Movie selectedMovie) {
+        int count = cmbMovies.getItemCount();
+        for (int i = 0; i < count; i++) {
+            if (cmbMovies.getItemAt(i).getMovieId() == selectedMovie.getMovieId()) {
+                List<Integer> movieIds = new ArrayList<>();
+                for (int j = Math.max(0, i - PREFETCH_NEIGHBOURS);
+                     j <= Math.min(count - 1, i + PREFETCH_NEIGHBOURS); j++) {
+                    if (j != i) {
+                        movieIds.add(cmbMovies.getItemAt(j).getMovieId());
+                    }
+                }
+                movieDAO.prefetchShowtimeGrids(movieIds);
+                return;
+            }
         }
     }
     
     /**
-     * Load show timings for selected movie and theater
+     * List the show times at a theater from the current grid (no database call)
      */
-    private void loadShowTimes(int movieId, String theaterName) {
-        List<String> showTimes = movieDAO.getShowTimings(movieId, theaterName);
+    private void showTimesFor(String theaterName) {
         cmbShowTimes.removeAllItems();
-        for (String showTime : showTimes) {
-            cmbShowTimes.addItem(showTime);
+        for (Show show : currentGrid.getShows(theaterName)) {
+            cmbShowTimes.addItem(show.getShowTime());
         }
     }
     
+    /**
+     * Show time label with the seats left when the grid was fetched
+     */
+    private String describeShowTime(String showTime) {
+        if (showTime == null || currentGrid == null) {
+            return showTime;
+        }
+        Show show = currentGrid.getShow((String) cmbTheaters.getSelectedItem(), showTime);
+        if (show == null) {
+            return showTime;
+        }
+        int seats = show.getAvailableSeats();
+        return showTime + (seats > 0 ? "  (" + seats + " seats left)" : "  (sold out)");
+    }
+    
     /**
      * Update total amount based on ticket count
      */
@@ -292,16 +380,37 @@ public class MovieSelectionFrame extends JFrame {
     
     /**
      * Proceed to payment
+     * Step 1: Hold the seats (off EDT) for the payment window
+     * Step 2: Open payment frame with the hold
      */
     private void proceedToPayment() {
-        Movie selectedMovie = (Movie) cmbMovies.getSelectedItem();
+        Movie selectedMovie = cmbMovies.getSelectedMovie();
         String selectedTheater = (String) cmbTheaters.getSelectedItem();
         String selectedShowTime = (String) cmbShowTimes.getSelectedItem();
         int tickets = (int) spnTickets.getValue();
         double totalAmount = tickets * TICKET_PRICE;
         
-        // Open payment frame
-        new PaymentFrame(currentUser, selectedMovie, selectedTheater, 
-                        selectedShowTime, tickets, totalAmount, this).setVisible(true);
+        // Step 1: Hold seats (the show comes from the grid already loaded)
+        Show show = currentGrid != null ? currentGrid.getShow(selectedTheater, selectedShowTime) : null;
+        btnProceed.setEnabled(false);
+        DaoExecutor.supply(() -> show == null ? null
+                : SeatHoldManager.getInstance().hold(show.getShowId(), tickets))
+            .whenCompleteAsync((hold, error) -> {
+                btnProceed.setEnabled(true);
+                if (error != null) {
+                    error.printStackTrace();
+                }
+                if (hold == null) {
+                    JOptionPane.showMessageDialog(this,
+                        "Sorry, not enough seats are available for this show!",
+                        "Sold Out",
+                        JOptionPane.WARNING_MESSAGE);
+                    return;
+                }
+                
+                // Step 2: Open payment frame
+                new PaymentFrame(currentUser, selectedMovie, selectedTheater,
+                                selectedShowTime, tickets, totalAmount, hold, this).setVisible(true);
+            }, DaoExecutor.EDT);
     }
 }
\ No newline at end of file
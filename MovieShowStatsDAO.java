@@ -0,0 +1,143 @@
+/**
+ * Movie Show Stats Data Access Object
+ * File: MovieShowStatsDAO.java
+ * Location: src/com/movieticket/dao/MovieShowStatsDAO.java
+ *
+ * Purpose: Maintain per-movie show counts in movie_show_stats
+ * Methods: Recount movies, Rebuild a movie_id range, Get max movie ID
+ *
+ * v_active_movies reads the count from here instead of joining and grouping
+ * every show, so reading it costs one row per movie. Counts are recomputed
+ * per movie (an index-only count on idx_movie_start), never incremented, so
+ * a repeated or late update cannot make them drift.
+ */
+
+package com.movieticket.dao;
+
+import com.movieticket.util.DaoMetric;
+import com.movieticket.util.DaoMetrics;
+import com.movieticket.util.DatabaseConnection;
+import java.sql.*;
+import java.util.Collection;
+
+public class MovieShowStatsDAO {
+
+    static final String RECOUNT_SQL =
+            "INSERT INTO movie_show_stats (movie_id, total_shows) " +
+            "SELECT m.movie_id, COUNT(s.show_id) FROM movies m " +
+            "LEFT JOIN shows s ON s.movie_id = m.movie_id " +
+            "WHERE m.movie_id BETWEEN ? AND ? GROUP BY m.movie_id " +
+            "ON DUPLICATE KEY UPDATE total_shows = VALUES(total_shows)";
+
+    // Latency, call, error and row metrics per method (see DaoMetrics)
+    private static final DaoMetric RECOUNT_MOVIES = DaoMetrics.register("MovieShowStatsDAO", "recountMovies");
+    private static final DaoMetric REBUILD_RANGE = DaoMetrics.register("MovieShowStatsDAO", "rebuildRange");
+
+    /**
+     * Recount the shows of the given movies (one batch, one transaction)
+     * @param movieIds Movie IDs; iterate in ascending order (e.g. a TreeSet) to keep lock order stable
+     * @return true if the counts were written
+     */
+    public boolean recountMovies(Collection<Integer> movieIds) {
+        if (movieIds.isEmpty()) {
+            return true;
+        }
+        long start = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            pstmt = conn.prepareStatement(RECOUNT_SQL);
+            for (Integer movieId : movieIds) {
+                pstmt.setInt(1, movieId);
+                pstmt.setInt(2, movieId);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            conn.commit();
+            RECOUNT_MOVIES.rows(movieIds.size());
+            return true;
+
+        } catch (SQLException e) {
+            RECOUNT_MOVIES.error();
+            BookingDAO.rollbackQuietly(conn);
+            e.printStackTrace();
+            return false;
+        } finally {
+            closeResources(conn, pstmt, null);
+            RECOUNT_MOVIES.stop(start);
+        }
+    }
+
+    /**
+     * Recount every movie in a movie_id range
+     * @param fromMovieId First movie ID (inclusive)
+     * @param toMovieId Last movie ID (inclusive)
+     * @return Rows inserted or changed as reported by the driver, or -1 on failure
+     */
+    public int rebuildRange(int fromMovieId, int toMovieId) {
+        long start = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(RECOUNT_SQL);
+            pstmt.setInt(1, fromMovieId);
+            pstmt.setInt(2, toMovieId);
+            int rows = pstmt.executeUpdate();
+            REBUILD_RANGE.rows(rows);
+            return rows;
+
+        } catch (SQLException e) {
+            REBUILD_RANGE.error();
+            e.printStackTrace();
+            return -1;
+        } finally {
+            closeResources(conn, pstmt, null);
+            REBUILD_RANGE.stop(start);
+        }
+    }
+
+    /**
+     * @return Highest movie_id, or 0 if there are no movies
+     */
+    public int getMaxMovieId() {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement("SELECT COALESCE(MAX(movie_id), 0) FROM movies");
+            rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            closeResources(conn, pstmt, rs);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Helper method to close database resources
+     * (the pool restores auto-commit when the connection is returned)
+     */
+    private void closeResources(Connection conn, PreparedStatement pstmt, ResultSet rs) {
+        try {
+            if (rs != null) rs.close();
+            if (pstmt != null) pstmt.close();
+            if (conn != null) conn.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
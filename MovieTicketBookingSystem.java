@@ -9,12 +9,23 @@
 
 package com.movieticket.main;
 
+import com.movieticket.dao.MovieDAO;
 import com.movieticket.ui.LoginFrame;
 import javax.swing.SwingUtilities;
 
 public class MovieTicketBookingSystem {
     
     public static void main(String[] args) {
+        // Load the movie catalog in the background while the user logs in
+        Thread catalogLoader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                MovieDAO.preload();
+            }
+        }, "movie-catalog-preload");
+        catalogLoader.setDaemon(true);
+        catalogLoader.start();
+        
         // Run the application on Event Dispatch Thread
         SwingUtilities.invokeLater(new Runnable() {
             @Override
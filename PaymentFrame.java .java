@@ -4,14 +4,23 @@
  * 
  * Purpose: Select payment method, enter card details, process payment
  * Features: Card type selection, card validation, generate booking
+ * A purchase books under its seat hold's purchase key, so a resubmitted or
+ * retried payment for the same hold gets the first outcome (DUPLICATE once
+ * booked) and is not charged again. Picking seats again is a new purchase.
  */
 
 package com.movieticket.ui;
 
-import com.movieticket.dao.BookingDAO;
+import com.movieticket.inventory.SeatHold;
+import com.movieticket.inventory.SeatHoldManager;
+import com.movieticket.inventory.SeatInventory;
 import com.movieticket.model.Booking;
+import com.movieticket.model.BookingResult;
 import com.movieticket.model.Movie;
+import com.movieticket.model.PaymentRequest;
 import com.movieticket.model.User;
+import com.movieticket.payment.PaymentProcessor;
+import com.movieticket.util.DaoExecutor;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
@@ -25,7 +34,7 @@ public class PaymentFrame extends JFrame {
     private int numberOfTickets;
     private double totalAmount;
     private MovieSelectionFrame parentFrame;
-    private BookingDAO bookingDAO;
+    private SeatHold seatHold;
     
     // Components
     private JComboBox<String> cmbCardType;
@@ -38,7 +47,7 @@ public class PaymentFrame extends JFrame {
     private JButton btnCancel;
     
     public PaymentFrame(User user, Movie movie, String theater, String showTime,
-                       int tickets, double amount, MovieSelectionFrame parent) {
+                       int tickets, double amount, SeatHold hold, MovieSelectionFrame parent) {
         this.currentUser = user;
         this.selectedMovie = movie;
         this.selectedTheater = theater;
@@ -46,7 +55,7 @@ public class PaymentFrame extends JFrame {
         this.numberOfTickets = tickets;
         this.totalAmount = amount;
         this.parentFrame = parent;
-        this.bookingDAO = new BookingDAO();
+        this.seatHold = hold;
         
         // Step 1: Setup Frame
         setTitle("Payment - Card Details");
@@ -88,6 +97,8 @@ public class PaymentFrame extends JFrame {
         summaryPanel.add(new JLabel("Theater: " + selectedTheater));
         summaryPanel.add(new JLabel("Show Time: " + selectedShowTime));
         summaryPanel.add(new JLabel("Number of Tickets: " + numberOfTickets));
+        summaryPanel.add(new JLabel("Seats held until: " +
+            new java.text.SimpleDateFormat("hh:mm a").format(new java.util.Date(seatHold.getExpiresAt()))));
         JLabel lblAmount = new JLabel("Total Amount: ₹" + totalAmount);
         lblAmount.setFont(new Font("Arial", Font.BOLD, 16));
         lblAmount.setForeground(new Color(0, 128, 0));
@@ -206,12 +217,20 @@ public class PaymentFrame extends JFrame {
                 dispose();
             }
         });
+        
+        // Give the held seats back if the frame closes without paying
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                SeatHoldManager.getInstance().release(seatHold);
+            }
+        });
     }
     
     /**
      * Step 1: Validate card details
      * Step 2: Create booking object
-     * Step 3: Save booking to database
+     * Step 3: Claim the held seats, take payment and save booking to database
      * Step 4: Generate and display ticket
      */
     private void processPayment() {
@@ -228,71 +247,92 @@ public class PaymentFrame extends JFrame {
         processingDialog.setSize(300, 100);
         processingDialog.setLocationRelativeTo(this);
         
-        // Simulate payment processing in background
-        SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-            @Override
-            protected Boolean doInBackground() throws Exception {
-                Thread.sleep(2000); // Simulate processing time
-                
-                // Step 2: Create booking object
-                Booking booking = new Booking(
-                    currentUser.getUserId(),
-                    selectedMovie.getMovieId(),
-                    selectedMovie.getMovieName(),
-                    selectedTheater,
-                    selectedShowTime,
-                    numberOfTickets,
-                    totalAmount
-                );
-                
-                // Step 3: Save booking to database
-                int bookingId = bookingDAO.createBooking(booking);
-                booking.setBookingId(bookingId);
-                
-                return bookingId > 0;
-            }
-            
-            @Override
-            protected void done() {
+        // Step 2: Create booking object
+        final Booking booking = new Booking(
+            currentUser.getUserId(),
+            selectedMovie.getMovieId(),
+            selectedMovie.getMovieName(),
+            selectedTheater,
+            selectedShowTime,
+            numberOfTickets,
+            totalAmount
+        );
+        
+        // Take over the held seats so they cannot expire mid-payment
+        if (!SeatHoldManager.getInstance().claim(seatHold)) {
+            JOptionPane.showMessageDialog(this,
+                "Your seat hold has expired. Please select seats again.",
+                "Hold Expired",
+                JOptionPane.WARNING_MESSAGE);
+            dispose();
+            return;
+        }
+        booking.setShowId(seatHold.getShowId());
+        booking.setIdempotencyKey(seatHold.getPurchaseKey());
+        final int[] seats = seatHold.getSeats();
+        
+        // Step 3: Authorize and capture payment, then save booking to database
+        PaymentRequest request = new PaymentRequest("HOLD" + seatHold.getHoldId(),
+            currentUser.getUserId(), totalAmount,
+            (String) cmbCardType.getSelectedItem(), txtCardNumber.getText().trim());
+        PaymentProcessor.getInstance().checkout(request, booking, seats)
+            .whenCompleteAsync((result, error) -> {
                 processingDialog.dispose();
-                try {
-                    boolean success = get();
-                    if (success) {
-                        // Payment successful
-                        JOptionPane.showMessageDialog(PaymentFrame.this,
-                            "Payment Successful!",
-                            "Success",
-                            JOptionPane.INFORMATION_MESSAGE);
-                        
-                        // Step 4: Generate ticket
-                        Booking booking = new Booking(
-                            currentUser.getUserId(),
-                            selectedMovie.getMovieId(),
-                            selectedMovie.getMovieName(),
-                            selectedTheater,
-                            selectedShowTime,
-                            numberOfTickets,
-                            totalAmount
-                        );
-                        
-                        new TicketFrame(booking, currentUser).setVisible(true);
-                        dispose();
-                    } else {
-                        JOptionPane.showMessageDialog(PaymentFrame.this,
-                            "Payment failed! Please try again.",
-                            "Error",
-                            JOptionPane.ERROR_MESSAGE);
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
+                if (error != null) {
+                    error.printStackTrace();
+                    result = BookingResult.failed(error.getMessage());
                 }
-            }
-        };
+                if (!result.isBooked()) {
+                    SeatInventory.getInstance().release(seatHold.getShowId(), seats);
+                }
+                onPaymentResult(result, booking);
+            }, DaoExecutor.EDT);
         
-        worker.execute();
         processingDialog.setVisible(true);
     }
     
+    /**
+     * Step 4: Generate and display ticket, or report why payment failed
+     * Runs on EDT
+     */
+    private void onPaymentResult(BookingResult result, Booking booking) {
+        if (result.isBooked()) {
+            // Payment successful
+            JOptionPane.showMessageDialog(this,
+                "Payment Successful!",
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
+            
+            // Step 4: Generate ticket
+            new TicketFrame(booking, currentUser).setVisible(true);
+            dispose();
+        } else if (result.getStatus() == BookingResult.Status.DUPLICATE) {
+            JOptionPane.showMessageDialog(this,
+                result.getMessage() + ". You have not been charged again.",
+                "Already Booked",
+                JOptionPane.INFORMATION_MESSAGE);
+            dispose();
+        } else if (result.getStatus() == BookingResult.Status.SOLD_OUT) {
+            JOptionPane.showMessageDialog(this,
+                "Sorry, this show is sold out! Your payment has been refunded.",
+                "Sold Out",
+                JOptionPane.WARNING_MESSAGE);
+            dispose();
+        } else if (result.getStatus() == BookingResult.Status.PAYMENT_FAILED) {
+            JOptionPane.showMessageDialog(this,
+                "Payment failed! " + result.getMessage() + ". You have not been charged.",
+                "Payment Failed",
+                JOptionPane.ERROR_MESSAGE);
+            dispose(); // Held seats are gone; select them again
+        } else {
+            JOptionPane.showMessageDialog(this,
+                "Booking failed! " + result.getMessage() + ". Your payment has been refunded.",
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+            dispose(); // Held seats are gone; select them again
+        }
+    }
+    
     /**
      * Validate card details
      */
@@ -0,0 +1,58 @@
+/**
+ * Payment Gateway
+ * File: PaymentGateway.java
+ * Location: src/com/movieticket/payment/PaymentGateway.java
+ *
+ * Purpose: Non-blocking interface to a card payment provider
+ * Every call returns at once; the future completes when the provider answers.
+ * Implementations complete with a PaymentResult rather than exceptionally
+ * for declines and provider errors.
+ */
+
+package com.movieticket.payment;
+
+import com.movieticket.model.PaymentRequest;
+import com.movieticket.model.PaymentResult;
+import java.util.concurrent.CompletableFuture;
+
+public interface PaymentGateway {
+
+    /**
+     * Reserve the amount on the customer's card
+     * @param request Payment request
+     * @return Result whose transaction ID identifies the authorization
+     */
+    CompletableFuture<PaymentResult> authorize(PaymentRequest request);
+
+    /**
+     * Collect an authorized amount
+     * @param authorizationId Transaction ID from authorize()
+     * @param amount Amount to collect
+     * @return Result whose transaction ID identifies the capture
+     */
+    CompletableFuture<PaymentResult> capture(String authorizationId, double amount);
+
+    /**
+     * Look up the capture of an authorization after capture() timed out or failed
+     * @param authorizationId Transaction ID from authorize()
+     * @return APPROVED with the capture's transaction ID if the amount was
+     *         collected, DECLINED if it was not; TIMEOUT or ERROR if the
+     *         provider cannot tell yet
+     */
+    CompletableFuture<PaymentResult> findCapture(String authorizationId);
+
+    /**
+     * Drop an authorization that will not be captured
+     * @param authorizationId Transaction ID from authorize()
+     * @return Result of the void
+     */
+    CompletableFuture<PaymentResult> voidAuthorization(String authorizationId);
+
+    /**
+     * Return a captured amount
+     * @param captureId Transaction ID from capture()
+     * @param amount Amount to return
+     * @return Result of the refund
+     */
+    CompletableFuture<PaymentResult> refund(String captureId, double amount);
+}
@@ -0,0 +1,347 @@
+/**
+ * Payment Processor
+ * File: PaymentProcessor.java
+ * Location: src/com/movieticket/payment/PaymentProcessor.java
+ *
+ * Purpose: Checkout pipeline: authorize, capture, then commit the booking
+ * Features: Per-call timeouts, bounded in-flight gateway calls, compensation
+ *
+ * Nothing here blocks a thread while the gateway is thinking: each step is
+ * chained on the previous step's future. At most maxInFlight gateway calls run
+ * at once; up to maxQueued more wait in a queue and the rest are rejected.
+ * A booking is only committed after the capture succeeds; if it then fails
+ * the capture is refunded. A capture that times out or errors may still have
+ * gone through, so the gateway is asked (findCapture) and the capture refunded
+ * or the authorization voided. Refunds and voids skip the maxQueued limit, go
+ * to the front of the queue and are retried with backoff until the gateway
+ * answers; only a declined one is left for manual follow-up. A booking with an idempotency key is checked out at
+ * most once: a repeat gets the first checkout's outcome from IdempotencyCache,
+ * or, once the cache has forgotten the key, the booking saved with it, and is
+ * never charged.
+ *
+ * Settings: -Dmovieticket.payment.gateway (class name, default StubPaymentGateway),
+ * authorizeTimeoutMs (5000), captureTimeoutMs (5000), maxInFlight (64), maxQueued (1000)
+ */
+
+package com.movieticket.payment;
+
+import com.movieticket.dao.BookingDAO;
+import com.movieticket.dao.IdempotencyCache;
+import com.movieticket.model.Booking;
+import com.movieticket.model.BookingResult;
+import com.movieticket.model.PaymentRequest;
+import com.movieticket.model.PaymentResult;
+import com.movieticket.util.DaoExecutor;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class PaymentProcessor {
+
+    private static final long MAX_RETRY_DELAY_MILLIS = 60000; // between compensation attempts
+
+    private static volatile PaymentProcessor instance;
+
+    private final PaymentGateway gateway;
+    private final BookingDAO bookingDAO;
+    private final long authorizeTimeoutMillis;
+    private final long captureTimeoutMillis;
+    private final int maxInFlight;
+    private final int maxQueued;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Deque<Runnable> waiting = new ConcurrentLinkedDeque<>();
+
+    public PaymentProcessor(PaymentGateway gateway, BookingDAO bookingDAO, long authorizeTimeoutMillis,
+                            long captureTimeoutMillis, int maxInFlight, int maxQueued) {
+        this.gateway = gateway;
+        this.bookingDAO = bookingDAO;
+        this.authorizeTimeoutMillis = authorizeTimeoutMillis;
+        this.captureTimeoutMillis = captureTimeoutMillis;
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Get the shared processor, created from system properties on first use
+     * @return PaymentProcessor
+     */
+    public static PaymentProcessor getInstance() {
+        if (instance == null) {
+            synchronized (PaymentProcessor.class) {
+                if (instance == null) {
+                    instance = new PaymentProcessor(
+                        createGateway(System.getProperty("movieticket.payment.gateway")),
+                        new BookingDAO(),
+                        Long.getLong("movieticket.payment.authorizeTimeoutMs", 5000),
+                        Long.getLong("movieticket.payment.captureTimeoutMs", 5000),
+                        Integer.getInteger("movieticket.payment.maxInFlight", 64),
+                        Integer.getInteger("movieticket.payment.maxQueued", 1000));
+                }
+            }
+        }
+        return instance;
+    }
+
+    private static PaymentGateway createGateway(String className) {
+        if (className == null || className.isEmpty()) {
+            return new StubPaymentGateway();
+        }
+        try {
+            return (PaymentGateway) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalStateException("Cannot create payment gateway " + className, e);
+        }
+    }
+
+    /**
+     * Check out a booking, or answer a repeat of one from IdempotencyCache
+     * A repeat (same user and idempotency key) waits for the first checkout and
+     * gets DUPLICATE with its booking ID, or its failure; it never pays.
+     * On a cache miss the key is looked up in bookings before authorizing.
+     * The caller owns the seats: on any result other than BOOKED it must release them.
+     * @param request Payment request
+     * @param booking Booking to save; its booking ID is set on success
+     * @param seats Seats already taken in SeatInventory, or null
+     * @return Future with the booking outcome; never completes exceptionally
+     */
+    public CompletableFuture<BookingResult> checkout(PaymentRequest request, Booking booking, int[] seats) {
+        String key = booking.getIdempotencyKey();
+        if (key == null) {
+            return pay(request, booking, seats);
+        }
+        if (!IdempotencyCache.isValidKey(key)) {
+            return CompletableFuture.completedFuture(BookingResult.failed("Invalid idempotency key"));
+        }
+        CompletableFuture<BookingResult> result = new CompletableFuture<>();
+        CompletableFuture<BookingResult> first =
+            IdempotencyCache.getInstance().register(booking.getUserId(), key, result);
+        if (first != null) {
+            return first.thenApply(IdempotencyCache::asRepeat);
+        }
+        bookingDAO.findBookingIdByKeyAsync(booking.getUserId(), key)
+            .thenCompose(bookingId -> bookingId > 0
+                    ? CompletableFuture.completedFuture(BookingResult.duplicate(bookingId))
+                    : pay(request, booking, seats))
+            .exceptionally(e -> BookingResult.failed(e.getMessage()))
+            .thenAccept(result::complete);
+        return result;
+    }
+
+    /**
+     * Step 1: Authorize the amount
+     * Step 2: Capture it (void the authorization if that fails)
+     * Step 3: Commit the booking (refund the capture if that fails)
+     */
+    private CompletableFuture<BookingResult> pay(PaymentRequest request, Booking booking, int[] seats) {
+        // Step 1: Authorize
+        return call(() -> gateway.authorize(request), authorizeTimeoutMillis).thenCompose(auth -> {
+            if (!auth.isApproved()) {
+                return CompletableFuture.completedFuture(BookingResult.paymentFailed(auth.getMessage()));
+            }
+
+            // Step 2: Capture
+            String authorizationId = auth.getTransactionId();
+            return call(() -> gateway.capture(authorizationId, request.getAmount()), captureTimeoutMillis)
+                .thenCompose(capture -> {
+                    if (isUnknown(capture)) {
+                        // The capture may have gone through; find out and undo it
+                        settleCapture(authorizationId, request.getAmount(), 1);
+                        return CompletableFuture.completedFuture(
+                            BookingResult.failed("The payment gateway did not confirm the payment"));
+                    }
+                    if (!capture.isApproved()) {
+                        compensate("void " + authorizationId,
+                                   () -> gateway.voidAuthorization(authorizationId));
+                        return CompletableFuture.completedFuture(BookingResult.paymentFailed(capture.getMessage()));
+                    }
+
+                    // Step 3: Book
+                    String captureId = capture.getTransactionId();
+                    return bookingDAO.submitBooking(booking, seats)
+                        .exceptionally(e -> BookingResult.failed(e.getMessage()))
+                        .thenApply(result -> {
+                            if (result.isBooked()) {
+                                booking.setBookingId(result.getBookingId());
+                            } else {
+                                compensate("refund " + captureId,
+                                           () -> gateway.refund(captureId, request.getAmount()));
+                            }
+                            return result;
+                        });
+                });
+        });
+    }
+
+    /**
+     * Run a gateway call within the in-flight limit and its timeout
+     * @return Future that always completes normally with a PaymentResult
+     */
+    private CompletableFuture<PaymentResult> call(Supplier<CompletableFuture<PaymentResult>> call,
+                                                  long timeoutMillis) {
+        return call(call, timeoutMillis, false);
+    }
+
+    /**
+     * @param compensation true for refunds, voids and lookups: never rejected,
+     *        and started before queued checkouts
+     */
+    private CompletableFuture<PaymentResult> call(Supplier<CompletableFuture<PaymentResult>> call,
+                                                  long timeoutMillis, boolean compensation) {
+        CompletableFuture<PaymentResult> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<PaymentResult> response;
+            try {
+                response = call.get();
+            } catch (RuntimeException e) {
+                response = CompletableFuture.failedFuture(e);
+            }
+            response.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .handle((r, e) -> e == null ? r : toResult(e))
+                .whenComplete((r, e) -> {
+                    releasePermit();
+                    result.complete(r);
+                });
+        };
+
+        if (tryAcquirePermit()) {
+            start.run();
+        } else if (compensation) {
+            queued.incrementAndGet();
+            waiting.addFirst(start);
+            drain();
+        } else if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            result.complete(PaymentResult.rejected());
+        } else {
+            waiting.add(start);
+            drain();
+        }
+        return result;
+    }
+
+    /**
+     * Fire a compensating call, retrying it until the gateway answers
+     * A decline is final and logged for manual follow-up
+     */
+    private void compensate(String action, Supplier<CompletableFuture<PaymentResult>> call) {
+        compensate(action, call, 1);
+    }
+
+    private void compensate(String action, Supplier<CompletableFuture<PaymentResult>> call, int attempt) {
+        call(call, captureTimeoutMillis, true).thenAccept(r -> {
+            if (r.isApproved()) {
+                return;
+            }
+            if (r.getStatus() == PaymentResult.Status.DECLINED) {
+                System.err.println("Payment " + action + " declined, needs manual follow-up: " + r.getMessage());
+            } else {
+                System.err.println("Payment " + action + " failed (attempt " + attempt + "), retrying: " + r.getMessage());
+                retryLater(() -> compensate(action, call, attempt + 1), attempt);
+            }
+        });
+    }
+
+    /**
+     * After a capture with no clear answer: refund the capture if the gateway
+     * has it, otherwise void the authorization; ask again until it can tell
+     */
+    private void settleCapture(String authorizationId, double amount, int attempt) {
+        call(() -> gateway.findCapture(authorizationId), captureTimeoutMillis, true).thenAccept(found -> {
+            if (found.isApproved()) {
+                String captureId = found.getTransactionId();
+                compensate("refund " + captureId, () -> gateway.refund(captureId, amount));
+            } else if (found.getStatus() == PaymentResult.Status.DECLINED) {
+                compensate("void " + authorizationId, () -> gateway.voidAuthorization(authorizationId));
+            } else {
+                System.err.println("Payment capture of " + authorizationId + " still unknown (attempt " +
+                                   attempt + "), asking again: " + found.getMessage());
+                retryLater(() -> settleCapture(authorizationId, amount, attempt + 1), attempt);
+            }
+        });
+    }
+
+    /**
+     * Run a compensation step again after 1, 2, 4 ... seconds, at most MAX_RETRY_DELAY_MILLIS
+     */
+    private static void retryLater(Runnable retry, int attempt) {
+        long delay = Math.min(MAX_RETRY_DELAY_MILLIS, 500L << Math.min(attempt, 10));
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, DaoExecutor.executor()).execute(retry);
+    }
+
+    /**
+     * No answer in time or a gateway failure: the call may or may not have happened
+     * (a REJECTED call was never sent)
+     */
+    private static boolean isUnknown(PaymentResult result) {
+        return result.getStatus() == PaymentResult.Status.TIMEOUT
+                || result.getStatus() == PaymentResult.Status.ERROR;
+    }
+
+    private static PaymentResult toResult(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof TimeoutException) {
+            return PaymentResult.timeout();
+        }
+        return PaymentResult.error(String.valueOf(cause.getMessage()));
+    }
+
+    private boolean tryAcquirePermit() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxInFlight) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void releasePermit() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    /**
+     * Start queued calls while permits are free
+     * Queued calls are started on DaoExecutor so a completing call never
+     * recurses into the next one
+     */
+    private void drain() {
+        while (!waiting.isEmpty() && tryAcquirePermit()) {
+            Runnable next = waiting.poll();
+            if (next == null) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            queued.decrementAndGet();
+            DaoExecutor.executor().execute(next);
+        }
+    }
+
+    /**
+     * @return Gateway calls currently running
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return Gateway calls waiting for a permit
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentProcessor{gateway=" + gateway + ", inFlight=" + inFlight.get() +
+               "/" + maxInFlight + ", queued=" + queued.get() + "/" + maxQueued + "}";
+    }
+}
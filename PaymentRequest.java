@@ -0,0 +1,61 @@
+/**
+ * Payment Request Model Class
+ * File: PaymentRequest.java
+ * Location: src/com/movieticket/model/PaymentRequest.java
+ *
+ * Purpose: What a payment gateway needs to authorize a checkout
+ * Only the last four card digits are kept; the full number never leaves the form.
+ */
+
+package com.movieticket.model;
+
+public class PaymentRequest {
+
+    private final String reference;
+    private final int userId;
+    private final double amount;
+    private final String cardType;
+    private final String cardLast4;
+
+    public PaymentRequest(String reference, int userId, double amount, String cardType, String cardNumber) {
+        this.reference = reference;
+        this.userId = userId;
+        this.amount = amount;
+        this.cardType = cardType;
+        this.cardLast4 = cardNumber.length() > 4 ? cardNumber.substring(cardNumber.length() - 4) : cardNumber;
+    }
+
+    /**
+     * @return Merchant reference for the checkout (e.g. the seat hold)
+     */
+    public String getReference() {
+        return reference;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public String getCardType() {
+        return cardType;
+    }
+
+    public String getCardLast4() {
+        return cardLast4;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentRequest{" +
+                "reference='" + reference + '\'' +
+                ", userId=" + userId +
+                ", amount=" + amount +
+                ", cardType='" + cardType + '\'' +
+                ", card=****" + cardLast4 +
+                '}';
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Payment Result Model Class
+ * File: PaymentResult.java
+ * Location: src/com/movieticket/model/PaymentResult.java
+ *
+ * Purpose: Typed outcome of a payment gateway call
+ */
+
+package com.movieticket.model;
+
+public class PaymentResult {
+
+    public enum Status {
+        APPROVED,   // gateway accepted the call
+        DECLINED,   // card or issuer refused; do not retry
+        TIMEOUT,    // no answer in time; outcome unknown
+        REJECTED,   // too many payments in flight, not sent to the gateway
+        ERROR       // gateway or network failure
+    }
+
+    private final Status status;
+    private final String transactionId;
+    private final String message;
+
+    private PaymentResult(Status status, String transactionId, String message) {
+        this.status = status;
+        this.transactionId = transactionId;
+        this.message = message;
+    }
+
+    public static PaymentResult approved(String transactionId) {
+        return new PaymentResult(Status.APPROVED, transactionId, "Approved");
+    }
+
+    public static PaymentResult declined(String message) {
+        return new PaymentResult(Status.DECLINED, null, message);
+    }
+
+    public static PaymentResult timeout() {
+        return new PaymentResult(Status.TIMEOUT, null, "Payment gateway did not respond in time");
+    }
+
+    public static PaymentResult rejected() {
+        return new PaymentResult(Status.REJECTED, null, "Too many payments in progress, please try again");
+    }
+
+    public static PaymentResult error(String message) {
+        return new PaymentResult(Status.ERROR, null, message);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isApproved() {
+        return status == Status.APPROVED;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentResult{" +
+                "status=" + status +
+                ", transactionId='" + transactionId + '\'' +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,472 @@
+/**
+ * Query Plan Checker
+ * File: QueryPlanChecker.java
+ * Location: src/com/movieticket/bench/QueryPlanChecker.java
+ *
+ * Purpose: Catch query-plan regressions before they reach production
+ * Runs every DAO code path once against a MySQL database, collects each SQL
+ * statement with the values it was bound to (through SqlTracer's statement
+ * listener), EXPLAINs it and fails if any base table is read by a full table
+ * or full index scan, or the plan needs a filesort or a temporary table.
+ * Full scans of small lookup tables (at most smallTableRows rows) are allowed,
+ * as are the plans listed in ALLOWED with their reason.
+ *
+ * Plans depend on data volume, so point it at a local copy of the schema
+ * seeded to realistic size (seedBookings does that) rather than at the
+ * handful of sample rows. The run writes to the database: it registers a
+ * user, books and cancels two bookings and touches one show's updated_at.
+ *
+ * Usage: java com.movieticket.bench.QueryPlanChecker  (exit code 1 on failures)
+ * Settings (-Dmovieticket.plan.*): seedBookings (0: seed nothing; otherwise
+ *   top bookings up to this many, with one user per bookingsPerUser),
+ *   bookingsPerUser (25), smallTableRows (1000)
+ * Database settings are the usual -Dmovieticket.db.* ones.
+ */
+
+package com.movieticket.bench;
+
+import com.movieticket.dao.BookingDAO;
+import com.movieticket.dao.BookingStatsReconciler;
+import com.movieticket.dao.BookingWriter;
+import com.movieticket.dao.MovieDAO;
+import com.movieticket.dao.MovieShowStatsDAO;
+import com.movieticket.dao.SeatDAO;
+import com.movieticket.dao.UserDAO;
+import com.movieticket.model.Booking;
+import com.movieticket.model.BookingBatch;
+import com.movieticket.model.BookingResult;
+import com.movieticket.model.User;
+import com.movieticket.util.DatabaseConnection;
+import com.movieticket.util.SqlTracer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class QueryPlanChecker {
+
+    private static final int SEED_BOOKINGS = Integer.getInteger("movieticket.plan.seedBookings", 0);
+    private static final int BOOKINGS_PER_USER = Integer.getInteger("movieticket.plan.bookingsPerUser", 25);
+    private static final long SMALL_TABLE_ROWS = Long.getLong("movieticket.plan.smallTableRows", 1000L);
+
+    // Plans that are expected to scan or sort, by a fragment of their SQL
+    private static final Map<String, String> ALLOWED = new LinkedHashMap<>();
+    static {
+        ALLOWED.put("WHERE m.is_active = TRUE ORDER BY s.movie_id",
+                "full catalog load reads every show of every active movie, once per FULL_RELOAD_EVERY refreshes");
+    }
+
+    private final MovieDAO movieDAO = new MovieDAO();
+    private final UserDAO userDAO = new UserDAO();
+    private final BookingDAO bookingDAO = new BookingDAO();
+    private final SeatDAO seatDAO = new SeatDAO();
+
+    // First execution of each statement, in the order they ran, and the step that ran it
+    private final Map<String, Object[]> statements = new LinkedHashMap<>();
+    private final Map<String, String> steps = new LinkedHashMap<>();
+    private volatile String step = "setup";
+
+    /**
+     * One row of EXPLAIN output
+     */
+    private static final class PlanRow {
+        String table;
+        String type;
+        String key;
+        long rows;
+        String extra;
+
+        @Override
+        public String toString() {
+            return table + " type=" + type + " key=" + key + " rows=" + rows
+                    + (extra != null && !extra.isEmpty() ? " (" + extra + ")" : "");
+        }
+    }
+
+    /**
+     * Step 1: Seed to realistic volume if asked, refresh index statistics
+     * Step 2: Run every DAO path with the statement listener on
+     * Step 3: EXPLAIN each statement and report
+     * @return Number of statements whose plan failed
+     */
+    public int run() throws SQLException {
+        // Step 1: Data
+        if (SEED_BOOKINGS > 0) {
+            seed();
+        }
+        analyze();
+
+        // Step 2: Collect
+        SqlTracer tracer = SqlTracer.getInstance();
+        boolean wasEnabled = tracer.isEnabled();
+        tracer.setStatementListener(this::collect);
+        tracer.setEnabled(true);
+        try {
+            exercise();
+        } finally {
+            tracer.setEnabled(wasEnabled);
+            tracer.setStatementListener(null);
+        }
+
+        // Step 3: Explain
+        int failed = 0;
+        int checked = 0;
+        List<String> snapshot;
+        synchronized (statements) {
+            snapshot = new ArrayList<>(statements.keySet());
+        }
+        for (String sql : snapshot) {
+            if (!hasPlan(sql)) {
+                continue;
+            }
+            checked++;
+            if (!check(sql, statements.get(sql), steps.get(sql))) {
+                failed++;
+            }
+        }
+        System.out.println();
+        System.out.println(checked + " statements checked, " + failed + " failed");
+        return failed;
+    }
+
+    private void collect(String sql, Object[] params) {
+        synchronized (statements) {
+            if (!statements.containsKey(sql)) {
+                statements.put(sql, params);
+                steps.put(sql, step);
+            }
+        }
+    }
+
+    /**
+     * Call each DAO method that reaches the database at least once
+     */
+    private void exercise() throws SQLException {
+        Sample sample = Sample.find();
+
+        step = "UserDAO";
+        User user = userDAO.getUserById(sample.userId);
+        userDAO.validateLogin(user.getUsername(), user.getPassword());
+        userDAO.isUsernameExists(user.getUsername());
+        userDAO.isEmailExists(user.getEmail());
+        String name = "plancheck" + System.currentTimeMillis() % 100000000L;
+        userDAO.registerUser(new User(name, "plancheck", name + "@plan.test", "9000000000"));
+
+        step = "MovieDAO";
+        MovieDAO.refresh();                     // full load
+        touchShow(sample.showId);
+        MovieDAO.refresh();                     // incremental load
+        movieDAO.getShowtimeGrid(sample.movieId);
+
+        step = "BookingDAO reads";
+        List<Booking> page = bookingDAO.getUserBookingsPage(sample.userId, null, 20);
+        if (!page.isEmpty()) {
+            BookingDAO.PageKey key = BookingDAO.PageKey.of(page.get(page.size() - 1));
+            bookingDAO.getUserBookingsPage(sample.userId, key, 20);
+            bookingDAO.skipUserBookings(sample.userId, key, 20);
+        }
+        bookingDAO.skipUserBookings(sample.userId, null, 20);
+        bookingDAO.countUserBookings(sample.userId);
+        bookingDAO.getUserBookings(sample.userId);
+        bookingDAO.getUserBookingBatch(sample.userId);
+        bookingDAO.scanBookings(sample.bookingId - 1, 500, new BookingBatch());
+        bookingDAO.getBookingById(sample.bookingId);
+        bookingDAO.isBookingConfirmed(sample.bookingId);
+        bookingDAO.isCancellationOpen(sample.showId);
+        bookingDAO.getTotalBookingsCount(sample.userId);
+        bookingDAO.getTotalAmountSpent(sample.userId);
+
+        step = "SeatDAO";
+        seatDAO.getTotalSeats(sample.showId);
+        seatDAO.getTakenSeats(sample.showId);
+
+        step = "BookingDAO writes";
+        int[] seats = freeSeats(sample.showId, 2);
+        Booking direct = sampleBooking(sample, 1);
+        direct.setIdempotencyKey("plancheck-" + System.nanoTime());
+        BookingResult result = bookingDAO.createBooking(direct, new int[] { seats[0] });
+        if (result.isBooked()) {
+            bookingDAO.createBooking(direct, new int[] { seats[0] }); // resolved via uk_booking_idempotency
+            bookingDAO.findBookingIdByKey(direct.getUserId(), direct.getIdempotencyKey());
+            bookingDAO.cancelBooking(result.getBookingId());
+        }
+
+        step = "BookingWriter";
+        BookingResult batched = BookingWriter.getInstance()
+                .submit(sampleBooking(sample, 1), new int[] { seats[1] }).join();
+        if (batched.isBooked()) {
+            bookingDAO.cancelBooking(batched.getBookingId());
+        }
+
+        step = "BookingStatsReconciler";
+        new BookingStatsReconciler(false).run();
+
+        step = "MovieShowStatsDAO";
+        MovieShowStatsDAO movieShowStatsDAO = new MovieShowStatsDAO();
+        movieShowStatsDAO.recountMovies(List.of(sample.movieId));
+        movieShowStatsDAO.rebuildRange(1, movieShowStatsDAO.getMaxMovieId());
+        step = "done";
+    }
+
+    private static Booking sampleBooking(Sample sample, int tickets) {
+        Booking booking = new Booking(sample.userId, sample.movieId, "", "", "", tickets, tickets * 250.0);
+        booking.setShowId(sample.showId);
+        return booking;
+    }
+
+    /**
+     * IDs to run the DAO methods with: the user with the most bookings (deep
+     * history is where plans matter) and a show far enough out to cancel
+     */
+    private static final class Sample {
+        int userId;
+        int bookingId;
+        int showId;
+        int movieId;
+
+        static Sample find() throws SQLException {
+            Sample sample = new Sample();
+            try (Connection conn = DatabaseConnection.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                try (ResultSet rs = stmt.executeQuery(
+                        "SELECT user_id, MAX(booking_id) FROM bookings GROUP BY user_id " +
+                        "ORDER BY COUNT(*) DESC LIMIT 1")) {
+                    if (!rs.next()) {
+                        throw new SQLException("No bookings to check plans against; seed the database first");
+                    }
+                    sample.userId = rs.getInt(1);
+                    sample.bookingId = rs.getInt(2);
+                }
+                try (ResultSet rs = stmt.executeQuery(
+                        "SELECT show_id, movie_id FROM shows WHERE show_start > NOW() + INTERVAL 1 DAY " +
+                        "AND available_seats > 2 ORDER BY show_start DESC LIMIT 1")) {
+                    if (!rs.next()) {
+                        throw new SQLException("No show starting more than a day from now with free seats");
+                    }
+                    sample.showId = rs.getInt(1);
+                    sample.movieId = rs.getInt(2);
+                }
+            }
+            return sample;
+        }
+    }
+
+    private int[] freeSeats(int showId, int count) {
+        int total = seatDAO.getTotalSeats(showId);
+        boolean[] taken = new boolean[total + 1];
+        for (int seat : seatDAO.getTakenSeats(showId)) {
+            if (seat >= 1 && seat <= total) {
+                taken[seat] = true;
+            }
+        }
+        int[] seats = new int[count];
+        int found = 0;
+        for (int seat = total; seat >= 1 && found < count; seat--) {
+            if (!taken[seat]) {
+                seats[found++] = seat;
+            }
+        }
+        return seats;
+    }
+
+    /**
+     * Give the incremental refresh something to pick up
+     * (a plain Statement, so it is not collected with the DAO statements)
+     */
+    private static void touchShow(int showId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("UPDATE shows SET updated_at = CURRENT_TIMESTAMP WHERE show_id = " + showId);
+        }
+    }
+
+    /**
+     * INSERT ... VALUES has no access path to check
+     */
+    private static boolean hasPlan(String sql) {
+        String upper = sql.trim().toUpperCase();
+        return !(upper.startsWith("INSERT") && !upper.contains(" SELECT "));
+    }
+
+    /**
+     * EXPLAIN one statement with the values it ran with
+     * @return true if the plan passes
+     */
+    private boolean check(String sql, Object[] params, String step) {
+        List<PlanRow> plan = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    PlanRow row = new PlanRow();
+                    row.table = rs.getString("table");
+                    row.type = rs.getString("type");
+                    row.key = rs.getString("key");
+                    row.rows = rs.getLong("rows");
+                    row.extra = rs.getString("Extra");
+                    plan.add(row);
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("ERROR  [" + step + "] " + sql);
+            System.out.println("       " + e.getMessage());
+            return false;
+        }
+
+        List<String> problems = new ArrayList<>();
+        for (PlanRow row : plan) {
+            String extra = row.extra != null ? row.extra : "";
+            // <derivedN>, <unionN,M> and the like are intermediate results, not tables
+            boolean baseTable = row.table != null && !row.table.startsWith("<");
+            if (baseTable && ("ALL".equals(row.type) || "index".equals(row.type))
+                    && row.rows > SMALL_TABLE_ROWS) {
+                problems.add(("ALL".equals(row.type) ? "full table scan" : "full index scan") + " of " + row.table);
+            }
+            if (extra.contains("Using filesort")) {
+                problems.add("filesort on " + row.table);
+            }
+            if (extra.contains("Using temporary")) {
+                problems.add("temporary table on " + row.table);
+            }
+        }
+
+        String allowed = allowedReason(sql);
+        String verdict = problems.isEmpty() ? "OK" : allowed != null ? "ALLOWED" : "FAIL";
+        System.out.println(String.format("%-7s[%s] %s", verdict, step, sql));
+        for (PlanRow row : plan) {
+            System.out.println("       " + row);
+        }
+        if (!problems.isEmpty()) {
+            System.out.println("       " + String.join(", ", problems)
+                    + (allowed != null ? " - allowed: " + allowed : ""));
+        }
+        return problems.isEmpty() || allowed != null;
+    }
+
+    private static String allowedReason(String sql) {
+        for (Map.Entry<String, String> entry : ALLOWED.entrySet()) {
+            if (sql.contains(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Top bookings up to SEED_BOOKINGS with synthetic users, spread over the
+     * existing shows and the last year
+     */
+    private static void seed() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            long existing = count(conn, "SELECT COUNT(*) FROM bookings");
+            long toAdd = SEED_BOOKINGS - existing;
+            if (toAdd <= 0) {
+                return;
+            }
+            List<int[]> shows = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT show_id, movie_id FROM shows")) {
+                while (rs.next()) {
+                    shows.add(new int[] { rs.getInt(1), rs.getInt(2) });
+                }
+            }
+            if (shows.isEmpty()) {
+                throw new SQLException("No shows to seed bookings for; load database_schema.sql first");
+            }
+
+            System.out.println("Seeding " + toAdd + " bookings...");
+            Random random = new Random(42);
+            int users = (int) Math.max(1, toAdd / BOOKINGS_PER_USER);
+            long base = count(conn, "SELECT COALESCE(MAX(user_id), 0) FROM users");
+            long now = System.currentTimeMillis();
+            long year = 365L * 24 * 3600 * 1000;
+
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO users (username, password, email, phone) VALUES (?, ?, ?, ?)")) {
+                for (int i = 1; i <= users; i++) {
+                    String name = "seed" + (base + i);
+                    pstmt.setString(1, name);
+                    pstmt.setString(2, "seed");
+                    pstmt.setString(3, name + "@seed.test");
+                    pstmt.setString(4, "9" + String.format("%09d", (base + i) % 1000000000L));
+                    pstmt.addBatch();
+                    if (i % 5000 == 0) {
+                        pstmt.executeBatch();
+                        conn.commit();
+                    }
+                }
+                pstmt.executeBatch();
+                conn.commit();
+            }
+            long firstUser = count(conn, "SELECT MIN(user_id) FROM users WHERE username = 'seed" + (base + 1) + "'");
+
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO bookings (user_id, movie_id, show_id, booking_date, number_of_tickets, " +
+                    "total_amount, status) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                for (long i = 1; i <= toAdd; i++) {
+                    int[] show = shows.get(random.nextInt(shows.size()));
+                    int tickets = 1 + random.nextInt(4);
+                    pstmt.setLong(1, firstUser + random.nextInt(users));
+                    pstmt.setInt(2, show[1]);
+                    pstmt.setInt(3, show[0]);
+                    pstmt.setTimestamp(4, new Timestamp(now - (long) (random.nextDouble() * year)));
+                    pstmt.setInt(5, tickets);
+                    pstmt.setDouble(6, tickets * 250.0);
+                    pstmt.setString(7, random.nextInt(10) == 0 ? "CANCELLED" : "CONFIRMED");
+                    pstmt.addBatch();
+                    if (i % 5000 == 0) {
+                        pstmt.executeBatch();
+                        conn.commit();
+                    }
+                }
+                pstmt.executeBatch();
+                conn.commit();
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            // Seeded history only; availability and user_booking_stats are not adjusted
+        }
+    }
+
+    private static long count(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Fresh index statistics, so the plans are the ones production would get
+     */
+    private static void analyze() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE TABLE users, movies, theaters, shows, bookings, booking_seats, user_booking_stats");
+        }
+    }
+
+    public static void main(String[] args) {
+        int failed;
+        try {
+            failed = new QueryPlanChecker().run();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            failed = -1;
+        } finally {
+            BookingWriter.getInstance().shutdown();
+            DatabaseConnection.shutdown();
+        }
+        System.exit(failed == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Queue Status
+ * File: QueueStatus.java
+ * Location: src/com/movieticket/inventory/QueueStatus.java
+ *
+ * Purpose: Where a waiting-room token stands: still waiting (with its position
+ * and estimated wait), admitted to booking, or expired
+ */
+
+package com.movieticket.inventory;
+
+public final class QueueStatus {
+
+    private final String token;
+    private final long position;            // 0 once admitted
+    private final long estimatedWaitSeconds;
+    private final boolean admitted;
+    private final boolean expired;
+
+    QueueStatus(String token, long position, long estimatedWaitSeconds, boolean admitted, boolean expired) {
+        this.token = token;
+        this.position = position;
+        this.estimatedWaitSeconds = estimatedWaitSeconds;
+        this.admitted = admitted;
+        this.expired = expired;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * @return Number of tokens admitted before this one is (1 = next), 0 once admitted
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * @return Estimated seconds until admission at the current admission rate
+     */
+    public long getEstimatedWaitSeconds() {
+        return estimatedWaitSeconds;
+    }
+
+    /**
+     * @return true if the token may book now
+     */
+    public boolean isAdmitted() {
+        return admitted;
+    }
+
+    /**
+     * @return true if the token was admitted too long ago and must queue again
+     */
+    public boolean isExpired() {
+        return expired;
+    }
+
+    @Override
+    public String toString() {
+        return "QueueStatus{" +
+                "position=" + position +
+                ", estimatedWaitSeconds=" + estimatedWaitSeconds +
+                ", admitted=" + admitted +
+                ", expired=" + expired +
+                '}';
+    }
+}
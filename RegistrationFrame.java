@@ -0,0 +1,239 @@
+/**
+ * Registration Frame - New User Module
+ * Opened from the login screen
+ *
+ * Purpose: Let a new user create an account
+ * Features: Input validation, Duplicate username/email check, Return to login
+ */
+
+package com.movieticket.ui;
+
+import com.movieticket.dao.UserDAO;
+import com.movieticket.model.User;
+import com.movieticket.util.DaoExecutor;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+
+public class RegistrationFrame extends JFrame {
+
+    // Components
+    private JTextField txtUsername;
+    private JPasswordField txtPassword;
+    private JPasswordField txtConfirmPassword;
+    private JTextField txtEmail;
+    private JTextField txtPhone;
+    private JButton btnRegister;
+    private JButton btnBack;
+    private UserDAO userDAO;
+    private JFrame loginFrame;
+
+    public RegistrationFrame(JFrame loginFrame) {
+        // Initialize DAO
+        userDAO = new UserDAO();
+        this.loginFrame = loginFrame;
+
+        // Step 1: Setup Frame
+        setTitle("Movie Ticket Booking - Register");
+        setSize(480, 450);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLocationRelativeTo(null);
+        setResizable(false);
+
+        // Step 2: Initialize Components
+        initComponents();
+
+        // Step 3: Add Event Listeners
+        addEventListeners();
+    }
+
+    /**
+     * Initialize all UI components
+     */
+    private void initComponents() {
+        // Main Panel
+        JPanel mainPanel = new JPanel();
+        mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.Y_AXIS));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(20, 40, 20, 40));
+        mainPanel.setBackground(new Color(240, 248, 255));
+
+        // Title Label
+        JLabel lblTitle = new JLabel("Create Account");
+        lblTitle.setFont(new Font("Arial", Font.BOLD, 22));
+        lblTitle.setAlignmentX(Component.CENTER_ALIGNMENT);
+        lblTitle.setForeground(new Color(25, 25, 112));
+
+        txtUsername = new JTextField(20);
+        txtPassword = new JPasswordField(20);
+        txtConfirmPassword = new JPasswordField(20);
+        txtEmail = new JTextField(20);
+        txtPhone = new JTextField(20);
+
+        // Button Panel
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 10));
+        buttonPanel.setBackground(new Color(240, 248, 255));
+        btnRegister = new JButton("Register");
+        btnRegister.setPreferredSize(new Dimension(120, 35));
+        btnRegister.setBackground(new Color(70, 130, 180));
+        btnRegister.setForeground(Color.WHITE);
+        btnRegister.setFocusPainted(false);
+
+        btnBack = new JButton("Back to Login");
+        btnBack.setPreferredSize(new Dimension(140, 35));
+        btnBack.setBackground(new Color(100, 149, 237));
+        btnBack.setForeground(Color.WHITE);
+        btnBack.setFocusPainted(false);
+
+        buttonPanel.add(btnRegister);
+        buttonPanel.add(btnBack);
+
+        // Add components to main panel
+        mainPanel.add(Box.createVerticalStrut(10));
+        mainPanel.add(lblTitle);
+        mainPanel.add(Box.createVerticalStrut(20));
+        mainPanel.add(createFieldPanel("Username:", txtUsername));
+        mainPanel.add(createFieldPanel("Password:", txtPassword));
+        mainPanel.add(createFieldPanel("Confirm:", txtConfirmPassword));
+        mainPanel.add(createFieldPanel("Email:", txtEmail));
+        mainPanel.add(createFieldPanel("Phone:", txtPhone));
+        mainPanel.add(Box.createVerticalStrut(15));
+        mainPanel.add(buttonPanel);
+
+        add(mainPanel);
+    }
+
+    /**
+     * One labelled input row
+     */
+    private JPanel createFieldPanel(String label, JTextField field) {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        panel.setBackground(new Color(240, 248, 255));
+        JLabel lblField = new JLabel(label);
+        lblField.setPreferredSize(new Dimension(100, 25));
+        panel.add(lblField);
+        panel.add(field);
+        return panel;
+    }
+
+    /**
+     * Add event listeners to buttons
+     */
+    private void addEventListeners() {
+        // Register button click event
+        btnRegister.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                handleRegistration();
+            }
+        });
+
+        // Back button click event
+        btnBack.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                dispose();
+            }
+        });
+
+        // Closing this frame (either way) shows the login frame again
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                loginFrame.setVisible(true);
+            }
+        });
+    }
+
+    /**
+     * Step 1: Get details from fields
+     * Step 2: Validate input
+     * Step 3: Check username and email are free, then save the user (off the EDT)
+     * Step 4: Return to login if successful
+     */
+    private void handleRegistration() {
+        // Step 1: Get input
+        String username = txtUsername.getText().trim();
+        String password = new String(txtPassword.getPassword());
+        String confirmPassword = new String(txtConfirmPassword.getPassword());
+        String email = txtEmail.getText().trim();
+        String phone = txtPhone.getText().trim();
+
+        // Step 2: Validate input
+        String problem = validateInput(username, password, confirmPassword, email, phone);
+        if (problem != null) {
+            JOptionPane.showMessageDialog(this,
+                problem,
+                "Validation Error",
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        // Step 3: Check and save off the EDT
+        btnRegister.setEnabled(false);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+
+        User user = new User(username, password, email, phone);
+        DaoExecutor.supply(() -> {
+                if (userDAO.isUsernameExists(username)) {
+                    return "Username is already taken!";
+                }
+                if (userDAO.isEmailExists(email)) {
+                    return "An account with this email already exists!";
+                }
+                return userDAO.registerUser(user) ? null : "Registration failed! Please try again.";
+            })
+            .whenCompleteAsync((error, failure) -> {
+                btnRegister.setEnabled(true);
+                setCursor(Cursor.getDefaultCursor());
+                if (failure != null) {
+                    failure.printStackTrace();
+                    error = "Registration failed! Please try again.";
+                }
+                onRegistrationResult(username, error);
+            }, DaoExecutor.EDT);
+    }
+
+    /**
+     * @return Message describing the first invalid field, or null if all are valid
+     */
+    private String validateInput(String username, String password, String confirmPassword,
+                                 String email, String phone) {
+        if (username.isEmpty() || password.isEmpty() || email.isEmpty() || phone.isEmpty()) {
+            return "Please fill in all fields!";
+        }
+        if (username.length() < 3 || username.length() > 50) {
+            return "Username must be 3 to 50 characters!";
+        }
+        if (password.length() < 6) {
+            return "Password must be at least 6 characters!";
+        }
+        if (!password.equals(confirmPassword)) {
+            return "Passwords do not match!";
+        }
+        if (!email.matches("[^@\\s]+@[^@\\s]+\\.[^@\\s]+")) {
+            return "Please enter a valid email address!";
+        }
+        if (!phone.matches("[0-9+\\- ]{7,15}")) {
+            return "Please enter a valid phone number!";
+        }
+        return null;
+    }
+
+    /**
+     * Step 4: Return to login if successful (runs on EDT)
+     */
+    private void onRegistrationResult(String username, String error) {
+        if (error == null) {
+            JOptionPane.showMessageDialog(this,
+                "Registration Successful! You can now login as " + username,
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
+            dispose();
+        } else {
+            JOptionPane.showMessageDialog(this,
+                error,
+                "Registration Failed",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+}
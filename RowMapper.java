@@ -0,0 +1,101 @@
+/**
+ * Row Mapper
+ * File: RowMapper.java
+ * Location: src/com/movieticket/dao/RowMapper.java
+ *
+ * Purpose: Turn result set rows into model objects by column index
+ * A mapper owns its column list; queries select getColumns() so column i is
+ * at index i + 1 and nothing is looked up by label per row. A result set of
+ * any other shape (e.g. SELECT *) has its indexes resolved once, not per row.
+ */
+
+package com.movieticket.dao;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class RowMapper<T> {
+
+    /**
+     * Reads one row; col[i] is the JDBC index of the mapper's i-th column
+     */
+    @FunctionalInterface
+    public interface RowReader<T> {
+        T read(ResultSet rs, int[] col) throws SQLException;
+    }
+
+    private final String[] labels;
+    private final String columns;
+    private final int[] positional;
+    private final RowReader<T> reader;
+
+    /**
+     * @param columns Select expressions, e.g. "s.show_id"; the label is the part after the dot
+     * @param reader Builds the object from the current row
+     */
+    public RowMapper(String[] columns, RowReader<T> reader) {
+        this.columns = String.join(", ", columns);
+        this.labels = new String[columns.length];
+        this.positional = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            labels[i] = columns[i].substring(columns[i].lastIndexOf('.') + 1);
+            positional[i] = i + 1;
+        }
+        this.reader = reader;
+    }
+
+    /**
+     * @return Comma-separated select list, in the order the reader expects
+     */
+    public String getColumns() {
+        return columns;
+    }
+
+    /**
+     * Map every remaining row
+     * @param rs Open result set
+     * @return List of mapped objects
+     */
+    public List<T> mapAll(ResultSet rs) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        int[] col = resolve(rs);
+        while (rs.next()) {
+            rows.add(reader.read(rs, col));
+        }
+        return rows;
+    }
+
+    /**
+     * Map the next row
+     * @param rs Open result set
+     * @return Mapped object, or null if there are no more rows
+     */
+    public T mapNext(ResultSet rs) throws SQLException {
+        return rs.next() ? reader.read(rs, resolve(rs)) : null;
+    }
+
+    /**
+     * Column indexes for this result set: positional when it was selected
+     * with getColumns(), otherwise looked up by label once
+     */
+    private int[] resolve(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        if (meta.getColumnCount() == labels.length) {
+            boolean same = true;
+            for (int i = 0; i < labels.length && same; i++) {
+                same = labels[i].equalsIgnoreCase(meta.getColumnLabel(i + 1));
+            }
+            if (same) {
+                return positional;
+            }
+        }
+        int[] col = new int[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            col[i] = rs.findColumn(labels[i]);
+        }
+        return col;
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Seat Data Access Object
+ * File: SeatDAO.java
+ * Location: src/com/movieticket/dao/SeatDAO.java
+ *
+ * Purpose: Handle database operations for individual booked seats
+ * Methods: Get show capacity, Get taken seats, Save/Get/Delete booking seats
+ */
+
+package com.movieticket.dao;
+
+import com.movieticket.util.DaoMetric;
+import com.movieticket.util.DaoMetrics;
+import com.movieticket.util.DatabaseConnection;
+import java.sql.*;
+import java.util.Arrays;
+
+public class SeatDAO {
+
+    // Latency, call, error and row metrics per method (see DaoMetrics)
+    private static final DaoMetric GET_TOTAL_SEATS = DaoMetrics.register("SeatDAO", "getTotalSeats");
+    private static final DaoMetric GET_TAKEN_SEATS = DaoMetrics.register("SeatDAO", "getTakenSeats");
+    private static final DaoMetric SAVE_BOOKING_SEATS = DaoMetrics.register("SeatDAO", "saveBookingSeats");
+
+    /**
+     * Get the total number of seats for a show
+     * @param showId Show ID
+     * @return Seat count, or -1 if the show does not exist
+     */
+    public int getTotalSeats(int showId) {
+        long start = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            String sql = "SELECT total_seats FROM shows WHERE show_id = ?";
+
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, showId);
+
+            rs = pstmt.executeQuery();
+
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+
+        } catch (SQLException e) {
+            GET_TOTAL_SEATS.error();
+            e.printStackTrace();
+        } finally {
+            closeResources(conn, pstmt, rs);
+            GET_TOTAL_SEATS.stop(start);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Get all seats already sold for a show
+     * @param showId Show ID
+     * @return Seat numbers, or null if the lookup failed
+     */
+    public int[] getTakenSeats(int showId) {
+        long start = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            String sql = "SELECT seat_no FROM booking_seats WHERE show_id = ?";
+
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, showId);
+
+            rs = pstmt.executeQuery();
+
+            int[] seats = new int[16];
+            int count = 0;
+            while (rs.next()) {
+                if (count == seats.length) {
+                    seats = Arrays.copyOf(seats, count * 2);
+                }
+                seats[count++] = rs.getInt(1);
+            }
+            GET_TAKEN_SEATS.rows(count);
+            return Arrays.copyOf(seats, count);
+
+        } catch (SQLException e) {
+            GET_TAKEN_SEATS.error();
+            e.printStackTrace();
+        } finally {
+            closeResources(conn, pstmt, rs);
+            GET_TAKEN_SEATS.stop(start);
+        }
+
+        return null;
+    }
+
+    /**
+     * Save the seats of a confirmed booking
+     * @param bookingId Booking ID
+     * @param showId Show ID
+     * @param seats Seat numbers
+     * @return true if all seats were saved
+     */
+    public boolean saveBookingSeats(int bookingId, int showId, int[] seats) {
+        long start = System.nanoTime();
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            return saveBookingSeats(conn, bookingId, showId, seats);
+
+        } catch (SQLException e) {
+            SAVE_BOOKING_SEATS.error();
+            e.printStackTrace();
+            return false;
+        } finally {
+            closeResources(conn, null, null);
+            SAVE_BOOKING_SEATS.stop(start);
+        }
+    }
+
+    /**
+     * Save the seats of a confirmed booking on the caller's connection
+     * (so it can share a transaction with the booking insert)
+     * The primary key on (show_id, seat_no) rejects double-sold seats
+     * @param conn Open connection
+     * @param bookingId Booking ID
+     * @param showId Show ID
+     * @param seats Seat numbers
+     * @return true if all seats were saved
+     * @throws SQLException if the insert fails
+     */
+    public boolean saveBookingSeats(Connection conn, int bookingId, int showId, int[] seats)
+            throws SQLException {
+        String sql = "INSERT INTO booking_seats (booking_id, show_id, seat_no) VALUES (?, ?, ?)";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int seat : seats) {
+                pstmt.setInt(1, bookingId);
+                pstmt.setInt(2, showId);
+                pstmt.setInt(3, seat);
+                pstmt.addBatch();
+            }
+            int[] results = pstmt.executeBatch();
+            return results.length == seats.length;
+        }
+    }
+
+    /**
+     * Get the seats of a booking
+     * @param conn Open connection
+     * @param bookingId Booking ID
+     * @return Seat numbers (empty if the booking has no seat rows)
+     * @throws SQLException if the query fails
+     */
+    public int[] getBookingSeats(Connection conn, int bookingId) throws SQLException {
+        String sql = "SELECT seat_no FROM booking_seats WHERE booking_id = ? ORDER BY seat_no";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, bookingId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                int[] seats = new int[10];
+                int count = 0;
+                while (rs.next()) {
+                    if (count == seats.length) {
+                        seats = Arrays.copyOf(seats, count * 2);
+                    }
+                    seats[count++] = rs.getInt(1);
+                }
+                return Arrays.copyOf(seats, count);
+            }
+        }
+    }
+
+    /**
+     * Delete the seats of a booking (on cancellation)
+     * @param conn Open connection
+     * @param bookingId Booking ID
+     * @return Number of seats released
+     * @throws SQLException if the delete fails
+     */
+    public int deleteBookingSeats(Connection conn, int bookingId) throws SQLException {
+        String sql = "DELETE FROM booking_seats WHERE booking_id = ?";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, bookingId);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Close database resources
+     */
+    private void closeResources(Connection conn, PreparedStatement pstmt, ResultSet rs) {
+        try {
+            if (rs != null) rs.close();
+            if (pstmt != null) pstmt.close();
+            if (conn != null) conn.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Seat Hold
+ * File: SeatHold.java
+ * Location: src/com/movieticket/inventory/SeatHold.java
+ *
+ * Purpose: Seats held for one customer for a limited time while they pay
+ * A hold ends exactly once: claimed for payment, released, or expired.
+ */
+
+package com.movieticket.inventory;
+
+import com.movieticket.util.TimingWheel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class SeatHold {
+
+    static final int ACTIVE = 0;
+    static final int CLAIMED = 1;
+    static final int RELEASED = 2;
+    static final int EXPIRED = 3;
+
+    private final long holdId;
+    private final String purchaseKey;
+    private final int showId;
+    private final int[] seats;
+    private final long expiresAt;
+    private final AtomicInteger state = new AtomicInteger(ACTIVE);
+
+    // Set once right after scheduling, before the hold is handed out
+    TimingWheel.Timeout expiry;
+
+    SeatHold(long holdId, String purchaseKey, int showId, int[] seats, long expiresAt) {
+        this.holdId = holdId;
+        this.purchaseKey = purchaseKey;
+        this.showId = showId;
+        this.seats = seats;
+        this.expiresAt = expiresAt;
+    }
+
+    public long getHoldId() {
+        return holdId;
+    }
+
+    /**
+     * @return Idempotency key for paying for this hold: the same for every
+     *         submission of the purchase, unique across restarts (at most 64 characters)
+     */
+    public String getPurchaseKey() {
+        return purchaseKey;
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    /**
+     * @return Copy of the held seat numbers
+     */
+    public int[] getSeats() {
+        return seats.clone();
+    }
+
+    int[] seats() {
+        return seats;
+    }
+
+    /**
+     * @return Expiry time in epoch milliseconds
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * @return true while the seats are held and not yet claimed for payment
+     */
+    public boolean isActive() {
+        return state.get() == ACTIVE;
+    }
+
+    public boolean isExpired() {
+        return state.get() == EXPIRED;
+    }
+
+    boolean end(int newState) {
+        return state.compareAndSet(ACTIVE, newState);
+    }
+
+    @Override
+    public String toString() {
+        return "SeatHold{holdId=" + holdId + ", showId=" + showId + ", seats=" +
+               Arrays.toString(seats) + ", expiresAt=" + expiresAt + ", state=" + state.get() + "}";
+    }
+}
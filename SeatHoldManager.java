@@ -0,0 +1,136 @@
+/**
+ * Seat Hold Manager
+ * File: SeatHoldManager.java
+ * Location: src/com/movieticket/inventory/SeatHoldManager.java
+ *
+ * Purpose: Hold seats for the payment window and release them if it runs out
+ * Methods: Hold, Claim (payment starts), Release (customer backs out)
+ *
+ * Holds live only in memory on top of SeatInventory. Expiry is driven by a
+ * single TimingWheel, so each hold costs one wheel entry: no timer thread per
+ * hold and no database polling, however many customers are mid-payment.
+ * Each hold also names its purchase: a key made of a per-run UUID and the hold
+ * ID, used as the booking's idempotency key by whoever pays for it.
+ * Settings: -Dmovieticket.hold.ttlSeconds (480), tickMillis (100), wheelSize (1024)
+ */
+
+package com.movieticket.inventory;
+
+import com.movieticket.util.TimingWheel;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SeatHoldManager {
+
+    private static final long TTL_MILLIS = Long.getLong("movieticket.hold.ttlSeconds", 480) * 1000;
+    private static final long TICK_MILLIS = Long.getLong("movieticket.hold.tickMillis", 100);
+    private static final int WHEEL_SIZE = Integer.getInteger("movieticket.hold.wheelSize", 1024);
+
+    private static final SeatHoldManager INSTANCE =
+        new SeatHoldManager(SeatInventory.getInstance(), TTL_MILLIS);
+
+    private final SeatInventory inventory;
+    private final long ttlMillis;
+    private final TimingWheel wheel = new TimingWheel("seat-hold-expiry", TICK_MILLIS, WHEEL_SIZE);
+    private final AtomicLong nextHoldId = new AtomicLong();
+    private final String runId = UUID.randomUUID().toString(); // hold IDs restart with the process
+    private final AtomicLong expiredHolds = new AtomicLong();
+
+    public SeatHoldManager(SeatInventory inventory, long ttlMillis) {
+        this.inventory = inventory;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Get the shared hold manager used by the application
+     * @return SeatHoldManager
+     */
+    public static SeatHoldManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Step 1: Reserve the seats in SeatInventory
+     * Step 2: Schedule their release for when the payment window closes
+     * @param showId Show ID
+     * @param count Number of seats
+     * @return Hold, or null if the show is unknown or has too few free seats
+     */
+    public SeatHold hold(int showId, int count) {
+        // Step 1: Reserve
+        int[] seats = inventory.reserve(showId, count);
+        if (seats == null) {
+            return null;
+        }
+
+        // Step 2: Schedule expiry
+        long holdId = nextHoldId.incrementAndGet();
+        SeatHold hold = new SeatHold(holdId, runId + "-" + holdId, showId, seats,
+                                     System.currentTimeMillis() + ttlMillis);
+        hold.expiry = wheel.schedule(() -> expire(hold), ttlMillis);
+        return hold;
+    }
+
+    /**
+     * Take over a hold's seats for payment; the hold will no longer expire
+     * The caller must confirm the seats with a booking or release them via
+     * SeatInventory.release()
+     * @param hold Hold returned by hold()
+     * @return true if claimed; false if it already expired or was released
+     */
+    public boolean claim(SeatHold hold) {
+        if (!hold.end(SeatHold.CLAIMED)) {
+            return false;
+        }
+        hold.expiry.cancel();
+        return true;
+    }
+
+    /**
+     * Give the held seats back (customer closed the payment screen)
+     * @param hold Hold returned by hold()
+     */
+    public void release(SeatHold hold) {
+        if (hold.end(SeatHold.RELEASED)) {
+            hold.expiry.cancel();
+            inventory.release(hold.getShowId(), hold.seats());
+        }
+    }
+
+    /**
+     * Runs on the wheel thread when a hold's payment window closes
+     */
+    private void expire(SeatHold hold) {
+        if (hold.end(SeatHold.EXPIRED)) {
+            expiredHolds.incrementAndGet();
+            inventory.release(hold.getShowId(), hold.seats());
+        }
+    }
+
+    /**
+     * @return Hold duration in milliseconds
+     */
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * @return Number of holds still waiting to be claimed, released or expired
+     */
+    public int getActiveHolds() {
+        return wheel.getPendingCount();
+    }
+
+    /**
+     * @return Number of holds released because their time ran out
+     */
+    public long getExpiredHolds() {
+        return expiredHolds.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SeatHoldManager{active=" + getActiveHolds() + ", expired=" + expiredHolds.get() +
+               ", ttlMillis=" + ttlMillis + "}";
+    }
+}
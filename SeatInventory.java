@@ -0,0 +1,148 @@
+/**
+ * Seat Inventory Engine
+ * File: SeatInventory.java
+ * Location: src/com/movieticket/inventory/SeatInventory.java
+ *
+ * Purpose: In-process seat availability for every show, keyed by show_id
+ * Features: Lock-free seat reservation, release, persistence of confirmed seats
+ *
+ * Each show's seat map is loaded from booking_seats on first use. Reserving
+ * seats only touches that show's ShowSeats bitmap (compare-and-set, no locks),
+ * so thousands of concurrent attempts on one show do not queue behind each
+ * other. The primary key on booking_seats (show_id, seat_no) remains the
+ * final guard when several application nodes sell the same show.
+ */
+
+package com.movieticket.inventory;
+
+import com.movieticket.dao.SeatDAO;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SeatInventory {
+
+    private static final SeatInventory INSTANCE = new SeatInventory(new SeatDAO());
+
+    private final SeatDAO seatDAO;
+    private final ConcurrentHashMap<Integer, ShowSeats> shows = new ConcurrentHashMap<>();
+
+    public SeatInventory(SeatDAO seatDAO) {
+        this.seatDAO = seatDAO;
+    }
+
+    /**
+     * Get the shared inventory used by the application
+     * @return SeatInventory
+     */
+    public static SeatInventory getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Reserve seats for a show
+     * Reserved seats are held in memory only until confirm() or release()
+     * @param showId Show ID
+     * @param count Number of seats
+     * @return Seat numbers, or null if the show is unknown or has too few free seats
+     */
+    public int[] reserve(int showId, int count) {
+        ShowSeats seats = getShowSeats(showId);
+        return seats != null ? seats.reserve(count) : null;
+    }
+
+    /**
+     * Return reserved seats (payment failed or hold expired)
+     * @param showId Show ID
+     * @param seats Seat numbers returned by reserve()
+     */
+    public void release(int showId, int[] seats) {
+        ShowSeats showSeats = shows.get(showId);
+        if (showSeats != null && seats != null) {
+            showSeats.release(seats);
+        }
+    }
+
+    /**
+     * Persist reserved seats against a booking
+     * On failure the seats are released back to the show
+     * @param bookingId Booking ID
+     * @param showId Show ID
+     * @param seats Seat numbers returned by reserve()
+     * @return true if the seats were saved
+     */
+    public boolean confirm(int bookingId, int showId, int[] seats) {
+        boolean saved = seatDAO.saveBookingSeats(bookingId, showId, seats);
+        if (!saved) {
+            release(showId, seats);
+        }
+        return saved;
+    }
+
+    /**
+     * Get the number of free seats for a show
+     * @param showId Show ID
+     * @return Free seats, or -1 if the show is unknown
+     */
+    public int getFreeSeats(int showId) {
+        ShowSeats seats = getShowSeats(showId);
+        return seats != null ? seats.getFreeSeats() : -1;
+    }
+
+    /**
+     * Check whether a single seat is taken
+     * @param showId Show ID
+     * @param seat Seat number
+     * @return true if taken (or the show is unknown)
+     */
+    public boolean isSeatTaken(int showId, int seat) {
+        ShowSeats seats = getShowSeats(showId);
+        return seats == null || seat < 1 || seat > seats.getCapacity() || seats.isTaken(seat);
+    }
+
+    /**
+     * Drop a show's seat map so it is reloaded from the database on next use
+     * @param showId Show ID
+     */
+    public void evict(int showId) {
+        shows.remove(showId);
+    }
+
+    /**
+     * Step 1: Return the loaded seat map if present
+     * Step 2: Otherwise load it outside any lock and publish it with putIfAbsent
+     */
+    private ShowSeats getShowSeats(int showId) {
+        ShowSeats seats = shows.get(showId);
+        if (seats != null) {
+            return seats;
+        }
+
+        int capacity = seatDAO.getTotalSeats(showId);
+        if (capacity <= 0) {
+            return null;
+        }
+        int[] taken = seatDAO.getTakenSeats(showId);
+        if (taken == null) {
+            return null;
+        }
+
+        ShowSeats loaded = new ShowSeats(showId, capacity, taken);
+        ShowSeats existing = shows.putIfAbsent(showId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("SeatInventory{");
+        Integer[] ids = shows.keySet().toArray(new Integer[0]);
+        Arrays.sort(ids);
+        for (Integer id : ids) {
+            ShowSeats seats = shows.get(id);
+            if (seats != null) {
+                sb.append(" show ").append(id).append(": ")
+                  .append(seats.getFreeSeats()).append("/").append(seats.getCapacity());
+            }
+        }
+        return sb.append(" }").toString();
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Session Store
+ * File: SessionStore.java
+ * Location: src/com/movieticket/server/SessionStore.java
+ *
+ * Purpose: Map bearer tokens issued at login to the logged-in user
+ * Tokens are 128 random bits, kept in memory only and expire after
+ * movieticket.server.sessionMinutes (120) without use.
+ */
+
+package com.movieticket.server;
+
+import com.movieticket.model.User;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class SessionStore {
+
+    private static final long SESSION_TTL_MILLIS =
+            TimeUnit.MINUTES.toMillis(Long.getLong("movieticket.server.sessionMinutes", 120));
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * A logged-in user; lastUsed is refreshed on every request
+     */
+    static final class Session {
+        final User user;
+        volatile long lastUsed = System.currentTimeMillis();
+
+        Session(User user) {
+            this.user = user;
+        }
+    }
+
+    /**
+     * Start a session for a user
+     * @param user Logged-in user
+     * @return Bearer token
+     */
+    public String create(User user) {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user));
+        return token;
+    }
+
+    /**
+     * @param token Bearer token
+     * @return User, or null if the token is unknown or expired
+     */
+    public User get(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - session.lastUsed > SESSION_TTL_MILLIS) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.lastUsed = now;
+        return session.user;
+    }
+
+    /**
+     * End a session (logout)
+     */
+    public void remove(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    /**
+     * Drop expired sessions
+     * @return Number removed
+     */
+    public int evictExpired() {
+        long cutoff = System.currentTimeMillis() - SESSION_TTL_MILLIS;
+        int before = sessions.size();
+        sessions.values().removeIf(session -> session.lastUsed < cutoff);
+        return before - sessions.size();
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Show Model Class
+ * File: Show.java
+ * Location: src/com/movieticket/model/Show.java
+ *
+ * Purpose: Represent a single screening of a movie at a theater
+ */
+
+package com.movieticket.model;
+
+import java.sql.Timestamp;
+
+public class Show {
+
+    private int showId;
+    private int movieId;
+    private int theaterId;
+    private String theaterName;
+    private String showTime;       // display label, e.g. "06:00 PM"
+    private Timestamp showStart;   // actual start date and time
+    private int availableSeats;
+
+    // Full constructor
+    public Show(int showId, int movieId, int theaterId, String theaterName, String showTime,
+                Timestamp showStart, int availableSeats) {
+        this.showId = showId;
+        this.movieId = movieId;
+        this.theaterId = theaterId;
+        this.theaterName = theaterName;
+        this.showTime = showTime;
+        this.showStart = showStart;
+        this.availableSeats = availableSeats;
+    }
+
+    // Getters and Setters
+    public int getShowId() {
+        return showId;
+    }
+
+    public void setShowId(int showId) {
+        this.showId = showId;
+    }
+
+    public int getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(int movieId) {
+        this.movieId = movieId;
+    }
+
+    public int getTheaterId() {
+        return theaterId;
+    }
+
+    public void setTheaterId(int theaterId) {
+        this.theaterId = theaterId;
+    }
+
+    public String getTheaterName() {
+        return theaterName;
+    }
+
+    public void setTheaterName(String theaterName) {
+        this.theaterName = theaterName;
+    }
+
+    public String getShowTime() {
+        return showTime;
+    }
+
+    public void setShowTime(String showTime) {
+        this.showTime = showTime;
+    }
+
+    public Timestamp getShowStart() {
+        return showStart;
+    }
+
+    public void setShowStart(Timestamp showStart) {
+        this.showStart = showStart;
+    }
+
+    public int getAvailableSeats() {
+        return availableSeats;
+    }
+
+    public void setAvailableSeats(int availableSeats) {
+        this.availableSeats = availableSeats;
+    }
+
+    @Override
+    public String toString() {
+        return "Show{" +
+                "showId=" + showId +
+                ", movieId=" + movieId +
+                ", theaterId=" + theaterId +
+                ", theaterName='" + theaterName + '\'' +
+                ", showTime='" + showTime + '\'' +
+                ", showStart=" + showStart +
+                ", availableSeats=" + availableSeats +
+                '}';
+    }
+}
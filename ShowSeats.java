@@ -0,0 +1,145 @@
+/**
+ * Show Seat Map
+ * File: ShowSeats.java
+ * Location: src/com/movieticket/inventory/ShowSeats.java
+ *
+ * Purpose: Lock-free seat bitmap for a single show
+ * One bit per seat (1 = taken), packed 64 seats per word. Seats are claimed
+ * with compare-and-set on individual words, so concurrent reservations on the
+ * same show only contend when they touch the same 64-seat block.
+ */
+
+package com.movieticket.inventory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+final class ShowSeats {
+
+    private final int showId;
+    private final int capacity;
+    private final AtomicLongArray words;
+
+    // Free seat count, always <= number of clear bits. Reservations take
+    // their count here first, so a sold-out show fails without scanning.
+    private final AtomicInteger free;
+
+    // Word where the last reservation found seats; next scan starts there
+    private volatile int hint;
+
+    ShowSeats(int showId, int capacity, int[] takenSeats) {
+        this.showId = showId;
+        this.capacity = capacity;
+        int wordCount = (capacity + 63) >>> 6;
+        this.words = new AtomicLongArray(wordCount);
+
+        // Mark padding bits beyond capacity as taken
+        int tail = capacity & 63;
+        if (tail != 0) {
+            words.set(wordCount - 1, -1L << tail);
+        }
+
+        int taken = 0;
+        for (int seat : takenSeats) {
+            int index = seat - 1;
+            if (index < 0 || index >= capacity) continue;
+            long bit = 1L << (index & 63);
+            long old = words.getAndAccumulate(index >>> 6, bit, (w, b) -> w | b);
+            if ((old & bit) == 0) taken++;
+        }
+        this.free = new AtomicInteger(capacity - taken);
+    }
+
+    int getShowId() {
+        return showId;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    int getFreeSeats() {
+        return free.get();
+    }
+
+    /**
+     * Step 1: Take the seat count from the free counter
+     * Step 2: Claim that many clear bits, one word at a time
+     * @param count Number of seats
+     * @return Seat numbers (1-based), or null if not enough seats are free
+     */
+    int[] reserve(int count) {
+        if (count <= 0) {
+            return null;
+        }
+
+        // Step 1: Claim the count
+        int available;
+        do {
+            available = free.get();
+            if (available < count) {
+                return null;
+            }
+        } while (!free.compareAndSet(available, available - count));
+
+        // Step 2: Claim bits; the counter guarantees enough clear bits exist
+        int[] seats = new int[count];
+        int found = 0;
+        int wordCount = words.length();
+        int index = hint;
+        while (found < count) {
+            long word = words.get(index);
+            long clear = ~word;
+            if (clear == 0) {
+                index = index + 1 == wordCount ? 0 : index + 1;
+                continue;
+            }
+
+            long take = 0;
+            int taking = 0;
+            while (clear != 0 && found + taking < count) {
+                long bit = clear & -clear;
+                take |= bit;
+                clear &= clear - 1;
+                taking++;
+            }
+
+            if (words.compareAndSet(index, word, word | take)) {
+                while (take != 0) {
+                    seats[found++] = (index << 6) + Long.numberOfTrailingZeros(take) + 1;
+                    take &= take - 1;
+                }
+                hint = index;
+            }
+            // On CAS failure re-read the same word
+        }
+        return seats;
+    }
+
+    /**
+     * Return seats to the pool
+     * Bits are cleared before the counter is raised, so the counter never
+     * promises seats that are not yet clear
+     * @param seats Seat numbers (1-based)
+     */
+    void release(int[] seats) {
+        int released = 0;
+        for (int seat : seats) {
+            int index = seat - 1;
+            if (index < 0 || index >= capacity) continue;
+            long bit = 1L << (index & 63);
+            long old = words.getAndAccumulate(index >>> 6, bit, (w, b) -> w & ~b);
+            if ((old & bit) != 0) released++;
+        }
+        free.addAndGet(released);
+    }
+
+    /**
+     * @param seat Seat number (1-based)
+     * @return true if the seat is taken
+     */
+    boolean isTaken(int seat) {
+        int index = seat - 1;
+        return (words.get(index >>> 6) & (1L << (index & 63))) != 0;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Show Timeline
+ * File: ShowTimeline.java
+ * Location: src/com/movieticket/dao/ShowTimeline.java
+ *
+ * Purpose: Immutable, start-time ordered index over a set of shows
+ * Start times are kept in a sorted long[] next to a parallel Show[], so
+ * "next shows after t" and "shows between t1 and t2" are a binary search
+ * plus a copy of the matching slice.
+ */
+
+package com.movieticket.dao;
+
+import com.movieticket.model.Show;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+public final class ShowTimeline {
+
+    static final ShowTimeline EMPTY = new ShowTimeline(new Show[0]);
+
+    private final long[] starts;
+    private final Show[] shows;
+
+    private ShowTimeline(Show[] sortedShows) {
+        this.shows = sortedShows;
+        this.starts = new long[sortedShows.length];
+        for (int i = 0; i < sortedShows.length; i++) {
+            starts[i] = sortedShows[i].getShowStart().getTime();
+        }
+    }
+
+    /**
+     * Build a timeline; shows without a start time are left out
+     * @param shows Shows in any order
+     * @return ShowTimeline
+     */
+    static ShowTimeline of(List<Show> shows) {
+        Show[] sorted = shows.stream()
+                .filter(show -> show.getShowStart() != null)
+                .sorted(Comparator.comparingLong((Show show) -> show.getShowStart().getTime())
+                        .thenComparingInt(Show::getShowId))
+                .toArray(Show[]::new);
+        return sorted.length == 0 ? EMPTY : new ShowTimeline(sorted);
+    }
+
+    /**
+     * @param fromMillis Earliest start (inclusive), epoch milliseconds
+     * @param limit Maximum number of shows
+     * @return The first shows starting at or after fromMillis (unmodifiable)
+     */
+    public List<Show> next(long fromMillis, int limit) {
+        int from = lowerBound(fromMillis);
+        int to = (int) Math.min(shows.length, (long) from + Math.max(0, limit));
+        return slice(from, to);
+    }
+
+    /**
+     * @param fromMillis Earliest start (inclusive), epoch milliseconds
+     * @param toMillis Latest start (exclusive), epoch milliseconds
+     * @return Shows starting in [fromMillis, toMillis) in start order (unmodifiable)
+     */
+    public List<Show> between(long fromMillis, long toMillis) {
+        int from = lowerBound(fromMillis);
+        int to = Math.max(from, lowerBound(toMillis));
+        return slice(from, to);
+    }
+
+    /**
+     * @return Number of shows in the timeline
+     */
+    public int size() {
+        return shows.length;
+    }
+
+    private List<Show> slice(int from, int to) {
+        if (from >= to) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOfRange(shows, from, to)));
+    }
+
+    /**
+     * @return Index of the first start >= millis (shows.length if none)
+     */
+    private int lowerBound(long millis) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Showtime Grid
+ * File: ShowtimeGrid.java
+ * Location: src/com/movieticket/dao/ShowtimeGrid.java
+ *
+ * Purpose: Immutable theaters x show times view of one movie, with the seat
+ * availability read when the grid was fetched
+ * The booking screen fetches one grid per movie, so choosing a theater and a
+ * show time afterwards is a lookup in this object, not a database call.
+ */
+
+package com.movieticket.dao;
+
+import com.movieticket.model.Show;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public final class ShowtimeGrid {
+
+    private final int movieId;
+    private final long fetchedAt;                  // System.currentTimeMillis()
+    private final boolean live;                    // false if built from the catalog
+    private final Map<String, List<Show>> showsByTheater;
+    private final List<String> theaters;
+
+    /**
+     * @param movieId Movie ID
+     * @param shows Shows of the movie in start order
+     * @param live true if availability was just read from the database
+     */
+    ShowtimeGrid(int movieId, List<Show> shows, boolean live) {
+        this.movieId = movieId;
+        this.fetchedAt = System.currentTimeMillis();
+        this.live = live;
+
+        // Theaters sorted by name, as in MovieCatalog
+        Map<String, List<Show>> byTheater = new TreeMap<>();
+        for (Show show : shows) {
+            byTheater.computeIfAbsent(show.getTheaterName(), k -> new ArrayList<>()).add(show);
+        }
+        for (Map.Entry<String, List<Show>> entry : byTheater.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        this.showsByTheater = byTheater;
+        this.theaters = Collections.unmodifiableList(new ArrayList<>(byTheater.keySet()));
+    }
+
+    /**
+     * Grid from the catalog snapshot, used when the database cannot be reached
+     * Availability is as of the last catalog refresh
+     * @param catalog MovieCatalog
+     * @param movieId Movie ID
+     * @return ShowtimeGrid (not live)
+     */
+    static ShowtimeGrid fromCatalog(MovieCatalog catalog, int movieId) {
+        List<Show> shows = new ArrayList<>();
+        for (String theater : catalog.getTheaters(movieId)) {
+            shows.addAll(catalog.getShows(movieId, theater));
+        }
+        return new ShowtimeGrid(movieId, shows, false);
+    }
+
+    public int getMovieId() {
+        return movieId;
+    }
+
+    /**
+     * @return Time the grid was read (epoch millis)
+     */
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    /**
+     * @return false if the database was unreachable and seats are from the catalog
+     */
+    public boolean isLive() {
+        return live;
+    }
+
+    /**
+     * @return Theaters showing the movie, sorted by name (unmodifiable)
+     */
+    public List<String> getTheaters() {
+        return theaters;
+    }
+
+    /**
+     * @param theaterName Theater name
+     * @return Shows at the theater in start order (unmodifiable)
+     */
+    public List<Show> getShows(String theaterName) {
+        List<Show> shows = showsByTheater.get(theaterName);
+        return shows != null ? shows : Collections.emptyList();
+    }
+
+    /**
+     * @param theaterName Theater name
+     * @param showTime Show time label
+     * @return Show or null
+     */
+    public Show getShow(String theaterName, String showTime) {
+        for (Show show : getShows(theaterName)) {
+            if (show.getShowTime().equals(showTime)) {
+                return show;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "ShowtimeGrid{" +
+                "movieId=" + movieId +
+                ", theaters=" + theaters.size() +
+                ", live=" + live +
+                '}';
+    }
+}
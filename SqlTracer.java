@@ -0,0 +1,483 @@
+/**
+ * SQL Tracer
+ * File: SqlTracer.java
+ * Location: src/com/movieticket/util/SqlTracer.java
+ *
+ * Purpose: Time every SQL statement and log the slow ones
+ * When enabled, DatabaseConnection hands out connections wrapped so that each
+ * prepared statement execution records its SQL template, bind-parameter count,
+ * elapsed time (for queries: until the result set is closed) and rows affected
+ * or read. Totals are kept per template; executions over the threshold are
+ * written to the slow-query log with the DAO method that ran them, sampled at
+ * sampleRate. When disabled, connections are not wrapped at all.
+ *
+ * Settings (initial values; change at runtime through the SqlTracer MBean):
+ *   -Dmovieticket.trace.enabled        false
+ *   -Dmovieticket.trace.slowMillis     200
+ *   -Dmovieticket.trace.sampleRate     1.0   (fraction of slow statements logged)
+ *   -Dmovieticket.trace.slowLog        file to append to (default: standard output)
+ *
+ * Tools can also register a StatementListener to receive each executed
+ * statement with its bind values (QueryPlanChecker EXPLAINs them this way).
+ * Bind values are only handed to the listener, never logged or kept.
+ */
+
+package com.movieticket.util;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public final class SqlTracer implements SqlTracerMBean {
+
+    // Statements built with variable IN lists would otherwise grow the table without bound
+    private static final int MAX_TEMPLATES = 1000;
+
+    private static final SqlTracer INSTANCE = new SqlTracer();
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private volatile boolean enabled = Boolean.getBoolean("movieticket.trace.enabled");
+    private volatile long thresholdNanos =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("movieticket.trace.slowMillis", 200L));
+    private volatile double sampleRate =
+            Double.parseDouble(System.getProperty("movieticket.trace.sampleRate", "1.0"));
+
+    private final PrintStream slowLog;
+    private final Map<String, TemplateStats> templates = new ConcurrentHashMap<>();
+    private final LongAdder traced = new LongAdder();
+    private final LongAdder slow = new LongAdder();
+    private final LongAdder logged = new LongAdder();
+    private volatile StatementListener listener;
+
+    /**
+     * Receives every statement executed on a traced connection
+     */
+    public interface StatementListener {
+        /**
+         * @param sql SQL template
+         * @param params Bind values by position (index 0 is parameter 1)
+         */
+        void executed(String sql, Object[] params);
+    }
+
+    private SqlTracer() {
+        this.slowLog = openSlowLog(System.getProperty("movieticket.trace.slowLog"));
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(this, new ObjectName("com.movieticket:type=SqlTracer"));
+        } catch (JMException e) {
+            System.out.println("Could not register SQL tracer MBean: " + e.getMessage());
+        }
+    }
+
+    private static PrintStream openSlowLog(String path) {
+        if (path == null || path.isEmpty()) {
+            return System.out;
+        }
+        try {
+            return new PrintStream(new FileOutputStream(path, true), true, "UTF-8");
+        } catch (IOException e) {
+            System.out.println("Could not open slow-query log " + path + ", using standard output: "
+                    + e.getMessage());
+            return System.out;
+        }
+    }
+
+    public static SqlTracer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Set or clear (null) the statement listener
+     * Only connections borrowed while tracing is enabled report to it.
+     */
+    public void setStatementListener(StatementListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Wrap a borrowed connection if tracing is on
+     * @param conn Connection from the pool
+     * @return Tracing connection, or conn itself when tracing is off
+     */
+    public Connection wrap(Connection conn) {
+        if (!enabled) {
+            return conn;
+        }
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new TracingConnection(conn));
+    }
+
+    /**
+     * Record one finished execution
+     * @param sql SQL template
+     * @param params Bind parameters per execution
+     * @param batchSize Rows in the batch, or 0 if not batched
+     * @param nanos Elapsed time
+     * @param rows Rows affected or read, or -1 if unknown
+     */
+    void record(String sql, int params, int batchSize, long nanos, long rows) {
+        traced.increment();
+        TemplateStats stats = templates.get(sql);
+        if (stats == null && templates.size() < MAX_TEMPLATES) {
+            stats = templates.computeIfAbsent(sql, TemplateStats::new);
+        }
+        if (stats != null) {
+            stats.record(nanos, rows);
+        }
+
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        slow.increment();
+        if (ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        logged.increment();
+        String line = String.format("%s SLOW %.1f ms rows=%s params=%d%s caller=%s sql=%s",
+                new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date()),
+                nanos / 1_000_000.0, rows < 0 ? "?" : String.valueOf(rows), params,
+                batchSize > 0 ? " batch=" + batchSize : "", findCaller(), sql);
+        synchronized (slowLog) {
+            slowLog.println(line);
+        }
+    }
+
+    /**
+     * First application frame outside util and outside close helpers,
+     * i.e. the DAO method that ran the statement
+     */
+    private static String findCaller() {
+        return WALKER.walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith("com.movieticket.")
+                        && !f.getClassName().startsWith("com.movieticket.util.")
+                        && !f.getMethodName().startsWith("close"))
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1)
+                        + "." + f.getMethodName() + ":" + f.getLineNumber())
+                .orElse("unknown"));
+    }
+
+    /**
+     * Count ? placeholders outside quoted literals
+     */
+    static int countParameters(String sql) {
+        int count = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    @Override
+    public void setThresholdMillis(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, thresholdMillis));
+    }
+
+    @Override
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = Math.max(0.0, Math.min(1.0, sampleRate));
+    }
+
+    @Override
+    public long getTracedStatements() {
+        return traced.sum();
+    }
+
+    @Override
+    public long getSlowStatements() {
+        return slow.sum();
+    }
+
+    @Override
+    public long getLoggedStatements() {
+        return logged.sum();
+    }
+
+    @Override
+    public String[] getTopStatements(int limit) {
+        List<TemplateStats> all = new ArrayList<>(templates.values());
+        all.sort((a, b) -> Long.compare(b.totalNanos.sum(), a.totalNanos.sum()));
+        String[] top = new String[Math.min(Math.max(0, limit), all.size())];
+        for (int i = 0; i < top.length; i++) {
+            top[i] = all.get(i).toString();
+        }
+        return top;
+    }
+
+    @Override
+    public void resetStatistics() {
+        templates.clear();
+        traced.reset();
+        slow.reset();
+        logged.reset();
+    }
+
+    /**
+     * Totals for one SQL template
+     */
+    private static final class TemplateStats {
+        final String sql;
+        final LongAdder executions = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        TemplateStats(String sql) {
+            this.sql = sql;
+        }
+
+        void record(long nanos, long rowCount) {
+            executions.increment();
+            totalNanos.add(nanos);
+            if (rowCount > 0) {
+                rows.add(rowCount);
+            }
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        @Override
+        public String toString() {
+            long count = executions.sum();
+            return String.format("%d x, total %.1f ms, mean %.2f ms, max %.1f ms, rows %d: %s",
+                    count, totalNanos.sum() / 1e6, count == 0 ? 0.0 : totalNanos.sum() / 1e6 / count,
+                    maxNanos.get() / 1e6, rows.sum(), sql);
+        }
+    }
+
+    /**
+     * Wraps prepared statements; everything else goes straight through
+     */
+    private final class TracingConnection implements InvocationHandler {
+        private final Connection target;
+
+        TracingConnection(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof PreparedStatement && "prepareStatement".equals(method.getName())) {
+                String sql = (String) args[0];
+                return Proxy.newProxyInstance(
+                        PreparedStatement.class.getClassLoader(),
+                        new Class<?>[] { PreparedStatement.class },
+                        new TracingStatement((PreparedStatement) result, sql));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Times executions of one prepared statement (used by one thread at a time)
+     */
+    private final class TracingStatement implements InvocationHandler {
+        private final PreparedStatement target;
+        private final String sql;
+        private final int params;
+        private int batchSize;
+
+        // Bind values, kept only while a listener is registered
+        private Object[] binds;
+
+        // Open query: timed until its result set is closed
+        private long queryStart;
+        private long queryRows;
+        private boolean queryOpen;
+
+        TracingStatement(PreparedStatement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+            this.params = countParameters(sql);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            boolean execute = name.startsWith("execute") && (args == null || args.length == 0);
+            if (execute || "close".equals(name)) {
+                finishQuery();
+            }
+            if ("addBatch".equals(name)) {
+                batchSize++;
+            }
+            StatementListener current = listener;
+            if (current != null) {
+                captureBinds(current, name, args, execute);
+            }
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                if (execute) {
+                    record(sql, params, takeBatchSize(), System.nanoTime() - start, -1);
+                }
+                throw e.getCause();
+            }
+            if (!execute) {
+                return result;
+            }
+
+            long nanos = System.nanoTime() - start;
+            if (result instanceof ResultSet) {
+                queryStart = start;
+                queryRows = 0;
+                queryOpen = true;
+                return Proxy.newProxyInstance(
+                        ResultSet.class.getClassLoader(),
+                        new Class<?>[] { ResultSet.class },
+                        new TracingResultSet((ResultSet) result, this));
+            }
+            record(sql, params, takeBatchSize(), nanos, rowsOf(result));
+            return result;
+        }
+
+        /**
+         * Track set* calls and report on addBatch or a single execution
+         */
+        private void captureBinds(StatementListener current, String name, Object[] args, boolean execute) {
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                int index = (Integer) args[0];
+                if (index >= 1 && index <= params) {
+                    if (binds == null) {
+                        binds = new Object[params];
+                    }
+                    binds[index - 1] = "setNull".equals(name) ? null : args[1];
+                }
+            } else if ("clearParameters".equals(name)) {
+                binds = null;
+            } else if ("addBatch".equals(name) || (execute && !"executeBatch".equals(name))) {
+                current.executed(sql, binds != null ? binds.clone() : new Object[params]);
+            }
+        }
+
+        private int takeBatchSize() {
+            int size = batchSize;
+            batchSize = 0;
+            return size;
+        }
+
+        void finishQuery() {
+            if (queryOpen) {
+                queryOpen = false;
+                record(sql, params, 0, System.nanoTime() - queryStart, queryRows);
+            }
+        }
+
+        private long rowsOf(Object result) {
+            if (result instanceof Integer || result instanceof Long) {
+                return ((Number) result).longValue();
+            }
+            if (result instanceof int[]) {
+                long total = 0;
+                for (int count : (int[]) result) {
+                    total += Math.max(0, count);
+                }
+                return total;
+            }
+            if (result instanceof long[]) {
+                long total = 0;
+                for (long count : (long[]) result) {
+                    total += Math.max(0, count);
+                }
+                return total;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Counts rows read; closing it completes the query's trace
+     */
+    private static final class TracingResultSet implements InvocationHandler {
+        private final ResultSet target;
+        private final TracingStatement statement;
+
+        TracingResultSet(ResultSet target, TracingStatement statement) {
+            this.target = target;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            String name = method.getName();
+            if ("next".equals(name) && Boolean.TRUE.equals(result)) {
+                statement.queryRows++;
+            } else if ("close".equals(name)) {
+                statement.finishQuery();
+            }
+            return result;
+        }
+    }
+}
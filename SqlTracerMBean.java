@@ -0,0 +1,42 @@
+/**
+ * SQL Tracer MBean Interface
+ * File: SqlTracerMBean.java
+ * Location: src/com/movieticket/util/SqlTracerMBean.java
+ *
+ * Purpose: Switch SQL tracing and tune the slow-query log at runtime
+ * Registered as com.movieticket:type=SqlTracer
+ */
+
+package com.movieticket.util;
+
+public interface SqlTracerMBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getThresholdMillis();
+
+    void setThresholdMillis(long thresholdMillis);
+
+    double getSampleRate();
+
+    void setSampleRate(double sampleRate);
+
+    long getTracedStatements();
+
+    long getSlowStatements();
+
+    long getLoggedStatements();
+
+    /**
+     * @param limit Number of templates
+     * @return Per-template totals, slowest total time first
+     */
+    String[] getTopStatements(int limit);
+
+    /**
+     * Forget per-template totals and counters
+     */
+    void resetStatistics();
+}
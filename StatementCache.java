@@ -0,0 +1,231 @@
+/**
+ * Prepared Statement Cache
+ * File: StatementCache.java
+ * Location: src/com/movieticket/util/StatementCache.java
+ *
+ * Purpose: Keep prepared statements open on a pooled connection, keyed by SQL
+ * Preparing SQL that was prepared before on the same physical connection
+ * returns the open statement instead of parsing and preparing it again.
+ * close() on the returned statement clears its parameters and batch and puts
+ * it back; the physical statement is closed only when evicted (least recently
+ * used first) or when the connection itself is closed.
+ * One cache per pooled connection, used only by the thread that borrowed it.
+ */
+
+package com.movieticket.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class StatementCache {
+
+    private final Connection physical;
+    private final int maxSize;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final LinkedHashMap<Key, Entry> entries;
+
+    // Bumped when the connection goes back to the pool; older handles stop working
+    private int lease;
+
+    StatementCache(Connection physical, int maxSize, AtomicLong hits, AtomicLong misses) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= StatementCache.this.maxSize) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Get a prepared statement for the SQL, reusing a cached one when it is free
+     * The same SQL prepared twice within one borrow gets a second, uncached
+     * statement, so nested use on one connection still works
+     * @param sql SQL text (the cache key, together with autoGeneratedKeys)
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS or NO_GENERATED_KEYS
+     * @return PreparedStatement; close it as usual
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.inUse) {
+            hits.incrementAndGet();
+            return entry.checkOut();
+        }
+
+        misses.incrementAndGet();
+        PreparedStatement statement = autoGeneratedKeys == Statement.NO_GENERATED_KEYS
+                ? physical.prepareStatement(sql)
+                : physical.prepareStatement(sql, autoGeneratedKeys);
+        if (entry != null) {
+            return statement;
+        }
+        entry = new Entry(statement);
+        entries.put(key, entry);
+        return entry.checkOut();
+    }
+
+    /**
+     * Called when the connection is returned to the pool
+     * Statements the DAO forgot to close are reset and made available again
+     */
+    void endLease() {
+        lease++;
+        for (Entry entry : new ArrayList<>(entries.values())) {
+            if (entry.inUse) {
+                entry.checkIn();
+            }
+        }
+    }
+
+    /**
+     * @return Number of statements currently cached
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Cache key: SQL text plus the generated-keys flag it was prepared with
+     */
+    private static final class Key {
+        final String sql;
+        final int autoGeneratedKeys;
+
+        Key(String sql, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return autoGeneratedKeys == other.autoGeneratedKeys && sql.equals(other.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sql, autoGeneratedKeys);
+        }
+    }
+
+    /**
+     * One physical statement owned by the cache
+     */
+    private final class Entry {
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        PreparedStatement checkOut() {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    new Handle(this, lease));
+        }
+
+        /**
+         * Reset for the next user; a statement that cannot be reset is dropped
+         */
+        void checkIn() {
+            inUse = false;
+            if (evicted) {
+                closeQuietly();
+                return;
+            }
+            try {
+                ResultSet open = statement.getResultSet();
+                if (open != null) {
+                    open.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException e) {
+                entries.values().remove(this);
+                closeQuietly();
+            }
+        }
+
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                // Statement is being discarded anyway
+            }
+        }
+    }
+
+    /**
+     * What the DAO holds; each checkout gets its own handle so a second
+     * close() cannot check the statement in twice
+     */
+    private final class Handle implements InvocationHandler {
+        private final Entry entry;
+        private final int lease;
+        private boolean closed;
+
+        Handle(Entry entry, int lease) {
+            this.entry = entry;
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            boolean stale = closed || lease != StatementCache.this.lease;
+            if ("close".equals(name)) {
+                if (!stale) {
+                    closed = true;
+                    entry.checkIn();
+                }
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return stale || entry.statement.isClosed();
+            }
+            if (stale) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                return method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Stub Payment Gateway
+ * File: StubPaymentGateway.java
+ * Location: src/com/movieticket/payment/StubPaymentGateway.java
+ *
+ * Purpose: Local stand-in for a payment provider, for development and load tests
+ * Latency is log-normal (a median plus a long tail, like real gateways) and each
+ * call can be declined, fail or never answer with configurable probabilities.
+ * Answers are delivered by one scheduler thread, so a slow "gateway" holds no
+ * thread per checkout. A capture whose answer is lost (error or hang) went
+ * through half the time, which findCapture() then reports.
+ *
+ * Settings: -Dmovieticket.payment.stub.medianMs (800), sigma (0.6),
+ * declineRate (0.02), errorRate (0.01), hangRate (0.0)
+ */
+
+package com.movieticket.payment;
+
+import com.movieticket.model.PaymentRequest;
+import com.movieticket.model.PaymentResult;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class StubPaymentGateway implements PaymentGateway {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "stub-payment-gateway");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final double medianMillis;
+    private final double sigma;
+    private final double declineRate;
+    private final double errorRate;
+    private final double hangRate;
+    private final AtomicLong nextTransactionId = new AtomicLong();
+
+    // Captures made without telling the caller, by authorization ID, until refunded
+    private final Map<String, String> unreportedCaptures = new ConcurrentHashMap<>();
+
+    /**
+     * Create a stub configured from system properties
+     */
+    public StubPaymentGateway() {
+        this(Long.getLong("movieticket.payment.stub.medianMs", 800),
+             doubleProperty("movieticket.payment.stub.sigma", 0.6),
+             doubleProperty("movieticket.payment.stub.declineRate", 0.02),
+             doubleProperty("movieticket.payment.stub.errorRate", 0.01),
+             doubleProperty("movieticket.payment.stub.hangRate", 0.0));
+    }
+
+    /**
+     * @param medianMillis Median latency per call
+     * @param sigma Spread of the log-normal latency (0 = always the median)
+     * @param declineRate Probability that authorize() declines
+     * @param errorRate Probability that any call fails with a gateway error
+     * @param hangRate Probability that any call never answers
+     */
+    public StubPaymentGateway(double medianMillis, double sigma,
+                              double declineRate, double errorRate, double hangRate) {
+        this.medianMillis = medianMillis;
+        this.sigma = sigma;
+        this.declineRate = declineRate;
+        this.errorRate = errorRate;
+        this.hangRate = hangRate;
+    }
+
+    @Override
+    public CompletableFuture<PaymentResult> authorize(PaymentRequest request) {
+        return respond(draw(true));
+    }
+
+    @Override
+    public CompletableFuture<PaymentResult> capture(String authorizationId, double amount) {
+        PaymentResult result = draw(false);
+        if ((result == null || !result.isApproved()) && ThreadLocalRandom.current().nextBoolean()) {
+            unreportedCaptures.put(authorizationId, "STUB" + nextTransactionId.incrementAndGet());
+        }
+        return respond(result);
+    }
+
+    @Override
+    public CompletableFuture<PaymentResult> findCapture(String authorizationId) {
+        PaymentResult result = draw(false);
+        if (result != null && result.isApproved()) {
+            String captureId = unreportedCaptures.get(authorizationId);
+            result = captureId != null
+                    ? PaymentResult.approved(captureId)
+                    : PaymentResult.declined("Nothing captured for " + authorizationId);
+        }
+        return respond(result);
+    }
+
+    @Override
+    public CompletableFuture<PaymentResult> voidAuthorization(String authorizationId) {
+        return respond(draw(false));
+    }
+
+    @Override
+    public CompletableFuture<PaymentResult> refund(String captureId, double amount) {
+        PaymentResult result = draw(false);
+        if (result != null && result.isApproved()) {
+            unreportedCaptures.values().remove(captureId);
+        }
+        return respond(result);
+    }
+
+    /**
+     * Draw a call's outcome
+     * @return Result, or null if the call never answers
+     */
+    private PaymentResult draw(boolean mayDecline) {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < hangRate) {
+            return null;
+        }
+        if (roll < hangRate + errorRate) {
+            return PaymentResult.error("Payment gateway error");
+        }
+        if (mayDecline && roll < hangRate + errorRate + declineRate) {
+            return PaymentResult.declined("Card declined by issuer");
+        }
+        return PaymentResult.approved("STUB" + nextTransactionId.incrementAndGet());
+    }
+
+    /**
+     * Complete the future with the result after a log-normal delay
+     * @param result Result, or null to never complete (caller's timeout handles it)
+     */
+    private CompletableFuture<PaymentResult> respond(PaymentResult result) {
+        CompletableFuture<PaymentResult> future = new CompletableFuture<>();
+        if (result == null) {
+            return future;
+        }
+        long delayMicros = (long) (medianMillis * 1000 * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+        SCHEDULER.schedule(() -> future.complete(result), delayMicros, TimeUnit.MICROSECONDS);
+        return future;
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StubPaymentGateway{medianMillis=" + medianMillis + ", sigma=" + sigma +
+               ", declineRate=" + declineRate + ", errorRate=" + errorRate + ", hangRate=" + hangRate + "}";
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Summary Rebuilder
+ * File: SummaryRebuilder.java
+ * Location: src/com/movieticket/dao/SummaryRebuilder.java
+ *
+ * Purpose: Recompute the summary tables behind v_active_movies and
+ * v_user_booking_summary from the base tables, in bounded chunks
+ * movie_show_stats is rebuilt movieticket.summary.rebuildChunk (500) movie IDs
+ * at a time with movieticket.summary.chunkPauseMillis (100) between chunks;
+ * user_booking_stats is rebuilt by BookingStatsReconciler in user_id chunks.
+ * No statement reads more than one chunk, so a rebuild never holds long locks
+ * or competes with bookings for a full scan, however large bookings grows.
+ *
+ * BookingServer runs it every movieticket.summary.rebuildMinutes (60; 0 turns
+ * it off) to catch anything the change events missed, such as deleted shows.
+ * Usage: java com.movieticket.dao.SummaryRebuilder   (one rebuild, then exit)
+ */
+
+package com.movieticket.dao;
+
+import com.movieticket.util.DatabaseConnection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class SummaryRebuilder {
+
+    private static final int CHUNK_SIZE = Integer.getInteger("movieticket.summary.rebuildChunk", 500);
+    private static final long CHUNK_PAUSE_MILLIS = Long.getLong("movieticket.summary.chunkPauseMillis", 100L);
+    private static final long REBUILD_MINUTES = Long.getLong("movieticket.summary.rebuildMinutes", 60L);
+
+    private final MovieShowStatsDAO movieShowStatsDAO = new MovieShowStatsDAO();
+
+    /**
+     * Step 1: Recount movie_show_stats one movie_id chunk at a time
+     * Step 2: Rebuild user_booking_stats one user_id chunk at a time
+     * @return Number of chunks that failed
+     */
+    public int run() {
+        long start = System.currentTimeMillis();
+        int failedChunks = 0;
+
+        // Step 1: Movies
+        int maxMovieId = movieShowStatsDAO.getMaxMovieId();
+        for (int from = 1; from <= maxMovieId; from += CHUNK_SIZE) {
+            if (movieShowStatsDAO.rebuildRange(from, from + CHUNK_SIZE - 1) < 0) {
+                failedChunks++;
+            }
+            if (!pause()) {
+                return failedChunks;
+            }
+        }
+
+        // Step 2: Users
+        new BookingStatsReconciler(true).run();
+
+        System.out.println("Summary tables rebuilt in " + (System.currentTimeMillis() - start) + " ms" +
+                           (failedChunks > 0 ? ", " + failedChunks + " movie chunks failed" : ""));
+        return failedChunks;
+    }
+
+    /**
+     * @return false if interrupted (the rebuild should stop)
+     */
+    private static boolean pause() {
+        if (CHUNK_PAUSE_MILLIS <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(CHUNK_PAUSE_MILLIS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Rebuild every rebuildMinutes on a daemon thread
+     * @return The scheduler, or null if rebuilds are turned off
+     */
+    public static ScheduledExecutorService schedule() {
+        if (REBUILD_MINUTES <= 0) {
+            return null;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "summary-rebuilder");
+            t.setDaemon(true);
+            return t;
+        });
+        SummaryRebuilder rebuilder = new SummaryRebuilder();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                rebuilder.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, REBUILD_MINUTES, REBUILD_MINUTES, TimeUnit.MINUTES);
+        return scheduler;
+    }
+
+    public static void main(String[] args) {
+        int failed = new SummaryRebuilder().run();
+        DatabaseConnection.shutdown();
+        System.exit(failed == 0 ? 0 : 1);
+    }
+}
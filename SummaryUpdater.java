@@ -0,0 +1,121 @@
+/**
+ * Summary Updater
+ * File: SummaryUpdater.java
+ * Location: src/com/movieticket/dao/SummaryUpdater.java
+ *
+ * Purpose: Apply show-change events to the movie_show_stats summary table
+ * MovieDAO reports the movies whose set of shows changed (shows added,
+ * deleted or moved to another movie) each time it refreshes the catalog.
+ * Events are coalesced per movie and written by one background thread every
+ * movieticket.summary.flushMillis (1000), so a burst of changes to one movie
+ * costs one recount and callers never wait on the database.
+ *
+ * The updater runs only where start() is called: BookingServer starts it
+ * unless -Dmovieticket.summary.updater=false (set that on all but one node).
+ * Other processes, such as the Swing client, load the catalog without
+ * writing to the shared summary table.
+ *
+ * Booking and cancellation totals (user_booking_stats) do not go through here:
+ * they are updated in the booking's own transaction by UserBookingStatsDAO.
+ * Deletions seen only by an incremental refresh are caught at the next full
+ * reload; SummaryRebuilder corrects anything missed.
+ */
+
+package com.movieticket.dao;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SummaryUpdater {
+
+    private static final long FLUSH_MILLIS = Long.getLong("movieticket.summary.flushMillis", 1000L);
+
+    private static volatile SummaryUpdater instance;
+
+    private final MovieShowStatsDAO movieShowStatsDAO = new MovieShowStatsDAO();
+    private final Thread updaterThread;
+
+    // Movies waiting for a recount; ascending so batches lock rows in a stable order
+    private Set<Integer> pendingMovies = new TreeSet<>();
+
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong recounts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private SummaryUpdater() {
+        updaterThread = new Thread(this::runLoop, "summary-updater");
+        updaterThread.setDaemon(true);
+        updaterThread.start();
+    }
+
+    /**
+     * Start the updater in this process (once; later calls return the same one)
+     * @return SummaryUpdater
+     */
+    public static synchronized SummaryUpdater start() {
+        if (instance == null) {
+            instance = new SummaryUpdater();
+        }
+        return instance;
+    }
+
+    /**
+     * @return The updater, or null if this process did not start one
+     */
+    public static SummaryUpdater getInstance() {
+        return instance;
+    }
+
+    /**
+     * Shows were added, deleted or moved for these movies
+     * @param movieIds Movie IDs
+     */
+    public synchronized void showsChanged(Collection<Integer> movieIds) {
+        if (!movieIds.isEmpty()) {
+            events.incrementAndGet();
+            pendingMovies.addAll(movieIds);
+        }
+    }
+
+    /**
+     * Step 1: Sleep for the flush interval
+     * Step 2: Take everything pending and recount it in one batch
+     */
+    private void runLoop() {
+        while (true) {
+            try {
+                Thread.sleep(FLUSH_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            Set<Integer> batch;
+            synchronized (this) {
+                if (pendingMovies.isEmpty()) {
+                    continue;
+                }
+                batch = pendingMovies;
+                pendingMovies = new TreeSet<>();
+            }
+
+            // A failed batch is not retried; the next rebuild corrects it
+            if (movieShowStatsDAO.recountMovies(batch)) {
+                recounts.addAndGet(batch.size());
+            } else {
+                failures.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SummaryUpdater{" +
+                "events=" + events.get() +
+                ", recounts=" + recounts.get() +
+                ", failures=" + failures.get() +
+                ", pending=" + pendingMovies.size() +
+                '}';
+    }
+}
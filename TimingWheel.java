@@ -0,0 +1,293 @@
+/**
+ * Timing Wheel
+ * File: TimingWheel.java
+ * Location: src/com/movieticket/util/TimingWheel.java
+ *
+ * Purpose: Schedule very many short-lived timeouts with O(1) schedule and cancel
+ * Timeouts hash into a ring of buckets by expiry tick; one daemon thread
+ * advances the ring every tick and runs whatever has come due. Timeouts further
+ * away than one revolution carry a round count. Expiry is accurate to one tick.
+ *
+ * schedule() and cancel() only append to lock-free queues; bucket lists are
+ * touched by the wheel thread alone. Expired tasks run on the wheel thread and
+ * must be short (hand anything slow to another executor).
+ */
+
+package com.movieticket.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class TimingWheel {
+
+    // Upper bound on timeouts moved into buckets per tick, so a burst of
+    // schedule() calls cannot stall expiry
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startNanos;
+    private final Thread worker;
+
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * A scheduled task; cancel() before it expires to stop it running
+     */
+    public static final class Timeout {
+
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final TimingWheel owner;
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        // Owned by the wheel thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(TimingWheel owner, Runnable task, long deadlineNanos) {
+            this.owner = owner;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Cancel the timeout
+         * @return true if it was still waiting; false if it already ran or was cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(WAITING, CANCELLED)) {
+                return false;
+            }
+            owner.pending.decrementAndGet();
+            owner.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        /**
+         * Step 1: Claim the timeout so a racing cancel() loses
+         * Step 2: Run the task
+         */
+        private void expire() {
+            if (!state.compareAndSet(WAITING, EXPIRED)) {
+                return;
+            }
+            owner.pending.decrementAndGet();
+            owner.expiredCount.incrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                t.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Doubly-linked list of the timeouts hashed to one slot
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        Timeout remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+
+        /**
+         * Run every timeout whose rounds are used up; the rest wait another revolution
+         */
+        void expireTimeouts() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                if (timeout.remainingRounds <= 0) {
+                    Timeout next = remove(timeout);
+                    timeout.expire();
+                    timeout = next;
+                } else if (timeout.isCancelled()) {
+                    timeout = remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                    timeout = timeout.next;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param name Name of the wheel thread
+     * @param tickMillis Tick length (expiry resolution)
+     * @param ticksPerWheel Number of buckets, rounded up to a power of two
+     */
+    public TimingWheel(String name, long tickMillis, int ticksPerWheel) {
+        if (tickMillis <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("tickMillis and ticksPerWheel must be positive");
+        }
+        int size = ticksPerWheel == 1 ? 1 : Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.startNanos = System.nanoTime();
+
+        this.worker = new Thread(this::runWheel, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Schedule a task
+     * @param task Task to run on the wheel thread when the delay has passed
+     * @param delayMillis Delay in milliseconds
+     * @return Timeout handle for cancel()
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        if (!running) {
+            throw new IllegalStateException("Timing wheel stopped");
+        }
+        long deadline = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout timeout = new Timeout(this, task, deadline);
+        pending.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return Number of timeouts neither expired nor cancelled
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * @return Number of timeouts that have run
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * Stop the wheel thread; timeouts still waiting never run
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * Step 1: Sleep until the next tick
+     * Step 2: Unlink cancelled timeouts and bucket newly scheduled ones
+     * Step 3: Expire the current bucket
+     */
+    private void runWheel() {
+        while (running) {
+            // Step 1: Wait for tick
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        break;
+                    }
+                    continue;
+                }
+            }
+
+            // Step 2: Apply queued changes
+            processCancelled();
+            transferScheduled();
+
+            // Step 3: Expire
+            wheel[(int) (tick & mask)].expireTimeouts();
+            tick++;
+        }
+    }
+
+    private void processCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferScheduled() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = scheduled.poll();
+            if (timeout == null) {
+                break;
+            }
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            long expiryTick = timeout.deadlineNanos / tickNanos;
+            // Already overdue timeouts go in the current bucket
+            long slotTick = Math.max(expiryTick, tick);
+            timeout.remainingRounds = (slotTick - tick) / wheel.length;
+            wheel[(int) (slotTick & mask)].add(timeout);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TimingWheel{buckets=" + wheel.length + ", tickMillis=" +
+               TimeUnit.NANOSECONDS.toMillis(tickNanos) + ", pending=" + pending.get() +
+               ", expired=" + expiredCount.get() + "}";
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * User Booking Stats Data Access Object
+ * File: UserBookingStatsDAO.java
+ * Location: src/com/movieticket/dao/UserBookingStatsDAO.java
+ *
+ * Purpose: Maintain per-user booking totals in user_booking_stats
+ * Methods: Record booking, Record cancellation (both on the caller's transaction)
+ *
+ * Totals are updated in the same transaction as the booking insert or
+ * cancellation, so reading them is a primary key lookup instead of a scan
+ * of the user's bookings. Lock order is always shows row(s) first, then
+ * stats rows in ascending user_id, which keeps bookings deadlock-free.
+ */
+
+package com.movieticket.dao;
+
+import java.sql.*;
+import java.util.Map;
+
+public class UserBookingStatsDAO {
+
+    static final String RECORD_BOOKING_SQL =
+            "INSERT INTO user_booking_stats (user_id, total_bookings, total_spent) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE total_bookings = total_bookings + VALUES(total_bookings), " +
+            "total_spent = total_spent + VALUES(total_spent)";
+
+    /**
+     * Add a confirmed booking to the user's totals
+     * @param conn Connection with an open transaction
+     * @param userId User ID
+     * @param amount Booking amount
+     * @throws SQLException if the update fails
+     */
+    public void recordBooking(Connection conn, int userId, double amount) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(RECORD_BOOKING_SQL)) {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, 1);
+            pstmt.setDouble(3, amount);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Add several users' bookings in one batch (group commit)
+     * @param conn Connection with an open transaction
+     * @param totals userId -> {bookings, amount}; iterate in ascending user_id (e.g. a TreeMap)
+     * @throws SQLException if the update fails
+     */
+    public void recordBookings(Connection conn, Map<Integer, double[]> totals) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(RECORD_BOOKING_SQL)) {
+            for (Map.Entry<Integer, double[]> entry : totals.entrySet()) {
+                pstmt.setInt(1, entry.getKey());
+                pstmt.setInt(2, (int) entry.getValue()[0]);
+                pstmt.setDouble(3, entry.getValue()[1]);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * Remove a cancelled booking's amount from the user's spend
+     * (cancelled bookings still count towards total_bookings)
+     * @param conn Connection with an open transaction
+     * @param userId User ID
+     * @param amount Booking amount
+     * @throws SQLException if the update fails
+     */
+    public void recordCancellation(Connection conn, int userId, double amount) throws SQLException {
+        String sql = "UPDATE user_booking_stats SET total_spent = total_spent - ? WHERE user_id = ?";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setDouble(1, amount);
+            pstmt.setInt(2, userId);
+            pstmt.executeUpdate();
+        }
+    }
+}
@@ -10,11 +10,38 @@
 package com.movieticket.dao;
 
 import com.movieticket.model.User;
+import com.movieticket.util.DaoExecutor;
+import com.movieticket.util.DaoMetric;
+import com.movieticket.util.DaoMetrics;
 import com.movieticket.util.DatabaseConnection;
 import java.sql.*;
+import java.util.concurrent.CompletableFuture;
 
 public class UserDAO {
     
+    // Latency, call, error and row metrics per method (see DaoMetrics)
+    private static final DaoMetric VALIDATE_LOGIN = DaoMetrics.register("UserDAO", "validateLogin");
+    private static final DaoMetric REGISTER_USER = DaoMetrics.register("UserDAO", "registerUser");
+    private static final DaoMetric IS_USERNAME_EXISTS = DaoMetrics.register("UserDAO", "isUsernameExists");
+    private static final DaoMetric IS_EMAIL_EXISTS = DaoMetrics.register("UserDAO", "isEmailExists");
+    private static final DaoMetric GET_USER_BY_ID = DaoMetrics.register("UserDAO", "getUserById");
+    
+    private static final RowMapper<User> USER_MAPPER = new RowMapper<>(
+            new String[] { "user_id", "username", "password", "email", "phone", "created_at" },
+            (rs, col) -> new User(
+                rs.getInt(col[0]),
+                rs.getString(col[1]),
+                rs.getString(col[2]),
+                rs.getString(col[3]),
+                rs.getString(col[4]),
+                rs.getTimestamp(col[5])
+            ));
+    
+    private static final String LOGIN_SQL =
+            "SELECT " + USER_MAPPER.getColumns() + " FROM users WHERE username = ? AND password = ?";
+    private static final String USER_BY_ID_SQL =
+            "SELECT " + USER_MAPPER.getColumns() + " FROM users WHERE user_id = ?";
+    
     /**
      * Validate user login credentials
      * @param username Username
@@ -22,36 +49,29 @@ public class UserDAO {
      * @return User object if valid, null otherwise
      */
     public User validateLogin(String username, String password) {
+        long start = System.nanoTime();
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         
         try {
             conn = DatabaseConnection.getConnection();
-            String sql = "SELECT user_id, username, email, phone, created_at " +
-                        "FROM users WHERE username = ? AND password = ?";
-            
-            pstmt = conn.prepareStatement(sql);
+            pstmt = conn.prepareStatement(LOGIN_SQL);
             pstmt.setString(1, username);
             pstmt.setString(2, password);
             
             rs = pstmt.executeQuery();
             
-            if (rs.next()) {
-                return new User(
-                    rs.getInt("user_id"),
-                    rs.getString("username"),
-                    password,
-                    rs.getString("email"),
-                    rs.getString("phone"),
-                    rs.getTimestamp("created_at")
-                );
-            }
+            User user = USER_MAPPER.mapNext(rs);
+            VALIDATE_LOGIN.rows(user != null ? 1 : 0);
+            return user;
             
         } catch (SQLException e) {
+            VALIDATE_LOGIN.error();
             e.printStackTrace();
         } finally {
             closeResources(conn, pstmt, rs);
+            VALIDATE_LOGIN.stop(start);
         }
         
         return null;
@@ -63,6 +83,7 @@ public class UserDAO {
      * @return true if registration successful, false otherwise
      */
     public boolean registerUser(User user) {
+        long start = System.nanoTime();
         Connection conn = null;
         PreparedStatement pstmt = null;
         
@@ -77,13 +98,16 @@ public class UserDAO {
             pstmt.setString(4, user.getPhone());
             
             int rowsAffected = pstmt.executeUpdate();
+            REGISTER_USER.rows(rowsAffected);
             return rowsAffected > 0;
             
         } catch (SQLException e) {
+            REGISTER_USER.error();
             e.printStackTrace();
             return false;
         } finally {
             closeResources(conn, pstmt, null);
+            REGISTER_USER.stop(start);
         }
     }
     
@@ -93,6 +117,7 @@ public class UserDAO {
      * @return true if exists, false otherwise
      */
     public boolean isUsernameExists(String username) {
+        long start = System.nanoTime();
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
@@ -111,9 +136,11 @@ public class UserDAO {
             }
             
         } catch (SQLException e) {
+            IS_USERNAME_EXISTS.error();
             e.printStackTrace();
         } finally {
             closeResources(conn, pstmt, rs);
+            IS_USERNAME_EXISTS.stop(start);
         }
         
         return false;
@@ -125,6 +152,7 @@ public class UserDAO {
      * @return true if exists, false otherwise
      */
     public boolean isEmailExists(String email) {
+        long start = System.nanoTime();
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
@@ -143,9 +171,11 @@ public class UserDAO {
             }
             
         } catch (SQLException e) {
+            IS_EMAIL_EXISTS.error();
             e.printStackTrace();
         } finally {
             closeResources(conn, pstmt, rs);
+            IS_EMAIL_EXISTS.stop(start);
         }
         
         return false;
@@ -157,39 +187,57 @@ public class UserDAO {
      * @return User object or null
      */
     public User getUserById(int userId) {
+        long start = System.nanoTime();
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         
         try {
             conn = DatabaseConnection.getConnection();
-            String sql = "SELECT * FROM users WHERE user_id = ?";
-            
-            pstmt = conn.prepareStatement(sql);
+            pstmt = conn.prepareStatement(USER_BY_ID_SQL);
             pstmt.setInt(1, userId);
             
             rs = pstmt.executeQuery();
             
-            if (rs.next()) {
-                return new User(
-                    rs.getInt("user_id"),
-                    rs.getString("username"),
-                    rs.getString("password"),
-                    rs.getString("email"),
-                    rs.getString("phone"),
-                    rs.getTimestamp("created_at")
-                );
-            }
+            User user = USER_MAPPER.mapNext(rs);
+            GET_USER_BY_ID.rows(user != null ? 1 : 0);
+            return user;
             
         } catch (SQLException e) {
+            GET_USER_BY_ID.error();
             e.printStackTrace();
         } finally {
             closeResources(conn, pstmt, rs);
+            GET_USER_BY_ID.stop(start);
         }
         
         return null;
     }
     
+    // ----------------------------------------------------------------
+    // Async variants: run on DaoExecutor, never on the Swing EDT
+    // ----------------------------------------------------------------
+    
+    public CompletableFuture<User> validateLoginAsync(String username, String password) {
+        return DaoExecutor.supply(() -> validateLogin(username, password));
+    }
+    
+    public CompletableFuture<Boolean> registerUserAsync(User user) {
+        return DaoExecutor.supply(() -> registerUser(user));
+    }
+    
+    public CompletableFuture<Boolean> isUsernameExistsAsync(String username) {
+        return DaoExecutor.supply(() -> isUsernameExists(username));
+    }
+    
+    public CompletableFuture<Boolean> isEmailExistsAsync(String email) {
+        return DaoExecutor.supply(() -> isEmailExists(email));
+    }
+    
+    public CompletableFuture<User> getUserByIdAsync(int userId) {
+        return DaoExecutor.supply(() -> getUserById(userId));
+    }
+    
     /**
      * Close database resources
      */
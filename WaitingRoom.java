@@ -0,0 +1,425 @@
+/**
+ * Waiting Room
+ * File: WaitingRoom.java
+ * Location: src/com/movieticket/inventory/WaitingRoom.java
+ *
+ * Purpose: Admit customers to the booking path at a rate the database can take
+ * Methods: Join (get a token), Status (position, estimated wait), Leave
+ *
+ * Each customer gets a numbered token; tokens are admitted in number order,
+ * movieticket.waitroom.ratePerSecond (50) at a time, and an admitted token may
+ * hold seats for admitWindowSeconds (600). The queue is just two counters,
+ * the last number issued and the last number admitted, so joining and polling
+ * are lock-free and millions of waiting tokens cost no memory. Tokens carry an
+ * HMAC of their number, so they cannot be forged to jump the queue; the key is
+ * per process, so route a customer back to the node that issued the token.
+ *
+ * The first hold made with an admitted token binds it to that customer, and a
+ * token grants at most holdsPerToken (4) holds, so one admission cannot be
+ * shared or replayed. Leaving is recorded per token number until the token's
+ * window would have closed (at most maxDeparted (100000) at a time), so a
+ * repeated leave grants nothing and a departed token cannot be used.
+ *
+ * Every second the rate is adjusted from the booking write metrics
+ * (BookingWriter.writeBatch, BookingDAO.createBooking): it is cut by a third
+ * when their mean latency over the last second exceeds latencyTargetMillis
+ * (250) or any write failed, and raised by a tenth of ratePerSecond while
+ * customers are waiting and writes are healthy, within minRatePerSecond (1)
+ * and maxRatePerSecond (500). When nobody is waiting, up to one second's worth
+ * of admissions is granted at once, so the queue is invisible off-peak.
+ *
+ * Settings: -Dmovieticket.waitroom.enabled (true) and the values above
+ */
+
+package com.movieticket.inventory;
+
+import com.movieticket.util.DaoMetric;
+import com.movieticket.util.DaoMetrics;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+public class WaitingRoom {
+
+    private static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("movieticket.waitroom.enabled", "true"));
+    private static final double INITIAL_RATE =
+            Double.parseDouble(System.getProperty("movieticket.waitroom.ratePerSecond", "50"));
+    private static final double MIN_RATE =
+            Double.parseDouble(System.getProperty("movieticket.waitroom.minRatePerSecond", "1"));
+    private static final double MAX_RATE =
+            Double.parseDouble(System.getProperty("movieticket.waitroom.maxRatePerSecond", "500"));
+    private static final long LATENCY_TARGET_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("movieticket.waitroom.latencyTargetMillis", 250L));
+    private static final int ADMIT_WINDOW_SECONDS = Integer.getInteger("movieticket.waitroom.admitWindowSeconds", 600);
+    private static final int HOLDS_PER_TOKEN = Integer.getInteger("movieticket.waitroom.holdsPerToken", 4);
+    private static final int MAX_DEPARTED = Integer.getInteger("movieticket.waitroom.maxDeparted", 100000);
+
+    private static final long TICK_MILLIS = 100;
+    private static final long TICKS_PER_ADJUSTMENT = 1000 / TICK_MILLIS;
+    private static final double BACKOFF = 2.0 / 3.0;
+    private static final long CREDIT_SCALE = 1000; // credits are kept in thousandths of an admission
+    private static final int MAC_BYTES = 8;
+
+    private static final WaitingRoom INSTANCE = new WaitingRoom();
+
+    // Booking writes the admission rate follows
+    private final DaoMetric[] bookingWrites = {
+        DaoMetrics.register("BookingWriter", "writeBatch"),
+        DaoMetrics.register("BookingDAO", "createBooking")
+    };
+
+    private final AtomicLong issued = new AtomicLong();    // last token number handed out
+    private final AtomicLong admitted = new AtomicLong();  // every number up to this one is admitted
+    private final AtomicLong credits = new AtomicLong();   // admissions earned but not yet granted
+    private final LongAdder left = new LongAdder();
+
+    // Token numbers that left, and admitted tokens bound to a customer; both
+    // are dropped once the token's window has closed
+    private final Set<Long> departed = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Claim> claims = new ConcurrentHashMap<>();
+
+    // admitted as of each second, by second % length, to tell when a token's window closed
+    private final AtomicLongArray admittedBySecond = new AtomicLongArray(ADMIT_WINDOW_SECONDS + 1);
+
+    private final SecretKeySpec key;
+    private volatile double rate = INITIAL_RATE;
+    private volatile boolean degraded;
+
+    // Written by the ticker thread only
+    private long ticks;
+    private long lastCalls;
+    private long lastNanos;
+    private long lastErrors;
+
+    /**
+     * Customer an admitted token is bound to, and the holds it has made
+     */
+    private static final class Claim {
+        final int userId;
+        final AtomicInteger holds = new AtomicInteger();
+
+        Claim(int userId) {
+            this.userId = userId;
+        }
+    }
+
+    private WaitingRoom() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        key = new SecretKeySpec(secret, "HmacSHA256");
+        credits.set(Math.max(CREDIT_SCALE, (long) (INITIAL_RATE * CREDIT_SCALE))); // start with a full second
+        for (DaoMetric metric : bookingWrites) {
+            lastCalls += metric.getCalls();
+            lastNanos += metric.getTotalNanos();
+            lastErrors += metric.getErrors();
+        }
+
+        if (ENABLED) {
+            ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "waiting-room");
+                t.setDaemon(true);
+                return t;
+            });
+            ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Get the waiting room in front of this node's booking path
+     * @return WaitingRoom
+     */
+    public static WaitingRoom getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return false if -Dmovieticket.waitroom.enabled=false (every token is admitted)
+     */
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Take the next place in the queue; admitted at once if nobody is waiting
+     * and the current second's admissions are not used up
+     * @return Status of the new token
+     */
+    public QueueStatus join() {
+        long number = issued.incrementAndGet();
+        admit();
+        return statusOf(number, sign(number));
+    }
+
+    /**
+     * @param token Token from join()
+     * @return Status, or null if the token was not issued by this node or has left
+     */
+    public QueueStatus status(String token) {
+        long number = verify(token);
+        return number > 0 && !departed.contains(number) ? statusOf(number, token) : null;
+    }
+
+    /**
+     * @param token Token from join()
+     * @return true if the token may book now
+     */
+    public boolean isAdmitted(String token) {
+        if (!ENABLED) {
+            return true;
+        }
+        QueueStatus status = status(token);
+        return status != null && status.isAdmitted();
+    }
+
+    /**
+     * Spend one hold of an admitted token for a customer
+     * The first hold binds the token to the customer; later ones must come
+     * from the same customer, up to holdsPerToken in all
+     * @param token Token from join(), already checked to be admitted
+     * @param userId Customer making the hold
+     * @return false if the token belongs to someone else or its holds are used up
+     */
+    public boolean claimHold(String token, int userId) {
+        if (!ENABLED) {
+            return true;
+        }
+        long number = verify(token);
+        if (number <= 0 || departed.contains(number)) {
+            return false;
+        }
+        Claim claim = claims.computeIfAbsent(number, n -> new Claim(userId));
+        if (claim.userId != userId) {
+            return false;
+        }
+        if (claim.holds.incrementAndGet() > HOLDS_PER_TOKEN) {
+            claim.holds.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Give back a hold taken by claimHold that did not get any seats
+     * @param token Token from join()
+     */
+    public void returnHold(String token) {
+        Claim claim = claims.get(verify(token));
+        if (claim != null) {
+            claim.holds.decrementAndGet();
+        }
+    }
+
+    /**
+     * Give up a place that has not been admitted yet
+     * The place stays in the sequence, so one admission is granted early in
+     * exchange; repeats of the same token are ignored, and the token is no
+     * longer valid afterwards
+     * @param token Token from join()
+     */
+    public void leave(String token) {
+        long number = verify(token);
+        if (number > admitted.get() && departed.size() < MAX_DEPARTED && departed.add(number)) {
+            left.increment();
+            credits.addAndGet(CREDIT_SCALE);
+            admit();
+        }
+    }
+
+    /**
+     * @return Tokens issued but not yet admitted
+     */
+    public long getWaiting() {
+        return Math.max(0, issued.get() - admitted.get());
+    }
+
+    /**
+     * @return Current admissions per second
+     */
+    public double getRatePerSecond() {
+        return rate;
+    }
+
+    private QueueStatus statusOf(long number, String token) {
+        if (!ENABLED) {
+            return new QueueStatus(token, 0, 0, true, false);
+        }
+        long position = number - admitted.get();
+        if (position > 0) {
+            long waitSeconds = (long) Math.ceil(position / rate);
+            return new QueueStatus(token, position, waitSeconds, false, false);
+        }
+        boolean expired = number <= admittedWindowAgo();
+        return new QueueStatus(token, 0, 0, !expired, expired);
+    }
+
+    /**
+     * @return Highest number that was already admitted ADMIT_WINDOW_SECONDS ago
+     */
+    private long admittedWindowAgo() {
+        long second = System.currentTimeMillis() / 1000;
+        // The slot after this second's was last written ADMIT_WINDOW_SECONDS ago
+        return admittedBySecond.get((int) ((second + 1) % admittedBySecond.length()));
+    }
+
+    /**
+     * Grant waiting tokens as many admissions as the credits allow
+     * Safe to call from any thread; unused credits are returned
+     */
+    private void admit() {
+        while (true) {
+            long current = admitted.get();
+            long waiting = issued.get() - current;
+            long available = credits.get();
+            long grant = Math.min(waiting, available / CREDIT_SCALE);
+            if (grant <= 0) {
+                return;
+            }
+            if (!credits.compareAndSet(available, available - grant * CREDIT_SCALE)) {
+                continue;
+            }
+            if (!admitted.compareAndSet(current, current + grant)) {
+                // Another thread moved the frontier; give the credits back and retry
+                credits.addAndGet(grant * CREDIT_SCALE);
+                continue;
+            }
+            return;
+        }
+    }
+
+    /**
+     * Step 1: Earn this tick's credits (at most one second's worth banked)
+     * Step 2: Admit waiting tokens
+     * Step 3: Once a second, record the frontier, forget tokens whose window
+     * has closed and adjust the rate
+     */
+    private void tick() {
+        try {
+            // Step 1: Credits
+            double current = rate;
+            long earned = (long) (current * CREDIT_SCALE * TICK_MILLIS / 1000);
+            long cap = Math.max(CREDIT_SCALE, (long) (current * CREDIT_SCALE));
+            credits.accumulateAndGet(earned, (have, add) -> Math.min(cap, have + add));
+
+            // Step 2: Admit
+            admit();
+
+            // Step 3: Bookkeeping
+            if (++ticks % TICKS_PER_ADJUSTMENT == 0) {
+                long second = System.currentTimeMillis() / 1000;
+                admittedBySecond.set((int) (second % admittedBySecond.length()), admitted.get());
+                long closed = admittedWindowAgo();
+                departed.removeIf(number -> number <= closed);
+                claims.keySet().removeIf(number -> number <= closed);
+                adjustRate();
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Back off when booking writes got slow or failed over the last second;
+     * speed up while customers wait and writes are healthy
+     */
+    private void adjustRate() {
+        long calls = 0;
+        long nanos = 0;
+        long errors = 0;
+        for (DaoMetric metric : bookingWrites) {
+            calls += metric.getCalls();
+            nanos += metric.getTotalNanos();
+            errors += metric.getErrors();
+        }
+        long intervalCalls = calls - lastCalls;
+        long intervalNanos = nanos - lastNanos;
+        long intervalErrors = errors - lastErrors;
+        lastCalls = calls;
+        lastNanos = nanos;
+        lastErrors = errors;
+
+        // Negative deltas mean the metrics were reset; skip this second
+        if (intervalCalls < 0 || intervalNanos < 0 || intervalErrors < 0) {
+            return;
+        }
+        degraded = intervalErrors > 0
+                || (intervalCalls > 0 && intervalNanos / intervalCalls > LATENCY_TARGET_NANOS);
+        if (degraded) {
+            rate = Math.max(MIN_RATE, rate * BACKOFF);
+        } else if (getWaiting() > 0) {
+            rate = Math.min(MAX_RATE, rate + INITIAL_RATE / 10);
+        }
+    }
+
+    // ----------------------------------------------------------------
+    // Tokens: base64url(number, first MAC_BYTES of HMAC-SHA256(number))
+    // ----------------------------------------------------------------
+
+    private String sign(long number) {
+        byte[] token = ByteBuffer.allocate(Long.BYTES + MAC_BYTES)
+                .putLong(number)
+                .put(mac(number), 0, MAC_BYTES)
+                .array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    /**
+     * @return Token number, or 0 if the token is malformed or not signed by this node
+     */
+    private long verify(String token) {
+        if (token == null) {
+            return 0;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token.trim());
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+        if (bytes.length != Long.BYTES + MAC_BYTES) {
+            return 0;
+        }
+        long number = ByteBuffer.wrap(bytes).getLong();
+        byte[] expected = Arrays.copyOf(mac(number), MAC_BYTES);
+        byte[] actual = Arrays.copyOfRange(bytes, Long.BYTES, bytes.length);
+        return number > 0 && number <= issued.get() && MessageDigest.isEqual(expected, actual) ? number : 0;
+    }
+
+    private byte[] mac(long number) {
+        try {
+            // Mac is not thread-safe and init is cheap next to a booking
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac.doFinal(ByteBuffer.allocate(Long.BYTES).putLong(number).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WaitingRoom{" +
+                "enabled=" + ENABLED +
+                ", waiting=" + getWaiting() +
+                ", admitted=" + admitted.get() +
+                ", left=" + left.sum() +
+                ", ratePerSecond=" + String.format("%.1f", rate) +
+                ", degraded=" + degraded +
+                '}';
+    }
+}
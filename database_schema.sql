@@ -18,7 +18,7 @@ CREATE TABLE users (
     email VARCHAR(100) NOT NULL,
     phone VARCHAR(15) NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    INDEX idx_username (username)
+    INDEX idx_email (email) -- registration duplicate check; username already has its UNIQUE index
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- Step 3: Create Movies Table
@@ -32,39 +32,96 @@ CREATE TABLE movies (
     description TEXT,
     is_active BOOLEAN DEFAULT TRUE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    INDEX idx_movie_name (movie_name)
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, -- catalog refresh watermark
+    INDEX idx_movie_name (movie_name),
+    INDEX idx_movie_updated (updated_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Step 3b: Create Theaters Table
+-- Purpose: Store each theater once; shows refer to it by theater_id
+CREATE TABLE theaters (
+    theater_id INT AUTO_INCREMENT PRIMARY KEY,
+    theater_name VARCHAR(200) NOT NULL UNIQUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, -- catalog refresh watermark
+    INDEX idx_theater_updated (updated_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- Step 4: Create Shows Table
--- Purpose: Store theater and show timing information
+-- Purpose: Store show timing information for a movie at a theater
 CREATE TABLE shows (
     show_id INT AUTO_INCREMENT PRIMARY KEY,
     movie_id INT NOT NULL,
-    theater_name VARCHAR(200) NOT NULL,
-    show_time VARCHAR(20) NOT NULL,
+    theater_id INT NOT NULL,
+    show_time VARCHAR(20) NOT NULL, -- display label, e.g. '06:00 PM'
+    show_start DATETIME NOT NULL, -- actual start; used for ordering, ranges and the cancellation cutoff
+    total_seats INT DEFAULT 100,
     available_seats INT DEFAULT 100,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, -- catalog refresh watermark; seat count updates keep it (updated_at = updated_at)
     FOREIGN KEY (movie_id) REFERENCES movies(movie_id) ON DELETE CASCADE,
-    INDEX idx_movie_theater (movie_id, theater_name)
+    FOREIGN KEY (theater_id) REFERENCES theaters(theater_id),
+    INDEX idx_movie_theater (movie_id, theater_id),
+    INDEX idx_show_start (show_start),
+    INDEX idx_movie_start (movie_id, show_start),
+    INDEX idx_theater_start (theater_id, show_start),
+    INDEX idx_show_updated (updated_at, movie_id) -- covers the catalog refresh's changed-movie lookup
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- Step 5: Create Bookings Table
 -- Purpose: Store ticket booking information
+-- Movie, theater and show time are reached through show_id, not copied per row
 CREATE TABLE bookings (
     booking_id INT AUTO_INCREMENT PRIMARY KEY,
     user_id INT NOT NULL,
     movie_id INT NOT NULL,
-    movie_name VARCHAR(200) NOT NULL,
-    theater_name VARCHAR(200) NOT NULL,
-    show_time VARCHAR(20) NOT NULL,
+    show_id INT NOT NULL,
     booking_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     number_of_tickets INT NOT NULL,
     total_amount DECIMAL(10, 2) NOT NULL,
     status VARCHAR(20) DEFAULT 'CONFIRMED', -- CONFIRMED, CANCELLED
+    idempotency_key VARCHAR(64) NULL, -- client key per purchase; a resubmission cannot book twice
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
     FOREIGN KEY (movie_id) REFERENCES movies(movie_id) ON DELETE CASCADE,
-    INDEX idx_user_bookings (user_id),
-    INDEX idx_booking_date (booking_date)
+    FOREIGN KEY (show_id) REFERENCES shows(show_id) ON DELETE CASCADE,
+    INDEX idx_show_bookings (show_id),
+    INDEX idx_user_booking_date (user_id, booking_date, booking_id), -- history, newest first; also serves user_id lookups
+    INDEX idx_user_status (user_id, status, total_amount), -- per-user CONFIRMED totals without reading rows
+    INDEX idx_booking_date (booking_date),
+    UNIQUE INDEX uk_booking_idempotency (user_id, idempotency_key) -- NULL keys never collide
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Step 5b: Create Booking Seats Table
+-- Purpose: Store the individual seats sold with each booking
+-- The primary key stops the same seat being sold twice for a show
+CREATE TABLE booking_seats (
+    show_id INT NOT NULL,
+    seat_no SMALLINT NOT NULL,
+    booking_id INT NOT NULL,
+    PRIMARY KEY (show_id, seat_no),
+    FOREIGN KEY (show_id) REFERENCES shows(show_id) ON DELETE CASCADE,
+    FOREIGN KEY (booking_id) REFERENCES bookings(booking_id) ON DELETE CASCADE,
+    INDEX idx_booking_seats_booking (booking_id, seat_no) -- a booking's seats in seat order
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Step 5c: Create User Booking Stats Table
+-- Purpose: Per-user totals kept up to date by every booking and cancellation
+-- total_bookings counts all bookings; total_spent counts CONFIRMED ones only
+CREATE TABLE user_booking_stats (
+    user_id INT PRIMARY KEY,
+    total_bookings INT NOT NULL DEFAULT 0,
+    total_spent DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Step 5d: Create Movie Show Stats Table
+-- Purpose: Show count per movie, recounted when the catalog refresh sees
+-- show changes and by the periodic SummaryRebuilder
+CREATE TABLE movie_show_stats (
+    movie_id INT PRIMARY KEY,
+    total_shows INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (movie_id) REFERENCES movies(movie_id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- ====================================================================
@@ -90,84 +147,118 @@ INSERT INTO movies (movie_name, genre, duration, language, description, is_activ
 ('Dangal', 'Biography/Sport', 161, 'Hindi', 'A father trains his daughters in wrestling', TRUE),
 ('Baahubali: The Beginning', 'Action/Adventure', 159, 'Hindi/Telugu', 'Epic tale of a warrior prince', TRUE);
 
--- Insert Sample Theaters and Show Timings
+-- Insert Sample Theaters
+INSERT INTO theaters (theater_id, theater_name) VALUES
+(1, 'PVR Cinemas - Phoenix Mall'),
+(2, 'INOX - Himalaya Mall'),
+(3, 'Cinepolis - Ahmedabad One');
+
+-- Insert Sample Show Timings (theater_id: 1 = PVR, 2 = INOX, 3 = Cinepolis; all shows tomorrow)
 -- For Avengers: Endgame
-INSERT INTO shows (movie_id, theater_name, show_time, available_seats) VALUES
-(1, 'PVR Cinemas - Phoenix Mall', '10:00 AM', 100),
-(1, 'PVR Cinemas - Phoenix Mall', '02:00 PM', 100),
-(1, 'PVR Cinemas - Phoenix Mall', '06:00 PM', 100),
-(1, 'INOX - Himalaya Mall', '11:00 AM', 100),
-(1, 'INOX - Himalaya Mall', '03:00 PM', 100),
-(1, 'INOX - Himalaya Mall', '07:00 PM', 100);
+INSERT INTO shows (movie_id, theater_id, show_time, show_start, available_seats) VALUES
+(1, 1, '10:00 AM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '10:00:00'), 100),
+(1, 1, '02:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '14:00:00'), 100),
+(1, 1, '06:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '18:00:00'), 100),
+(1, 2, '11:00 AM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '11:00:00'), 100),
+(1, 2, '03:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '15:00:00'), 100),
+(1, 2, '07:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '19:00:00'), 100);
 
 -- For The Dark Knight
-INSERT INTO shows (movie_id, theater_name, show_time, available_seats) VALUES
-(2, 'PVR Cinemas - Phoenix Mall', '10:30 AM', 100),
-(2, 'PVR Cinemas - Phoenix Mall', '02:30 PM', 100),
-(2, 'PVR Cinemas - Phoenix Mall', '06:30 PM', 100),
-(2, 'Cinepolis - Ahmedabad One', '11:30 AM', 100),
-(2, 'Cinepolis - Ahmedabad One', '03:30 PM', 100);
+INSERT INTO shows (movie_id, theater_id, show_time, show_start, available_seats) VALUES
+(2, 1, '10:30 AM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '10:30:00'), 100),
+(2, 1, '02:30 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '14:30:00'), 100),
+(2, 1, '06:30 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '18:30:00'), 100),
+(2, 3, '11:30 AM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '11:30:00'), 100),
+(2, 3, '03:30 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '15:30:00'), 100);
 
 -- For Inception
-INSERT INTO shows (movie_id, theater_name, show_time, available_seats) VALUES
-(3, 'INOX - Himalaya Mall', '09:00 AM', 100),
-(3, 'INOX - Himalaya Mall', '01:00 PM', 100),
-(3, 'INOX - Himalaya Mall', '05:00 PM', 100),
-(3, 'Cinepolis - Ahmedabad One', '10:00 AM', 100),
-(3, 'Cinepolis - Ahmedabad One', '02:00 PM', 100);
+INSERT INTO shows (movie_id, theater_id, show_time, show_start, available_seats) VALUES
+(3, 2, '09:00 AM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '09:00:00'), 100),
+(3, 2, '01:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '13:00:00'), 100),
+(3, 2, '05:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '17:00:00'), 100),
+(3, 3, '10:00 AM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '10:00:00'), 100),
+(3, 3, '02:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '14:00:00'), 100);
 
 -- For Interstellar
-INSERT INTO shows (movie_id, theater_name, show_time, available_seats) VALUES
-(4, 'PVR Cinemas - Phoenix Mall', '09:30 AM', 100),
-(4, 'PVR Cinemas - Phoenix Mall', '01:30 PM', 100),
-(4, 'INOX - Himalaya Mall', '10:30 AM', 100),
-(4, 'INOX - Himalaya Mall', '02:30 PM', 100);
+INSERT INTO shows (movie_id, theater_id, show_time, show_start, available_seats) VALUES
+(4, 1, '09:30 AM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '09:30:00'), 100),
+(4, 1, '01:30 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '13:30:00'), 100),
+(4, 2, '10:30 AM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '10:30:00'), 100),
+(4, 2, '02:30 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '14:30:00'), 100);
 
 -- For The Shawshank Redemption
-INSERT INTO shows (movie_id, theater_name, show_time, available_seats) VALUES
-(5, 'Cinepolis - Ahmedabad One', '09:00 AM', 100),
-(5, 'Cinepolis - Ahmedabad One', '01:00 PM', 100),
-(5, 'Cinepolis - Ahmedabad One', '05:00 PM', 100);
+INSERT INTO shows (movie_id, theater_id, show_time, show_start, available_seats) VALUES
+(5, 3, '09:00 AM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '09:00:00'), 100),
+(5, 3, '01:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '13:00:00'), 100),
+(5, 3, '05:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '17:00:00'), 100);
 
 -- For Titanic
-INSERT INTO shows (movie_id, theater_name, show_time, available_seats) VALUES
-(6, 'PVR Cinemas - Phoenix Mall', '12:00 PM', 100),
-(6, 'PVR Cinemas - Phoenix Mall', '04:00 PM', 100),
-(6, 'INOX - Himalaya Mall', '01:00 PM', 100);
+INSERT INTO shows (movie_id, theater_id, show_time, show_start, available_seats) VALUES
+(6, 1, '12:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '12:00:00'), 100),
+(6, 1, '04:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '16:00:00'), 100),
+(6, 2, '01:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '13:00:00'), 100);
 
 -- For The Lion King
-INSERT INTO shows (movie_id, theater_name, show_time, available_seats) VALUES
-(7, 'PVR Cinemas - Phoenix Mall', '11:00 AM', 100),
-(7, 'PVR Cinemas - Phoenix Mall', '03:00 PM', 100),
-(7, 'Cinepolis - Ahmedabad One', '12:00 PM', 100);
+INSERT INTO shows (movie_id, theater_id, show_time, show_start, available_seats) VALUES
+(7, 1, '11:00 AM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '11:00:00'), 100),
+(7, 1, '03:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '15:00:00'), 100),
+(7, 3, '12:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '12:00:00'), 100);
 
 -- For 3 Idiots
-INSERT INTO shows (movie_id, theater_name, show_time, available_seats) VALUES
-(8, 'INOX - Himalaya Mall', '12:00 PM', 100),
-(8, 'INOX - Himalaya Mall', '04:00 PM', 100),
-(8, 'PVR Cinemas - Phoenix Mall', '01:00 PM', 100);
+INSERT INTO shows (movie_id, theater_id, show_time, show_start, available_seats) VALUES
+(8, 2, '12:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '12:00:00'), 100),
+(8, 2, '04:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '16:00:00'), 100),
+(8, 1, '01:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '13:00:00'), 100);
 
 -- For Dangal
-INSERT INTO shows (movie_id, theater_name, show_time, available_seats) VALUES
-(9, 'Cinepolis - Ahmedabad One', '11:00 AM', 100),
-(9, 'Cinepolis - Ahmedabad One', '03:00 PM', 100),
-(9, 'INOX - Himalaya Mall', '12:30 PM', 100);
+INSERT INTO shows (movie_id, theater_id, show_time, show_start, available_seats) VALUES
+(9, 3, '11:00 AM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '11:00:00'), 100),
+(9, 3, '03:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '15:00:00'), 100),
+(9, 2, '12:30 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '12:30:00'), 100);
 
 -- For Baahubali: The Beginning
-INSERT INTO shows (movie_id, theater_name, show_time, available_seats) VALUES
-(10, 'PVR Cinemas - Phoenix Mall', '10:00 AM', 100),
-(10, 'PVR Cinemas - Phoenix Mall', '02:00 PM', 100),
-(10, 'INOX - Himalaya Mall', '11:00 AM', 100),
-(10, 'Cinepolis - Ahmedabad One', '12:00 PM', 100);
-
--- Insert Sample Bookings
-INSERT INTO bookings (user_id, movie_id, movie_name, theater_name, show_time, number_of_tickets, total_amount, status) VALUES
-(2, 1, 'Avengers: Endgame', 'PVR Cinemas - Phoenix Mall', '06:00 PM', 2, 500.00, 'CONFIRMED'),
-(3, 3, 'Inception', 'INOX - Himalaya Mall', '05:00 PM', 3, 750.00, 'CONFIRMED'),
-(2, 8, '3 Idiots', 'INOX - Himalaya Mall', '04:00 PM', 4, 1000.00, 'CANCELLED');
+INSERT INTO shows (movie_id, theater_id, show_time, show_start, available_seats) VALUES
+(10, 1, '10:00 AM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '10:00:00'), 100),
+(10, 1, '02:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '14:00:00'), 100),
+(10, 2, '11:00 AM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '11:00:00'), 100),
+(10, 3, '12:00 PM', TIMESTAMP(CURDATE() + INTERVAL 1 DAY, '12:00:00'), 100);
+
+-- Insert Sample Bookings (show_id looked up from movie, theater and show time)
+INSERT INTO bookings (user_id, movie_id, show_id, number_of_tickets, total_amount, status)
+SELECT b.user_id, s.movie_id, s.show_id, b.tickets, b.amount, b.status
+FROM (
+    SELECT 1 AS seq, 2 AS user_id, 1 AS movie_id, 'PVR Cinemas - Phoenix Mall' AS theater_name,
+           '06:00 PM' AS show_time, 2 AS tickets, 500.00 AS amount, 'CONFIRMED' AS status
+    UNION ALL SELECT 2, 3, 3, 'INOX - Himalaya Mall', '05:00 PM', 3, 750.00, 'CONFIRMED'
+    UNION ALL SELECT 3, 2, 8, 'INOX - Himalaya Mall', '04:00 PM', 4, 1000.00, 'CANCELLED'
+) b
+JOIN theaters t ON t.theater_name = b.theater_name
+JOIN shows s ON s.movie_id = b.movie_id AND s.theater_id = t.theater_id AND s.show_time = b.show_time
+ORDER BY b.seq;
+
+-- Take confirmed tickets out of availability
+UPDATE shows s
+JOIN (SELECT show_id, SUM(number_of_tickets) AS sold FROM bookings
+      WHERE status = 'CONFIRMED' GROUP BY show_id) t ON t.show_id = s.show_id
+SET s.available_seats = s.total_seats - t.sold;
+
+-- Seed per-user totals from the sample bookings
+INSERT INTO user_booking_stats (user_id, total_bookings, total_spent)
+SELECT user_id, COUNT(*), SUM(CASE WHEN status = 'CONFIRMED' THEN total_amount ELSE 0 END)
+FROM bookings
+GROUP BY user_id;
+
+-- Seed per-movie show counts
+INSERT INTO movie_show_stats (movie_id, total_shows)
+SELECT m.movie_id, COUNT(s.show_id)
+FROM movies m
+LEFT JOIN shows s ON s.movie_id = m.movie_id
+GROUP BY m.movie_id;
 
 -- ====================================================================
 -- Step 7: Create Views for Quick Queries
+-- Both read the maintained summary tables, so their cost does not grow
+-- with the number of shows or bookings
 -- ====================================================================
 
 -- View: Active Movies with Show Count
@@ -177,22 +268,20 @@ SELECT
     m.movie_name,
     m.genre,
     m.language,
-    COUNT(s.show_id) as total_shows
+    COALESCE(ms.total_shows, 0) as total_shows
 FROM movies m
-LEFT JOIN shows s ON m.movie_id = s.movie_id
-WHERE m.is_active = TRUE
-GROUP BY m.movie_id;
+LEFT JOIN movie_show_stats ms ON ms.movie_id = m.movie_id
+WHERE m.is_active = TRUE;
 
 -- View: User Booking Summary
 CREATE VIEW v_user_booking_summary AS
 SELECT 
     u.user_id,
     u.username,
-    COUNT(b.booking_id) as total_bookings,
-    SUM(CASE WHEN b.status = 'CONFIRMED' THEN b.total_amount ELSE 0 END) as total_spent
+    COALESCE(us.total_bookings, 0) as total_bookings,
+    COALESCE(us.total_spent, 0) as total_spent
 FROM users u
-LEFT JOIN bookings b ON u.user_id = b.user_id
-GROUP BY u.user_id;
+LEFT JOIN user_booking_stats us ON us.user_id = u.user_id;
 
 -- ====================================================================
 -- Step 8: Display Table Information
@@ -0,0 +1,31 @@
+-- ====================================================================
+-- Online Movie Ticket Booking System - Migration
+-- Database: MySQL
+-- Purpose: Index for the keyset-paginated booking history and the per-user
+-- totals table (user_booking_stats) kept up to date by every booking
+-- Run once after migrate_seat_inventory.sql. Stop the application first;
+-- bookings made while it runs would be missing from the totals
+-- (java com.movieticket.dao.BookingStatsReconciler --fix repairs them).
+-- ====================================================================
+
+USE movie_ticket_db;
+
+-- Step 1: History, newest first
+ALTER TABLE bookings ADD INDEX idx_user_booking_date (user_id, booking_date, booking_id);
+
+-- Step 2: Per-user totals, seeded from the existing bookings
+CREATE TABLE user_booking_stats (
+    user_id INT PRIMARY KEY,
+    total_bookings INT NOT NULL DEFAULT 0,
+    total_spent DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+INSERT INTO user_booking_stats (user_id, total_bookings, total_spent)
+SELECT user_id, COUNT(*), SUM(CASE WHEN status = 'CONFIRMED' THEN total_amount ELSE 0 END)
+FROM bookings
+GROUP BY user_id;
+
+ANALYZE TABLE bookings;
+
+SELECT 'Migration Completed Successfully!' as Status;
@@ -0,0 +1,22 @@
+-- ====================================================================
+-- Online Movie Ticket Booking System - Migration
+-- Database: MySQL
+-- Purpose: updated_at watermarks for the incremental catalog refresh (MovieDAO)
+-- Run once against a database created by the original database_schema.sql;
+-- the full order is listed in README.md. Existing rows get the time the
+-- script runs, so the first refresh after it re-reads everything once.
+-- ====================================================================
+
+USE movie_ticket_db;
+
+-- Step 1: Movies
+ALTER TABLE movies
+    ADD COLUMN updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP AFTER created_at,
+    ADD INDEX idx_movie_updated (updated_at);
+
+-- Step 2: Shows (seat count updates keep updated_at; see BookingDAO)
+ALTER TABLE shows
+    ADD COLUMN updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP AFTER created_at,
+    ADD INDEX idx_show_updated (updated_at);
+
+SELECT 'Migration Completed Successfully!' as Status;
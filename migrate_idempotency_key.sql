@@ -0,0 +1,19 @@
+-- ====================================================================
+-- Online Movie Ticket Booking System - Migration
+-- Database: MySQL
+-- Purpose: Idempotency key per booking so a resubmitted purchase
+-- (client retry, lost commit acknowledgement) cannot be booked twice
+-- Run once after migrate_summary_tables.sql. Existing bookings keep a NULL
+-- key; NULLs never collide in the unique index.
+-- ====================================================================
+
+USE movie_ticket_db;
+
+-- Step 1: Key column and the unique index that enforces it per user
+ALTER TABLE bookings
+    ADD COLUMN idempotency_key VARCHAR(64) NULL AFTER status,
+    ADD UNIQUE INDEX uk_booking_idempotency (user_id, idempotency_key);
+
+ANALYZE TABLE bookings;
+
+SELECT 'Migration Completed Successfully!' as Status;
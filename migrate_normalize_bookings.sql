@@ -0,0 +1,107 @@
+-- ====================================================================
+-- Online Movie Ticket Booking System - Migration
+-- Database: MySQL
+-- Purpose: Key bookings by show_id and move theater names into a theaters table
+-- Run once after migrate_booking_history.sql. Stop the application first;
+-- the script stops before changing any column or dropping anything if a
+-- booking cannot be matched to its show (Step 4).
+-- ====================================================================
+
+USE movie_ticket_db;
+
+-- Step 1: Create Theaters Table from the names used by shows
+CREATE TABLE IF NOT EXISTS theaters (
+    theater_id INT AUTO_INCREMENT PRIMARY KEY,
+    theater_name VARCHAR(200) NOT NULL UNIQUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, -- catalog refresh watermark
+    INDEX idx_theater_updated (updated_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+INSERT IGNORE INTO theaters (theater_name)
+SELECT DISTINCT theater_name FROM shows ORDER BY theater_name;
+
+-- Bookings may name theaters that no longer have shows
+INSERT IGNORE INTO theaters (theater_name)
+SELECT DISTINCT theater_name FROM bookings ORDER BY theater_name;
+
+-- Step 2: Point shows at theaters
+ALTER TABLE shows ADD COLUMN theater_id INT NULL AFTER movie_id;
+
+UPDATE shows s
+JOIN theaters t ON t.theater_name = s.theater_name
+SET s.theater_id = t.theater_id;
+
+-- Step 3: Link every booking to its show
+-- Bookings made before show_id existed are matched on movie, theater and time
+SET @has_show_id := (SELECT COUNT(*) FROM information_schema.COLUMNS
+                     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'bookings' AND COLUMN_NAME = 'show_id');
+SET @sql := IF(@has_show_id > 0, 'SELECT 1', 'ALTER TABLE bookings ADD COLUMN show_id INT NULL AFTER movie_id');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+UPDATE bookings b
+JOIN shows s ON s.movie_id = b.movie_id AND s.theater_name = b.theater_name AND s.show_time = b.show_time
+SET b.show_id = s.show_id
+WHERE b.show_id IS NULL;
+
+-- Bookings whose show was deleted get a retired (zero-seat) show so their history survives
+INSERT INTO shows (movie_id, theater_id, theater_name, show_time, total_seats, available_seats)
+SELECT DISTINCT b.movie_id, t.theater_id, b.theater_name, b.show_time, 0, 0
+FROM bookings b
+JOIN theaters t ON t.theater_name = b.theater_name
+WHERE b.show_id IS NULL;
+
+UPDATE bookings b
+JOIN shows s ON s.movie_id = b.movie_id AND s.theater_name = b.theater_name AND s.show_time = b.show_time
+SET b.show_id = s.show_id
+WHERE b.show_id IS NULL;
+
+-- Step 4: Check nothing is left unmatched; the SIGNAL ends the script
+-- (mysql stops at the first error) before any column is changed or dropped
+SELECT COUNT(*) AS Unmatched_Bookings FROM bookings WHERE show_id IS NULL;
+SELECT COUNT(*) AS Unmatched_Shows FROM shows WHERE theater_id IS NULL;
+
+DROP PROCEDURE IF EXISTS require_all_matched;
+DELIMITER //
+CREATE PROCEDURE require_all_matched()
+BEGIN
+    IF EXISTS (SELECT 1 FROM bookings WHERE show_id IS NULL)
+       OR EXISTS (SELECT 1 FROM shows WHERE theater_id IS NULL) THEN
+        SIGNAL SQLSTATE '45000'
+            SET MESSAGE_TEXT = 'Unmatched bookings or shows (counts above); nothing was dropped';
+    END IF;
+END //
+DELIMITER ;
+
+CALL require_all_matched();
+DROP PROCEDURE require_all_matched;
+
+ALTER TABLE shows MODIFY theater_id INT NOT NULL;
+ALTER TABLE bookings MODIFY show_id INT NOT NULL;
+
+-- Step 5: Replace the string columns and indexes with integer keys
+ALTER TABLE shows
+    DROP INDEX idx_movie_theater,
+    ADD INDEX idx_movie_theater (movie_id, theater_id),
+    ADD CONSTRAINT fk_shows_theater FOREIGN KEY (theater_id) REFERENCES theaters(theater_id),
+    DROP COLUMN theater_name;
+
+-- The old show_id foreign key was ON DELETE SET NULL, which NOT NULL no longer allows
+SET @fk := (SELECT CONSTRAINT_NAME FROM information_schema.KEY_COLUMN_USAGE
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'bookings'
+              AND COLUMN_NAME = 'show_id' AND REFERENCED_TABLE_NAME = 'shows' LIMIT 1);
+SET @sql := IF(@fk IS NULL, 'SELECT 1', CONCAT('ALTER TABLE bookings DROP FOREIGN KEY ', @fk));
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+ALTER TABLE bookings
+    ADD INDEX idx_show_bookings (show_id),
+    ADD CONSTRAINT fk_bookings_show FOREIGN KEY (show_id) REFERENCES shows(show_id) ON DELETE CASCADE,
+    DROP COLUMN movie_name,
+    DROP COLUMN theater_name,
+    DROP COLUMN show_time;
+
+SELECT 'Migration Completed Successfully!' as Status;
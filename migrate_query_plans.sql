@@ -0,0 +1,36 @@
+-- ====================================================================
+-- Online Movie Ticket Booking System - Migration
+-- Database: MySQL
+-- Purpose: Index changes so every DAO statement passes QueryPlanChecker
+-- (no full scans, filesorts or temporary tables at production volume)
+-- Run once after migrate_show_start.sql.
+-- ====================================================================
+
+USE movie_ticket_db;
+
+-- Step 1: Users - index email for the registration check; idx_username
+-- duplicated the index behind the UNIQUE constraint
+ALTER TABLE users
+    DROP INDEX idx_username,
+    ADD INDEX idx_email (email);
+
+-- Step 2: Shows - let the catalog refresh read changed movie IDs from the index alone
+ALTER TABLE shows
+    DROP INDEX idx_show_updated,
+    ADD INDEX idx_show_updated (updated_at, movie_id);
+
+-- Step 3: Bookings - per-user status totals get a covering index; idx_user_bookings
+-- is a prefix of idx_user_booking_date, which also serves the user_id foreign key
+-- (the DROP is refused if idx_user_booking_date does not exist yet)
+ALTER TABLE bookings ADD INDEX idx_user_status (user_id, status, total_amount);
+
+ALTER TABLE bookings DROP INDEX idx_user_bookings;
+
+-- Step 4: Booking seats - return a booking's seats in order without a filesort
+ALTER TABLE booking_seats
+    DROP INDEX idx_booking_seats_booking,
+    ADD INDEX idx_booking_seats_booking (booking_id, seat_no);
+
+ANALYZE TABLE users, shows, bookings, booking_seats;
+
+SELECT 'Migration Completed Successfully!' as Status;
@@ -0,0 +1,43 @@
+-- ====================================================================
+-- Online Movie Ticket Booking System - Migration
+-- Database: MySQL
+-- Purpose: Seat capacity per show, numbered seats per booking and the
+-- show_id link that the guarded seat decrement works on
+-- Run once after migrate_catalog_watermarks.sql. Stop the application first.
+-- ====================================================================
+
+USE movie_ticket_db;
+
+-- Step 1: Capacity. The original schema never decremented available_seats,
+-- so it still holds each show's capacity
+ALTER TABLE shows ADD COLUMN total_seats INT DEFAULT 100 AFTER show_time;
+
+UPDATE shows SET total_seats = available_seats, updated_at = updated_at;
+
+-- Step 2: Seat numbers of each booking (bookings made before this have none)
+CREATE TABLE booking_seats (
+    show_id INT NOT NULL,
+    seat_no SMALLINT NOT NULL,
+    booking_id INT NOT NULL,
+    PRIMARY KEY (show_id, seat_no),
+    FOREIGN KEY (show_id) REFERENCES shows(show_id) ON DELETE CASCADE,
+    FOREIGN KEY (booking_id) REFERENCES bookings(booking_id) ON DELETE CASCADE,
+    INDEX idx_booking_seats_booking (booking_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Step 3: Link bookings to their show; unmatched ones, the index and the
+-- foreign key are handled by migrate_normalize_bookings.sql
+ALTER TABLE bookings ADD COLUMN show_id INT NULL AFTER movie_id;
+
+UPDATE bookings b
+JOIN shows s ON s.movie_id = b.movie_id AND s.theater_name = b.theater_name AND s.show_time = b.show_time
+SET b.show_id = s.show_id
+WHERE b.show_id IS NULL;
+
+-- Step 4: Take confirmed tickets out of availability
+UPDATE shows s
+JOIN (SELECT show_id, SUM(number_of_tickets) AS sold FROM bookings
+      WHERE status = 'CONFIRMED' AND show_id IS NOT NULL GROUP BY show_id) t ON t.show_id = s.show_id
+SET s.available_seats = GREATEST(s.total_seats - t.sold, 0), s.updated_at = s.updated_at;
+
+SELECT 'Migration Completed Successfully!' as Status;
@@ -0,0 +1,30 @@
+-- ====================================================================
+-- Online Movie Ticket Booking System - Migration
+-- Database: MySQL
+-- Purpose: Add a typed start time to shows
+-- Run once after migrate_normalize_bookings.sql. Existing shows only have a
+-- "hh:mm AM/PM" label, so they are given that time on the day the script runs;
+-- correct show_start afterwards for shows on other dates.
+-- ====================================================================
+
+USE movie_ticket_db;
+
+-- Step 1: Add the column and fill it from the label
+ALTER TABLE shows ADD COLUMN show_start DATETIME NULL AFTER show_time;
+
+UPDATE shows
+SET show_start = STR_TO_DATE(CONCAT(CURDATE(), ' ', show_time), '%Y-%m-%d %h:%i %p')
+WHERE show_start IS NULL;
+
+-- Step 2: Check every label parsed (fails on NOT NULL if one did not)
+SELECT show_id, show_time AS Unparsed_Show_Time FROM shows WHERE show_start IS NULL;
+
+ALTER TABLE shows MODIFY show_start DATETIME NOT NULL;
+
+-- Step 3: Index for "next shows", time windows and the cancellation cutoff
+ALTER TABLE shows
+    ADD INDEX idx_show_start (show_start),
+    ADD INDEX idx_movie_start (movie_id, show_start),
+    ADD INDEX idx_theater_start (theater_id, show_start);
+
+SELECT 'Migration Completed Successfully!' as Status;
@@ -0,0 +1,48 @@
+-- ====================================================================
+-- Online Movie Ticket Booking System - Migration
+-- Database: MySQL
+-- Purpose: Serve v_active_movies and v_user_booking_summary from maintained
+-- summary tables instead of grouping shows and bookings on every read
+-- Run once after migrate_query_plans.sql. user_booking_stats is filled by
+-- migrate_booking_history.sql (java com.movieticket.dao.BookingStatsReconciler
+-- --fix repairs any drift).
+-- ====================================================================
+
+USE movie_ticket_db;
+
+-- Step 1: Per-movie show counts
+CREATE TABLE movie_show_stats (
+    movie_id INT PRIMARY KEY,
+    total_shows INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (movie_id) REFERENCES movies(movie_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+INSERT INTO movie_show_stats (movie_id, total_shows)
+SELECT m.movie_id, COUNT(s.show_id)
+FROM movies m
+LEFT JOIN shows s ON s.movie_id = m.movie_id
+GROUP BY m.movie_id;
+
+-- Step 2: Point the views at the summary tables (same names and columns)
+CREATE OR REPLACE VIEW v_active_movies AS
+SELECT 
+    m.movie_id,
+    m.movie_name,
+    m.genre,
+    m.language,
+    COALESCE(ms.total_shows, 0) as total_shows
+FROM movies m
+LEFT JOIN movie_show_stats ms ON ms.movie_id = m.movie_id
+WHERE m.is_active = TRUE;
+
+CREATE OR REPLACE VIEW v_user_booking_summary AS
+SELECT 
+    u.user_id,
+    u.username,
+    COALESCE(us.total_bookings, 0) as total_bookings,
+    COALESCE(us.total_spent, 0) as total_spent
+FROM users u
+LEFT JOIN user_booking_stats us ON us.user_id = u.user_id;
+
+SELECT 'Migration Completed Successfully!' as Status;